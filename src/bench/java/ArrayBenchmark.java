@@ -0,0 +1,116 @@
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Bulk array expressions versus the same work written as element-by-element
+ * 🔁 loops, on one million elements, plus the raw kernels.
+ *
+ * Build with {@code mvn -Pbench compile}, then run
+ * {@code java -cp target/classes ArrayBenchmark} for the scalar kernels or
+ * {@code java --add-modules jdk.incubator.vector -cp target/classes ArrayBenchmark}
+ * for the Vector API ones.
+ */
+public class ArrayBenchmark {
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 20;
+    private static final int SIZE = 1_000_000;
+    // Bulk operations take well under a millisecond, so they run this many times per script
+    private static final int BULK_REPEAT = 50;
+
+    private static final String SETUP = """
+            📦 n == 1000000
+            📦 a == [3 ; n] ➗ 7
+            📦 b == [5 ; n] ➖ a
+            """;
+
+    private static final String[][] PROGRAMS = {
+            {"c = a + b * 2", """
+                    📦 c == [0 ; n]
+                    📦 i == 0
+                    🔁 i < n {
+                        📦 c[i] == a[i] ➕ b[i] ✖️ 2
+                        📦 i == i ➕ 1
+                    }
+                    """, """
+                    📦 c == a ➕ b ✖️ 2
+                    """},
+            {"sum a", """
+                    📦 s == 0
+                    📦 i == 0
+                    🔁 i < n {
+                        📦 s == s ➕ a[i]
+                        📦 i == i ➕ 1
+                    }
+                    """, """
+                    📦 s == 🧮 a
+                    """},
+            {"max b", """
+                    📦 m == b[0]
+                    📦 i == 1
+                    🔁 i < n {
+                        ❓ b[i] > m { 📦 m == b[i] }
+                        📦 i == i ➕ 1
+                    }
+                    """, """
+                    📦 m == 🔺 b
+                    """},
+    };
+
+    public static void main(String[] args) {
+        Output discard = new StreamOutput(OutputStream.nullOutputStream(), StreamOutput.DEFAULT_BUFFER_SIZE, false);
+        ArrayKernels kernels = ArrayKernels.get();
+        System.out.println("kernels: " + kernels.getClass().getSimpleName());
+
+        double setup = measure(program(SETUP), discard);
+        System.out.printf("%nscripts, per operation (setup of %.2f ms subtracted)%n", setup);
+        System.out.printf("%-18s %12s %12s %9s%n", "operation", "loop ms", "bulk ms", "speedup");
+        for (String[] program : PROGRAMS) {
+            double loop = measure(program(SETUP + program[1]), discard) - setup;
+            double bulk = (measure(program(SETUP + repeat(program[2], BULK_REPEAT)), discard) - setup) / BULK_REPEAT;
+            System.out.printf("%-18s %12.2f %12.3f %8.1fx%n", program[0], loop, bulk, loop / bulk);
+        }
+
+        double[] a = new double[SIZE];
+        double[] b = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            a[i] = i / 7.0;
+            b[i] = 5 - a[i];
+        }
+        ArrayKernels scalar = new ScalarKernels();
+        System.out.printf("%nkernels on %d elements%n", SIZE);
+        System.out.printf("%-18s %12s %12s %9s%n", "operation", "scalar ms", kernels == scalar ? "-" : "vector ms", "speedup");
+        kernel("array + array", () -> scalar.apply(Token.Type.PLUS, a, b), () -> kernels.apply(Token.Type.PLUS, a, b));
+        kernel("array * number", () -> scalar.apply(Token.Type.STAR, a, 2), () -> kernels.apply(Token.Type.STAR, a, 2));
+        kernel("sum", () -> scalar.sum(a), () -> kernels.sum(a));
+        kernel("max", () -> scalar.max(b), () -> kernels.max(b));
+    }
+
+    private static String repeat(String body, int times) {
+        return "📦 r == 0\n🔁 r < " + times + " {\n" + body + "📦 r == r ➕ 1\n}\n";
+    }
+
+    // Not optimized: the Optimizer would hoist the repeated bulk operation out of its loop
+    private static List<Ast.Stmt> program(String source) {
+        return new Parser(new Lexer(source).lex()).parse();
+    }
+
+    private static double measure(List<Ast.Stmt> program, Output out) {
+        Resolver resolver = new Resolver(program);
+        resolver.resolve();
+        return measure(() -> new Interpreter(resolver.slotCount(), out).execute(program));
+    }
+
+    private static void kernel(String name, Runnable scalar, Runnable kernels) {
+        double s = measure(scalar);
+        double k = measure(kernels);
+        System.out.printf("%-18s %12.3f %12.3f %8.1fx%n", name, s, k, s / k);
+    }
+
+    // Average wall time of one run in milliseconds, after warm-up
+    private static double measure(Runnable run) {
+        for (int i = 0; i < WARMUP_RUNS; i++) run.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) run.run();
+        return (System.nanoTime() - start) / 1e6 / MEASURED_RUNS;
+    }
+}
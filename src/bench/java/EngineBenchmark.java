@@ -0,0 +1,78 @@
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Compares the closure-compiling engine against the AST-walking interpreter.
+ *
+ * Build with {@code mvn -Pbench compile}, then run
+ * {@code java -cp target/classes EngineBenchmark}.
+ */
+public class EngineBenchmark {
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 10;
+
+    private static final String COUNTER_LOOP = """
+            📦 i == 0
+            📦 sum == 0
+            🔁 i < 2000000 {
+                📦 sum == sum ➕ i ✖️ 2 ➖ 3
+                📦 i == i ➕ 1
+            }
+            📢 sum
+            """;
+
+    private static final String BRANCHY_LOOP = """
+            📦 i == 0
+            📦 even == 0
+            📦 odd == 0
+            🔁 i < 1000000 {
+                📦 half == i ➗ 2
+                ❓ half ✖️ 2 == i { 📦 even == even ➕ 1 } else { 📦 odd == odd ➕ 1 }
+                📦 i == i ➕ 1
+            }
+            📢 even
+            📢 odd
+            """;
+
+    private static final String NESTED_LOOPS = """
+            📦 i == 0
+            📦 total == 0
+            🔁 i < 1000 {
+                📦 j == 0
+                🔁 j < 1000 {
+                    📦 total == total ➕ i ➗ 4 ➕ j ✖️ 3
+                    📦 j == j ➕ 1
+                }
+                📦 i == i ➕ 1
+            }
+            📢 total
+            """;
+
+    public static void main(String[] args) {
+        Output discard = new StreamOutput(OutputStream.nullOutputStream(), StreamOutput.DEFAULT_BUFFER_SIZE, false);
+        String[][] programs = {
+                {"counter loop", COUNTER_LOOP},
+                {"branchy loop", BRANCHY_LOOP},
+                {"nested loops", NESTED_LOOPS},
+        };
+        System.out.printf("%-14s %12s %12s %8s%n", "program", "tree ms", "closure ms", "speedup");
+        for (String[] program : programs) {
+            List<Ast.Stmt> statements = new Parser(new Lexer(program[1]).lex()).parse();
+            Resolver resolver = new Resolver(statements);
+            resolver.resolve();
+            int slots = resolver.slotCount();
+
+            double tree = measure(() -> new Interpreter(slots, discard).execute(statements));
+            double closure = measure(() -> new ClosureCompiler(slots, discard).compile(statements).run());
+            System.out.printf("%-14s %12.2f %12.2f %7.2fx%n", program[0], tree, closure, tree / closure);
+        }
+    }
+
+    // Average wall time of one run in milliseconds, after warm-up
+    private static double measure(Runnable run) {
+        for (int i = 0; i < WARMUP_RUNS; i++) run.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) run.run();
+        return (System.nanoTime() - start) / 1e6 / MEASURED_RUNS;
+    }
+}
@@ -0,0 +1,85 @@
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Object {@link Ast} versus {@link FlatAst} on one very large generated
+ * program: lex+parse time, bytes allocated while parsing, heap retained by
+ * the parsed program, and execution time.
+ *
+ * Build with {@code mvn -Pbench compile}, then run
+ * {@code java -Xmx4g -cp target/classes FlatAstBenchmark [statements] [shape]}
+ * (default 1000000 VARIABLES).
+ */
+public class FlatAstBenchmark {
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 3;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        int statements = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        ProgramGenerator.Shape shape = args.length > 1
+                ? ProgramGenerator.Shape.valueOf(args[1])
+                : ProgramGenerator.Shape.VARIABLES;
+        String source = ProgramGenerator.generate(shape, statements);
+        Output discard = new StreamOutput(OutputStream.nullOutputStream(), StreamOutput.DEFAULT_BUFFER_SIZE, false);
+        System.out.printf("%s, %d statements, %.1f MB of source%n%n", shape, statements, source.length() * 2 / 1e6);
+
+        Runnable lex = () -> {
+            Iterator<Token> tokens = new StreamLexer(source).tokens();
+            while (tokens.next().type != Token.Type.EOF) {
+                // drain
+            }
+        };
+        double lexOnly = measure(lex);
+        long lexAllocated = allocated(lex);
+
+        double objectParse = measure(() -> new Parser(new StreamLexer(source).tokens()).parse());
+        long objectAllocated = allocated(() -> new Parser(new StreamLexer(source).tokens()).parse());
+        long before = usedAfterGc();
+        List<Ast.Stmt> program = new Parser(new StreamLexer(source).tokens()).parse();
+        long objectRetained = usedAfterGc() - before;
+        Resolver resolver = new Resolver(program);
+        resolver.resolve();
+        double objectRun = measure(() -> new Interpreter(resolver.slotCount(), discard).execute(program));
+
+        double flatParse = measure(() -> new FlatParser(new StreamLexer(source).tokens()).parse());
+        long flatAllocated = allocated(() -> new FlatParser(new StreamLexer(source).tokens()).parse());
+        before = usedAfterGc();
+        FlatAst flat = new FlatParser(new StreamLexer(source).tokens()).parse().resolve();
+        long flatRetained = usedAfterGc() - before;
+        double flatRun = measure(() -> new FlatInterpreter(flat, discard).execute());
+
+        System.out.printf("lex only: %.1f ms, %.1f MB allocated%n%n", lexOnly, lexAllocated / 1e6);
+        System.out.printf("%-8s %14s %14s %14s %12s%n", "ast", "lex+parse ms", "allocated MB", "retained MB", "execute ms");
+        System.out.printf("%-8s %14.1f %14.1f %14.1f %12.1f%n", "object", objectParse, objectAllocated / 1e6, objectRetained / 1e6, objectRun);
+        System.out.printf("%-8s %14.1f %14.1f %14.1f %12.1f%n", "flat", flatParse, flatAllocated / 1e6, flatRetained / 1e6, flatRun);
+        System.out.printf("%nflat: %d nodes, %.1f bytes/node retained; object: %.1f bytes/statement, flat: %.1f%n",
+                flat.nodeCount(), (double) flatRetained / flat.nodeCount(),
+                (double) objectRetained / statements, (double) flatRetained / statements);
+    }
+
+    // Average wall time of one run in milliseconds, after warm-up
+    private static double measure(Runnable run) {
+        for (int i = 0; i < WARMUP_RUNS; i++) run.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) run.run();
+        return (System.nanoTime() - start) / 1e6 / MEASURED_RUNS;
+    }
+
+    // Bytes this thread allocated during one run, lexer included
+    private static long allocated(Runnable run) {
+        long id = Thread.currentThread().getId();
+        long before = THREADS.getThreadAllocatedBytes(id);
+        run.run();
+        return THREADS.getThreadAllocatedBytes(id) - before;
+    }
+
+    private static long usedAfterGc() {
+        for (int i = 0; i < 3; i++) System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
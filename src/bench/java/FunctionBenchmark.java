@@ -0,0 +1,90 @@
+import java.util.List;
+
+/**
+ * Cost of {@code 🧩} calls on the tree walker: a loop against the same loop
+ * calling a small function, a tail-recursive loop a million calls deep (which
+ * must not overflow the Java stack), and plain against {@code 🧠} Fibonacci
+ * with the cache's hit rate. Pairs that compute the same thing must print the
+ * same result.
+ *
+ * Build with {@code mvn -Pbench compile}, then run
+ * {@code java -cp target/classes FunctionBenchmark}.
+ */
+public class FunctionBenchmark {
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 20;
+
+    private static final String INLINE = """
+            📦 s == 0
+            📦 i == 0
+            🔁 i < 1000000 {
+                📦 s == s ➕ i ✖️ i ➖ 3
+                📦 i == i ➕ 1
+            }
+            📢 s
+            """;
+
+    private static final String CALLS = """
+            🧩 f(x) ↩️ x ✖️ x ➖ 3
+            📦 s == 0
+            📦 i == 0
+            🔁 i < 1000000 {
+                📦 s == s ➕ f(i)
+                📦 i == i ➕ 1
+            }
+            📢 s
+            """;
+
+    private static final String TAIL = """
+            🧩 loop(i, s) {
+                ❓ i == 1000000 { ↩️ s }
+                ↩️ loop(i ➕ 1, s ➕ i ✖️ i ➖ 3)
+            }
+            📢 loop(0, 0)
+            """;
+
+    private static final String FIB = """
+            🧩 fib(n) {
+                ❓ n < 2 { ↩️ n }
+                ↩️ fib(n ➖ 1) ➕ fib(n ➖ 2)
+            }
+            📢 fib(24)
+            """;
+
+    private static final String MEMO_FIB = "🧠 " + FIB;
+
+    public static void main(String[] args) {
+        System.out.printf("%-14s %10s %12s  %s%n", "run", "ms", "ns/call", "output");
+        report("🔁 inline", INLINE, 0);
+        report("🔁 calling f", CALLS, 1_000_000);
+        report("↩️ tail loop", TAIL, 1_000_001);
+        report("fib", FIB, 75_025 * 2 - 1); // fib(24) makes 2 fib(25) - 1 calls
+        report("🧠 fib", MEMO_FIB, 0);
+    }
+
+    private static void report(String name, String source, long calls) {
+        List<Ast.Stmt> program = new Optimizer().optimize(new Parser(new Lexer(source).lex()).parse());
+        Resolver resolver = new Resolver(program);
+        resolver.resolve();
+        String[] output = new String[2];
+        Runnable run = () -> {
+            BufferOutput out = new BufferOutput();
+            Interpreter interpreter = new Interpreter(resolver.slotCount(), out);
+            interpreter.execute(program);
+            output[0] = out.toString().replace('\n', ' ');
+            output[1] = interpreter.memoStats().strip();
+        };
+        double ms = measure(run);
+        System.out.printf("%-14s %10.2f %12s  %s%n", name, ms,
+                calls == 0 ? "-" : String.format("%.1f", ms * 1e6 / calls), output[0]);
+        if (!output[1].isEmpty()) System.out.printf("%-14s %s%n", "", output[1]);
+    }
+
+    // Average wall time of one run in milliseconds, after warm-up
+    private static double measure(Runnable run) {
+        for (int i = 0; i < WARMUP_RUNS; i++) run.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) run.run();
+        return (System.nanoTime() - start) / 1e6 / MEASURED_RUNS;
+    }
+}
@@ -0,0 +1,118 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Reading numbers into a script: the same numbers written as an array literal
+ * in the source, against a {@code 📂} input of raw doubles and one of text,
+ * each summed with {@code 🧮} and with a {@code 🔁} loop over its elements.
+ * Runs that read the same numbers must print the same result. The literal is
+ * lexed, parsed and resolved in every run, as it would be for a real script.
+ *
+ * Build with {@code mvn -Pbench compile}, then run
+ * {@code java -cp target/classes InputBenchmark [numbers]}.
+ */
+public class InputBenchmark {
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 10;
+
+    // FILE is replaced before parsing
+    private static final String SUM = """
+            📂 d == "FILE"
+            📢 🧮 d
+            """;
+
+    private static final String LOOP = """
+            📂 d == "FILE"
+            📦 s == 0
+            📦 i == 0
+            📦 n == 📏 d
+            🔁 i < n {
+                📦 s == s ➕ d[i]
+                📦 i == i ➕ 1
+            }
+            📢 s
+            """;
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Path binary = Files.createTempFile("numbers", ".f64");
+        Path text = Files.createTempFile("numbers", ".txt");
+        try {
+            write(binary, text, count);
+            System.out.printf("%d numbers: %d MB of doubles, %d MB of text%n", count,
+                    Files.size(binary) >> 20, Files.size(text) >> 20);
+            System.out.printf("%-20s %10s %12s  %s%n", "run", "ms", "M numbers/s", "output");
+            int literal = Math.min(count, 1_000_000);
+            report("[...] 🧮 (" + literal / 1000 + "k)", literal(literal), literal);
+            report("📂 .f64 🧮", SUM.replace("FILE", binary.toString()), count);
+            report("📂 .txt 🧮", SUM.replace("FILE", text.toString()), count);
+            report("📂 .f64 🔁 d[i]", LOOP.replace("FILE", binary.toString()), count);
+            report("📂 .txt 🔁 d[i]", LOOP.replace("FILE", text.toString()), count);
+        } finally {
+            Files.delete(binary);
+            Files.delete(text);
+        }
+    }
+
+    // The numbers i % 1000 ➗ 8, which text and doubles both hold exactly
+    private static double number(long i) {
+        return i % 1000 / 8.0;
+    }
+
+    private static void write(Path binary, Path text, int count) throws IOException {
+        try (FileChannel channel = FileChannel.open(binary, StandardOpenOption.WRITE);
+             BufferedWriter writer = Files.newBufferedWriter(text)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < count; i++) {
+                if (!buffer.hasRemaining()) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) channel.write(buffer);
+                    buffer.clear();
+                }
+                buffer.putDouble(number(i));
+                writer.write(Double.toString(number(i)));
+                writer.write('\n');
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+    private static String literal(int count) {
+        StringBuilder source = new StringBuilder("📦 d == [");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) source.append(", ");
+            source.append(i % 1000).append(" ➗ 8");
+        }
+        return source.append("]\n📢 🧮 d\n").toString();
+    }
+
+    private static void report(String name, String source, long numbers) {
+        String[] output = new String[1];
+        Runnable run = () -> {
+            List<Ast.Stmt> program = new Optimizer().optimize(new Parser(new StreamLexer(source).tokens()).parse());
+            Resolver resolver = new Resolver(program);
+            resolver.resolve();
+            BufferOutput out = new BufferOutput();
+            new Interpreter(resolver.slotCount(), out).execute(program);
+            output[0] = out.toString().replace('\n', ' ');
+        };
+        double ms = measure(run);
+        System.out.printf("%-20s %10.2f %12.1f  %s%n", name, ms, numbers / (ms * 1000), output[0]);
+    }
+
+    // Average wall time of one run in milliseconds, after warm-up
+    private static double measure(Runnable run) {
+        for (int i = 0; i < WARMUP_RUNS; i++) run.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) run.run();
+        return (System.nanoTime() - start) / 1e6 / MEASURED_RUNS;
+    }
+}
@@ -0,0 +1,77 @@
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Compares {@link Lexer#lex()} with {@link StreamLexer} on a generated
+ * multi-megabyte script: throughput and bytes allocated per pass.
+ *
+ * Build with {@code mvn -Pbench compile}, then run
+ * {@code java -cp target/classes LexerBenchmark [statements]}.
+ */
+public class LexerBenchmark {
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 10;
+
+    public static void main(String[] args) {
+        int statements = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        String source = generate(statements);
+        System.out.printf("%d statements, %.1f MB of source%n", statements, source.length() * 2 / 1e6);
+
+        int expected = new Lexer(source).lex().size();
+        System.out.printf("%-18s %10s %12s %14s%n", "lexer", "ms", "MB/s", "alloc MB");
+        report("Lexer.lex()", source, () -> new Lexer(source).lex().size(), expected);
+        report("StreamLexer cursor", source, () -> {
+            StreamLexer lexer = new StreamLexer(source);
+            int count = 1;
+            while (lexer.next() != Token.Type.EOF) count++;
+            return count;
+        }, expected);
+        report("StreamLexer tokens", source, () -> {
+            Iterator<Token> tokens = new StreamLexer(source).tokens();
+            int count = 0;
+            while (tokens.hasNext()) {
+                tokens.next();
+                count++;
+            }
+            return count;
+        }, expected);
+    }
+
+    private interface Pass {
+        int run();
+    }
+
+    private static void report(String name, String source, Pass pass, int expectedTokens) {
+        for (int i = 0; i < WARMUP_RUNS; i++) check(pass.run(), expectedTokens, name);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) check(pass.run(), expectedTokens, name);
+        double ms = (System.nanoTime() - start) / 1e6 / MEASURED_RUNS;
+        double allocated = (threads.getThreadAllocatedBytes(thread) - allocatedBefore) / 1e6 / MEASURED_RUNS;
+        double megabytes = source.length() * 2 / 1e6;
+        System.out.printf("%-18s %10.2f %12.1f %14.2f%n", name, ms, megabytes / (ms / 1000), allocated);
+    }
+
+    private static void check(int tokens, int expected, String name) {
+        if (tokens != expected) throw new IllegalStateException(name + " produced " + tokens + " tokens, expected " + expected);
+    }
+
+    static String generate(int statements) {
+        StringBuilder sb = new StringBuilder();
+        List<String> names = List.of("alpha", "beta", "gamma", "delta", "counter");
+        for (int i = 0; i < statements; i++) {
+            String name = names.get(i % names.size());
+            switch (i % 4) {
+                case 0 -> sb.append("📦 ").append(name).append(" == ").append(i).append(" ➕ 3 ✖️ ").append(name).append('\n');
+                case 1 -> sb.append("❓ ").append(name).append(" > ").append(i).append(" { 📢 ").append(name).append(" }\n");
+                case 2 -> sb.append("📢 ").append(name).append(" ➗ 7 ➖ 1;\n");
+                default -> sb.append("🔁 ").append(name).append(" < 0 { 📦 ").append(name).append(" == ").append(name).append(" ➕ 1 }\n");
+            }
+        }
+        return sb.toString();
+    }
+}
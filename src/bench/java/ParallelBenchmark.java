@@ -0,0 +1,82 @@
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A 🔀 reduction against the same work as a 🔁 loop, on fork/join pools of
+ * one thread up to the number of processors, plus no pool at all (sequential
+ * splitting). Every run must print the same result, whatever the pool.
+ *
+ * Build with {@code mvn -Pbench compile}, then run
+ * {@code java -cp target/classes ParallelBenchmark [max threads]}.
+ */
+public class ParallelBenchmark {
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 20;
+
+    private static final String LOOP = """
+            📦 n == 2000000
+            📦 s == 0
+            📦 h == 0
+            📦 i == 0
+            🔁 i < n {
+                📦 d == i ➕ 1
+                📦 s == s ➕ 1 ➗ d
+                ❓ i ✖️ 7 > n { 📦 h == h ➕ 1 }
+                📦 i == i ➕ 1
+            }
+            📢 s
+            📢 h
+            """;
+
+    private static final String PARALLEL = """
+            📦 n == 2000000
+            📦 s == 0
+            📦 h == 0
+            🔀 [➕ s, ➕ h] i == 0, n {
+                📦 d == i ➕ 1
+                📦 s == s ➕ 1 ➗ d
+                ❓ i ✖️ 7 > n { 📦 h == h ➕ 1 }
+            }
+            📢 s
+            📢 h
+            """;
+
+    public static void main(String[] args) {
+        int max = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d processors%n", Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-18s %12s %9s  %s%n", "run", "ms", "speedup", "output");
+        double loop = report("🔁", LOOP, null, 0);
+        report("🔀 no pool", PARALLEL, null, loop);
+        for (int threads = 1; threads <= max; threads++) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            report("🔀 " + threads + " threads", PARALLEL, pool, loop);
+            pool.shutdown();
+        }
+    }
+
+    private static double report(String name, String source, ForkJoinPool pool, double baseline) {
+        List<Ast.Stmt> program = new Optimizer().optimize(new Parser(new Lexer(source).lex()).parse());
+        Resolver resolver = new Resolver(program);
+        resolver.resolve();
+        String[] output = new String[1];
+        Runnable run = () -> {
+            BufferOutput out = new BufferOutput();
+            Interpreter interpreter = new Interpreter(resolver.slotCount(), out);
+            interpreter.setPool(pool);
+            interpreter.execute(program);
+            output[0] = out.toString().replace('\n', ' ');
+        };
+        double ms = measure(run);
+        System.out.printf("%-18s %12.2f %9s  %s%n", name, ms,
+                baseline == 0 ? "-" : String.format("%.2fx", baseline / ms), output[0]);
+        return ms;
+    }
+
+    // Average wall time of one run in milliseconds, after warm-up
+    private static double measure(Runnable run) {
+        for (int i = 0; i < WARMUP_RUNS; i++) run.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) run.run();
+        return (System.nanoTime() - start) / 1e6 / MEASURED_RUNS;
+    }
+}
@@ -0,0 +1,63 @@
+import java.io.OutputStream;
+import java.util.List;
+
+/** Implements {@link bench.Pipeline} on top of the interpreter classes. */
+public class PipelinePhases implements bench.Pipeline {
+    private final Output out = new StreamOutput(OutputStream.nullOutputStream(), StreamOutput.DEFAULT_BUFFER_SIZE, false);
+    private String engine;
+    private String text;
+    private List<Token> tokens;
+    private List<Ast.Stmt> program;
+    private int slots;
+    private List<String> slotNames;
+
+    @Override
+    public void load(String shape, int size, String engine) {
+        this.engine = engine;
+        text = ProgramGenerator.generate(ProgramGenerator.Shape.valueOf(shape), size);
+        tokens = new Lexer(text).lex();
+        program = new Parser(tokens).parse();
+        Resolver resolver = new Resolver(program);
+        resolver.resolve();
+        slots = resolver.slotCount();
+        slotNames = resolver.slotNames();
+    }
+
+    @Override
+    public Object lex() {
+        return new Lexer(text).lex();
+    }
+
+    @Override
+    public Object parse() {
+        return new Parser(tokens).parse();
+    }
+
+    // Engines that compile (vm, closure) include compilation in the measurement
+    @Override
+    public Object execute() {
+        switch (engine) {
+            case "tree" -> {
+                Interpreter interpreter = new Interpreter(slots, out);
+                interpreter.execute(program);
+                return interpreter;
+            }
+            case "jit" -> {
+                Interpreter interpreter = new Interpreter(slots, out, new Jit());
+                interpreter.execute(program);
+                return interpreter;
+            }
+            case "vm" -> {
+                VM vm = new VM(slots, out);
+                vm.run(new Compiler().compile(program, slotNames));
+                return vm;
+            }
+            case "closure" -> {
+                Runnable run = new ClosureCompiler(slots, out).compile(program);
+                run.run();
+                return run;
+            }
+            default -> throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Synthetic programs of tunable size for the benchmarks. Every shape is a
+ * valid program that terminates and reads only assigned variables.
+ */
+public class ProgramGenerator {
+    public enum Shape {
+        /** {@code size} assignments, each a 32-term ➕/✖️ chain. */
+        EXPRESSION_CHAIN,
+        /** {@code size} groups of eight nested ❓ with an assignment at the bottom. */
+        NESTED_IF,
+        /** One 🔁 counter loop running {@code size} iterations. */
+        COUNTER_LOOP,
+        /** {@code size} assignments reading and writing 64 variables. */
+        VARIABLES,
+        /** {@code size} 📢 statements. */
+        PRINTS,
+    }
+
+    private static final int CHAIN_TERMS = 32;
+    private static final int IF_DEPTH = 8;
+    private static final int VARIABLE_COUNT = 64;
+
+    public static String generate(Shape shape, int size) {
+        StringBuilder sb = new StringBuilder();
+        switch (shape) {
+            case EXPRESSION_CHAIN -> {
+                sb.append("📦 x == 3\n");
+                for (int i = 0; i < size; i++) {
+                    sb.append("📦 y == x");
+                    for (int t = 1; t < CHAIN_TERMS; t++) {
+                        sb.append(t % 2 == 0 ? " ➕ " : " ✖️ ").append(t % 2 == 0 ? "x" : String.valueOf(t % 7 + 1));
+                    }
+                    sb.append('\n');
+                }
+                sb.append("📢 y\n");
+            }
+            case NESTED_IF -> {
+                sb.append("📦 a == 0\n");
+                for (int i = 0; i < size; i++) {
+                    for (int d = 0; d < IF_DEPTH; d++) sb.append("❓ a > ").append(-1 - d).append(" { ");
+                    sb.append("📦 a == a ➕ 1");
+                    for (int d = 0; d < IF_DEPTH; d++) sb.append(" }");
+                    sb.append('\n');
+                }
+                sb.append("📢 a\n");
+            }
+            case COUNTER_LOOP -> sb.append("📦 i == 0\n🔁 i < ").append(size).append(" {\n    📦 i == i ➕ 1\n}\n📢 i\n");
+            case VARIABLES -> {
+                for (int v = 0; v < VARIABLE_COUNT; v++) sb.append("📦 v").append(v).append(" == ").append(v).append('\n');
+                for (int i = 0; i < size; i++) {
+                    int target = i % VARIABLE_COUNT;
+                    sb.append("📦 v").append(target).append(" == v").append((i * 7 + 3) % VARIABLE_COUNT)
+                            .append(" ➖ v").append((i * 13 + 5) % VARIABLE_COUNT).append(" ➕ v").append(target).append('\n');
+                }
+                sb.append("📢 v0\n");
+            }
+            case PRINTS -> {
+                sb.append("📦 p == 1\n");
+                for (int i = 0; i < size; i++) sb.append("📢 p ➕ ").append(i).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
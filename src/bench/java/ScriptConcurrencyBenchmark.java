@@ -0,0 +1,84 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput of one shared {@link CompiledScript} executed concurrently with
+ * per-call bindings, at 1, 2, 4, ... threads up to the number of cores.
+ * Every result is checked against a single-threaded run.
+ *
+ * Build with {@code mvn -Pbench compile}, then run
+ * {@code java -cp target/classes ScriptConcurrencyBenchmark [seconds-per-step] [max-threads]}.
+ */
+public class ScriptConcurrencyBenchmark {
+    private static final String SCRIPT = """
+            📦 i == 0
+            📦 acc == seed
+            🔁 i < n {
+                📦 acc == acc ➕ i ✖️ rate ➗ 3
+                📦 i == i ➕ 1
+            }
+            """;
+
+    public static void main(String[] args) throws InterruptedException {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+        CompiledScript script = CompiledScript.compile(SCRIPT, "seed", "rate", "n");
+
+        // Warm up and record the expected result for each seed
+        int seeds = 64;
+        double[] expected = new double[seeds];
+        for (int round = 0; round < 200; round++) {
+            for (int seed = 0; seed < seeds; seed++) expected[seed] = script.execute(bindings(seed)).get("acc");
+        }
+
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        List<Integer> steps = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) steps.add(threads);
+        steps.add(maxThreads);
+
+        System.out.printf("%8s %14s %9s%n", "threads", "calls/s", "speedup");
+        double base = 0;
+        for (int threads : steps) {
+            double rate = measure(script, threads, seconds, expected);
+            if (threads == 1) base = rate;
+            System.out.printf("%8d %14.0f %8.2fx%n", threads, rate, rate / base);
+        }
+    }
+
+    private static Map<String, Double> bindings(int seed) {
+        return Map.of("seed", (double) seed, "rate", 1.5 + seed % 4, "n", 1000.0);
+    }
+
+    private static double measure(CompiledScript script, int threads, double seconds, double[] expected)
+            throws InterruptedException {
+        LongAdder calls = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                int seed = offset;
+                while (System.nanoTime() < deadline) {
+                    seed = (seed + 1) % expected.length;
+                    double acc = script.execute(bindings(seed)).get("acc");
+                    if (acc != expected[seed]) throw new IllegalStateException("seed " + seed + ": " + acc);
+                    calls.increment();
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) worker.join();
+        return calls.sum() / ((System.nanoTime() - begin) / 1e9);
+    }
+}
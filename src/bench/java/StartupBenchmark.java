@@ -0,0 +1,98 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Startup of the packaged launcher, each run a fresh JVM: without class data
+ * sharing, with the JDK's default archive, and with the application archive
+ * from {@code mvn -Pcds package} when it exists. Reports the time to the
+ * script's first output and to the end of the process. Configurations take
+ * turns, so that a busy machine slows them all alike, and every run must print
+ * the same output.
+ *
+ * Build with {@code mvn -Pcds package} and {@code mvn -Pbench compile}, then run
+ * {@code java -cp target/classes StartupBenchmark [script] [runs]}.
+ */
+public class StartupBenchmark {
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 20;
+    private static final Path JAR = Path.of("target/emoji-lang-0.1.0-SNAPSHOT.jar");
+    private static final Path ARCHIVE = Path.of("target/emoji-lang.jsa");
+
+    private record Config(String name, List<String> flags) {}
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String script = args.length > 0 ? args[0] : "example.emj";
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : MEASURED_RUNS;
+        if (!Files.exists(JAR)) throw new RuntimeException(JAR + " not found: run mvn package first");
+        List<Config> configs = new ArrayList<>(List.of(
+                new Config("-Xshare:off", List.of("-Xshare:off")),
+                new Config("JDK archive", List.of())));
+        if (Files.exists(ARCHIVE)) {
+            configs.add(new Config("app archive", List.of("-XX:SharedArchiveFile=" + ARCHIVE)));
+        } else {
+            System.out.println(ARCHIVE + " not found: run mvn -Pcds package to include it");
+        }
+
+        byte[] expected = null;
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            for (Config config : configs) {
+                byte[] output = run(config, script, new long[2]);
+                if (expected == null) expected = output;
+                check(config, expected, output);
+            }
+        }
+        long[][] first = new long[configs.size()][runs];
+        long[][] total = new long[configs.size()][runs];
+        long[] times = new long[2];
+        for (int i = 0; i < runs; i++) {
+            for (int c = 0; c < configs.size(); c++) {
+                check(configs.get(c), expected, run(configs.get(c), script, times));
+                first[c][i] = times[0];
+                total[c][i] = times[1];
+            }
+        }
+
+        System.out.printf("%s, %d runs each%n", script, runs);
+        System.out.printf("%-14s %14s %14s %14s %14s%n", "config", "first out ms", "min", "total ms", "min");
+        for (int c = 0; c < configs.size(); c++) {
+            Arrays.sort(first[c]);
+            Arrays.sort(total[c]);
+            System.out.printf("%-14s %14.1f %14.1f %14.1f %14.1f%n", configs.get(c).name,
+                    first[c][runs / 2] / 1e6, first[c][0] / 1e6, total[c][runs / 2] / 1e6, total[c][0] / 1e6);
+        }
+    }
+
+    // Runs the launcher once; times gets the nanoseconds to the first byte of output and to exit
+    private static byte[] run(Config config, String script, long[] times) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(config.flags);
+        command.addAll(List.of("-cp", JAR.toString(), "Launcher", script));
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        byte[] output;
+        try (InputStream in = process.getInputStream()) {
+            int b = in.read();
+            times[0] = System.nanoTime() - start;
+            byte[] rest = in.readAllBytes();
+            output = new byte[b < 0 ? 0 : rest.length + 1];
+            if (b >= 0) {
+                output[0] = (byte) b;
+                System.arraycopy(rest, 0, output, 1, rest.length);
+            }
+        }
+        int status = process.waitFor();
+        times[1] = System.nanoTime() - start;
+        if (status != 0) throw new RuntimeException(config.name + " exited with status " + status);
+        return output;
+    }
+
+    private static void check(Config config, byte[] expected, byte[] output) {
+        if (!Arrays.equals(expected, output)) throw new RuntimeException(config.name + " printed different output");
+    }
+}
@@ -0,0 +1,118 @@
+import java.util.List;
+
+/**
+ * Throughput of {@code 🚀} tasks and {@code 📡} channels on the tree walker:
+ * starting and awaiting short tasks, moving numbers from one task to another
+ * through channels of several capacities, and many tasks blocked on a channel
+ * at once. Prints whether tasks ran on virtual threads (JDK 21+) or on the
+ * platform-thread fallback; the blocked-tasks run is what tells them apart.
+ *
+ * Build with {@code mvn -Pbench compile}, then run
+ * {@code java -cp target/classes TaskBenchmark [blocked tasks]}.
+ */
+public class TaskBenchmark {
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 10;
+
+    private static final String SPAWN = """
+            🧩 square(x) ↩️ x ✖️ x
+            📦 n == 10000
+            📦 tasks == [0 ; n]
+            📦 i == 0
+            🔁 i < n {
+                📦 tasks[i] == 🚀 square(i)
+                📦 i == i ➕ 1
+            }
+            📦 s == 0
+            📦 i == 0
+            🔁 i < n {
+                📦 s == s ➕ ⏳ tasks[i]
+                📦 i == i ➕ 1
+            }
+            📢 s
+            """;
+
+    // CAPACITY is replaced before parsing
+    private static final String PIPE = """
+            🧩 produce(ch, n) {
+                📦 i == 0
+                🔁 i < n {
+                    📤 ch, i
+                    📦 i == i ➕ 1
+                }
+                ↩️ n
+            }
+            📦 n == 100000
+            📦 ch == 📡 CAPACITY
+            📦 p == 🚀 produce(ch, n)
+            📦 s == 0
+            📦 i == 0
+            🔁 i < n {
+                📦 s == s ➕ 📥 ch
+                📦 i == i ➕ 1
+            }
+            📢 s
+            """;
+
+    // COUNT is replaced before parsing
+    private static final String BLOCKED = """
+            🧩 relay(in, out) {
+                📤 out, 📥 in ✖️ 2
+                ↩️ 0
+            }
+            📦 n == COUNT
+            📦 in == 📡 n
+            📦 out == 📡 n
+            📦 i == 0
+            🔁 i < n {
+                📦 t == 🚀 relay(in, out)
+                📦 i == i ➕ 1
+            }
+            📦 i == 0
+            🔁 i < n {
+                📤 in, i
+                📦 i == i ➕ 1
+            }
+            📦 s == 0
+            📦 i == 0
+            🔁 i < n {
+                📦 s == s ➕ 📥 out
+                📦 i == i ➕ 1
+            }
+            📢 s
+            """;
+
+    public static void main(String[] args) {
+        int blocked = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        System.out.printf("tasks on %s threads, %d processors%n", Tasks.VIRTUAL ? "virtual" : "platform",
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-26s %10s %14s  %s%n", "run", "ms", "ops/s", "output");
+        report("🚀 + ⏳ 10000 tasks", SPAWN, 10_000);
+        for (int capacity : new int[] {1, 16, 256}) {
+            report("📤 📥 capacity " + capacity, PIPE.replace("CAPACITY", Integer.toString(capacity)), 100_000);
+        }
+        report(blocked + " blocked tasks", BLOCKED.replace("COUNT", Integer.toString(blocked)), blocked);
+    }
+
+    private static void report(String name, String source, long operations) {
+        List<Ast.Stmt> program = new Optimizer().optimize(new Parser(new Lexer(source).lex()).parse());
+        Resolver resolver = new Resolver(program);
+        resolver.resolve();
+        String[] output = new String[1];
+        Runnable run = () -> {
+            BufferOutput out = new BufferOutput();
+            new Interpreter(resolver.slotCount(), out).execute(program);
+            output[0] = out.toString().replace('\n', ' ');
+        };
+        double ms = measure(run);
+        System.out.printf("%-26s %10.2f %14.0f  %s%n", name, ms, operations / (ms / 1000), output[0]);
+    }
+
+    // Average wall time of one run in milliseconds, after warm-up
+    private static double measure(Runnable run) {
+        for (int i = 0; i < WARMUP_RUNS; i++) run.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) run.run();
+        return (System.nanoTime() - start) / 1e6 / MEASURED_RUNS;
+    }
+}
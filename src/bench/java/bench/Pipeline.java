@@ -0,0 +1,26 @@
+package bench;
+
+/**
+ * The pipeline phases as seen from {@link PipelineBenchmark}. JMH rejects
+ * benchmarks in the default package and named packages cannot import the
+ * interpreter classes, so the default-package {@code PipelinePhases}
+ * implements this and is loaded by name.
+ */
+public interface Pipeline {
+    /** Generates a {@code ProgramGenerator} program and prepares every phase's input. */
+    void load(String shape, int size, String engine);
+
+    Object lex();
+
+    Object parse();
+
+    Object execute();
+
+    static Pipeline create() {
+        try {
+            return (Pipeline) Class.forName("PipelinePhases").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
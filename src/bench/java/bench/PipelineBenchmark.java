@@ -0,0 +1,63 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH throughput of lexing, parsing and executing {@code ProgramGenerator} programs.
+ *
+ * Build with {@code mvn -Pbench package}, then run
+ * {@code java -jar target/benchmarks.jar PipelineBenchmark -prof gc} to get
+ * allocation rates as well. Narrow with e.g. {@code -p shape=COUNTER_LOOP -p size=1000},
+ * and compare engines with {@code -p engine=tree,vm,jit,closure}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+    @Param({"EXPRESSION_CHAIN", "NESTED_IF", "COUNTER_LOOP", "VARIABLES", "PRINTS"})
+    public String shape;
+
+    @Param({"100", "10000"})
+    public int size;
+
+    @Param({"tree"})
+    public String engine;
+
+    private Pipeline pipeline;
+
+    @Setup
+    public void setup() {
+        pipeline = Pipeline.create();
+        pipeline.load(shape, size, engine);
+    }
+
+    @Benchmark
+    public Object lex() {
+        return pipeline.lex();
+    }
+
+    @Benchmark
+    public Object parse() {
+        return pipeline.parse();
+    }
+
+    @Benchmark
+    public Object execute() {
+        return pipeline.execute();
+    }
+}
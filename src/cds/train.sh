@@ -0,0 +1,37 @@
+#!/bin/sh
+# Builds an AppCDS archive for JAR at ARCHIVE (run by `mvn -Pcds package`).
+#
+# Each training run below records the classes it loads; the merged list is
+# dumped into one static archive, so the classes of every engine and of batch,
+# cache and --stream runs are mapped from it at startup instead of being
+# loaded from the jar. Swing and AWT are never loaded here (see Launcher).
+#
+# The JVM only uses the archive with the same jar (path, size and time), so
+# rebuild it whenever the jar changes.
+set -e
+[ $# -eq 2 ] || { echo "usage: train.sh JAR ARCHIVE" >&2; exit 2; }
+jar=$1
+archive=$2
+training=$(dirname "$0")/training
+work=$(mktemp -d)
+trap 'rm -rf "$work"' EXIT
+
+run=0
+train() {
+    run=$((run + 1))
+    java -XX:DumpLoadedClassList="$work/$run.classlist" -cp "$jar" Launcher "$@" > /dev/null 2>&1
+}
+
+train example.emj
+for engine in tree vm jit closure; do
+    train --engine=$engine "$training"
+done
+train --stream "$training/loops.emj"
+train --cache-dir="$work/cache" "$training/functions.emj"
+train --cache-dir="$work/cache" "$training/functions.emj"
+
+# Merge, keeping the first of each line in order
+awk '!seen[$0]++' "$work"/*.classlist > "$work/all.classlist"
+java -Xshare:dump -XX:SharedClassListFile="$work/all.classlist" -XX:SharedArchiveFile="$archive" -cp "$jar" > "$work/dump.log" \
+    || { cat "$work/dump.log" >&2; exit 1; }
+echo "Wrote $archive ($(grep -vc '^[#@]' "$work/all.classlist") classes)"
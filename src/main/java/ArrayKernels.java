@@ -0,0 +1,49 @@
+/**
+ * Bulk arithmetic and reductions behind array expressions.
+ *
+ * {@link #get()} returns {@code VectorKernels}, built on the incubating Vector
+ * API, when the JVM was started with {@code --add-modules jdk.incubator.vector}
+ * and otherwise {@link ScalarKernels}. Both give bit-identical results:
+ * element-wise operations are exact per element, and {@link #sum} adds in
+ * {@link #SUM_LANES} interleaved partial sums that are combined in lane order.
+ */
+public interface ArrayKernels {
+    int SUM_LANES = 4;
+
+    /** {@code left[i] op right[i]}; the arrays have the same length. */
+    double[] apply(Token.Type op, double[] left, double[] right);
+
+    double[] apply(Token.Type op, double[] left, double right);
+
+    double[] apply(Token.Type op, double left, double[] right);
+
+    double sum(double[] values);
+
+    /** Smallest element by {@link Math#min}; {@code values} is not empty. */
+    double min(double[] values);
+
+    double max(double[] values);
+
+    static ArrayKernels get() {
+        return Holder.INSTANCE;
+    }
+
+    final class Holder {
+        static final ArrayKernels INSTANCE = load();
+
+        private Holder() {
+        }
+
+        private static ArrayKernels load() {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+                try {
+                    // Loaded by name so this class never links against the incubator module
+                    return (ArrayKernels) Class.forName("VectorKernels").getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    // fall through to the scalar kernels
+                }
+            }
+            return new ScalarKernels();
+        }
+    }
+}
@@ -1,26 +1,141 @@
+import java.util.ArrayList;
 import java.util.List;
 
 public class Ast {
-    public interface Stmt {}
-    public interface Expr {}
+    /** Source position of the node's token (the operator for {@link Binary}); 0 if the node has none. */
+    public abstract static class Node {
+        public int line;
+        public int column;
+        public Node original; // set by copy: the parsed node this one was copied from, for the Profiler
+    }
+
+    public abstract static class Stmt extends Node {
+        // set by Resolver on top-level statements: slots holding integers until now and decimals from this one on,
+        // whose values an engine moves over before running it; null if none
+        public int[] widen;
+    }
+    public abstract static class Expr extends Node {
+        public boolean array; // set by Resolver: evaluates to a double[] rather than a number
+        public boolean integer; // set by Resolver: always a whole number, evaluated on long
+    }
+
+    /** Sets the position of {@code node} and returns it. */
+    public static <T extends Node> T at(T node, int line, int column) {
+        node.line = line;
+        node.column = column;
+        return node;
+    }
+
+    /** Gives {@code node} the position of the node it replaces. */
+    public static <T extends Node> T at(T node, Node origin) {
+        return at(node, origin.line, origin.column);
+    }
+
+    /** A copy of {@code stmt} and everything in it, with positions but none of the fields {@link Resolver} sets. */
+    public static Stmt copy(Stmt stmt) {
+        Stmt copy;
+        if (stmt instanceof VarAssign s) {
+            copy = new VarAssign(s.name, copy(s.value));
+        } else if (stmt instanceof Print s) {
+            copy = new Print(copy(s.value));
+        } else if (stmt instanceof IndexAssign s) {
+            copy = new IndexAssign((Variable) copy(s.target), copy(s.index), copy(s.value));
+        } else if (stmt instanceof Block b) {
+            List<Stmt> statements = new ArrayList<>(b.statements.size());
+            for (Stmt inner : b.statements) statements.add(copy(inner));
+            copy = new Block(statements);
+        } else if (stmt instanceof If i) {
+            copy = new If(copy(i.condition), copy(i.thenBranch), i.elseBranch == null ? null : copy(i.elseBranch));
+        } else if (stmt instanceof While w) {
+            copy = new While(copy(w.condition), copy(w.body));
+        } else if (stmt instanceof Parallel p) {
+            List<Variable> reductions = new ArrayList<>(p.reductions.size());
+            for (Variable r : p.reductions) reductions.add((Variable) copy(r));
+            copy = new Parallel(p.name, copy(p.start), copy(p.end), reductions, p.operators, copy(p.body));
+        } else if (stmt instanceof Function f) {
+            copy = new Function(f.name, f.params, copy(f.body), f.memo);
+        } else if (stmt instanceof Send s) {
+            copy = new Send(copy(s.channel), copy(s.value));
+        } else if (stmt instanceof Open o) {
+            copy = new Open(o.name, o.path);
+        } else if (stmt instanceof Return r) {
+            copy = new Return(copy(r.value));
+        } else {
+            throw new RuntimeException("Unknown statement type: " + stmt.getClass());
+        }
+        return copied(copy, stmt);
+    }
+
+    public static Expr copy(Expr expr) {
+        Expr copy;
+        if (expr instanceof Binary b) {
+            copy = new Binary(copy(b.left), b.operator, copy(b.right));
+        } else if (expr instanceof Variable v) {
+            copy = new Variable(v.name);
+        } else if (expr instanceof NumberLiteral n) {
+            copy = new NumberLiteral(n.value);
+        } else if (expr instanceof ArrayLiteral a) {
+            List<Expr> elements = new ArrayList<>(a.elements.size());
+            for (Expr element : a.elements) elements.add(copy(element));
+            copy = new ArrayLiteral(elements);
+        } else if (expr instanceof ArrayFill f) {
+            copy = new ArrayFill(copy(f.value), copy(f.count));
+        } else if (expr instanceof Index i) {
+            copy = new Index(copy(i.array), copy(i.index));
+        } else if (expr instanceof Call c) {
+            List<Expr> args = new ArrayList<>(c.args.size());
+            for (Expr arg : c.args) args.add(copy(arg));
+            copy = new Call(c.name, args);
+        } else if (expr instanceof Spawn s) {
+            copy = new Spawn((Call) copy(s.call));
+        } else if (expr instanceof Await a) {
+            copy = new Await(copy(a.task));
+        } else if (expr instanceof NewChannel c) {
+            copy = new NewChannel(copy(c.capacity));
+        } else if (expr instanceof Receive r) {
+            copy = new Receive(copy(r.channel));
+        } else if (expr instanceof Reduction r) {
+            copy = new Reduction(r.operator, copy(r.operand));
+        } else {
+            throw new RuntimeException("Unknown expression type: " + expr.getClass());
+        }
+        return copied(copy, expr);
+    }
+
+    private static <T extends Node> T copied(T copy, Node from) {
+        copy.original = from.original != null ? from.original : from;
+        return at(copy, from);
+    }
 
-    public static class VarAssign implements Stmt {
+    public static class VarAssign extends Stmt {
         public final String name;
         public final Expr value;
+        public int slot = -1; // assigned by Resolver
+        public boolean integer; // set by Resolver: the variable holds a long
         public VarAssign(String name, Expr value) { this.name = name; this.value = value; }
     }
 
-    public static class Print implements Stmt {
+    public static class Print extends Stmt {
         public final Expr value;
         public Print(Expr value) { this.value = value; }
     }
 
-    public static class Block implements Stmt {
+    /** {@code 📦 name[index] == value}: stores one element of an array variable. */
+    public static class IndexAssign extends Stmt {
+        public final Variable target;
+        public final Expr index;
+        public final Expr value;
+        public IndexAssign(Variable target, Expr index, Expr value) {
+            this.target = target; this.index = index; this.value = value;
+        }
+    }
+
+    public static class Block extends Stmt {
         public final List<Stmt> statements;
         public Block(List<Stmt> statements) { this.statements = statements; }
     }
 
-    public static class If implements Stmt {
+    public static class If extends Stmt {
         public final Expr condition;
         public final Stmt thenBranch;
         public final Stmt elseBranch; // may be null
@@ -31,13 +146,74 @@ public class Ast {
         }
     }
 
-    public static class While implements Stmt {
+    public static class While extends Stmt {
         public final Expr condition;
         public final Stmt body;
         public While(Expr condition, Stmt body) { this.condition = condition; this.body = body; }
     }
 
-    public static class Binary implements Expr {
+    /**
+     * {@code 🔀 [➕ total] i == start, end { body }}: runs the body for each
+     * integer {@code i} in {@code [start, end)}, split across threads. Each
+     * reduction variable is combined with its operator ({@code PLUS} or
+     * {@code STAR}) at the end.
+     */
+    public static class Parallel extends Stmt {
+        public final String name;
+        public final Expr start;
+        public final Expr end;
+        public final List<Variable> reductions;
+        public final List<Token.Type> operators; // one per reduction
+        public final Stmt body;
+        public int slot = -1; // assigned by Resolver
+        public Parallel(String name, Expr start, Expr end, List<Variable> reductions, List<Token.Type> operators, Stmt body) {
+            this.name = name; this.start = start; this.end = end;
+            this.reductions = reductions; this.operators = operators; this.body = body;
+        }
+    }
+
+    /**
+     * {@code 🧩 name(a, b) { body }}, or {@code 🧠 🧩 ...} to memoize it. Its
+     * parameters and variables live in its own frame, numbered from 0 with the
+     * parameters first.
+     */
+    public static class Function extends Stmt {
+        public final String name;
+        public final List<String> params;
+        public final Stmt body;
+        public final boolean memo;
+        public int index = -1; // set by Resolver: position among the versions of the program's functions
+        public int frameSize; // set by Resolver: parameters and variables
+        public boolean[] integerParams; // set by Resolver
+        public boolean integer; // set by Resolver: returns whole numbers
+        public Function(String name, List<String> params, Stmt body, boolean memo) {
+            this.name = name; this.params = params; this.body = body; this.memo = memo;
+        }
+    }
+
+    /** {@code 📤 channel, value}: waits for room in the channel, then adds the value. */
+    public static class Send extends Stmt {
+        public final Expr channel;
+        public final Expr value;
+        public Send(Expr channel, Expr value) { this.channel = channel; this.value = value; }
+    }
+
+    /** {@code 📂 name == "file"}: maps a file of numbers for {@link Reduction}s and {@link Index}es to read. */
+    public static class Open extends Stmt {
+        public final String name;
+        public final String path;
+        public int index = -1; // set by Resolver: position among the program's 📂 inputs
+        public Open(String name, String path) { this.name = name; this.path = path; }
+    }
+
+    /** {@code ↩️ value}, only inside a function. */
+    public static class Return extends Stmt {
+        public final Expr value;
+        public boolean tail; // set by Resolver: value is a call that can reuse this frame
+        public Return(Expr value) { this.value = value; }
+    }
+
+    public static class Binary extends Expr {
         public final Expr left;
         public final Token.Type operator;
         public final Expr right;
@@ -46,13 +222,76 @@ public class Ast {
         }
     }
 
-    public static class Variable implements Expr {
+    public static class Variable extends Expr {
         public final String name;
+        public int slot = -1; // assigned by Resolver
+        public boolean checked; // read may happen before any assignment
         public Variable(String name) { this.name = name; }
     }
 
-    public static class NumberLiteral implements Expr {
+    public static class NumberLiteral extends Expr {
         public final double value;
         public NumberLiteral(double value) { this.value = value; }
     }
+
+    /** {@code [a, b, c]} */
+    public static class ArrayLiteral extends Expr {
+        public final List<Expr> elements;
+        public ArrayLiteral(List<Expr> elements) { this.elements = elements; }
+    }
+
+    /** {@code [value ; count]}: {@code count} copies of {@code value}. */
+    public static class ArrayFill extends Expr {
+        public final Expr value;
+        public final Expr count;
+        public ArrayFill(Expr value, Expr count) { this.value = value; this.count = count; }
+    }
+
+    /** {@code array[index]} */
+    public static class Index extends Expr {
+        public final Expr array;
+        public final Expr index;
+        public int file = -1; // set by Resolver: the 📂 input it reads instead of an array
+        public Index(Expr array, Expr index) { this.array = array; this.index = index; }
+    }
+
+    /** {@code name(a, b)} */
+    public static class Call extends Expr {
+        public final String name;
+        public final List<Expr> args;
+        public Function function; // set by Resolver
+        public Call(String name, List<Expr> args) { this.name = name; this.args = args; }
+    }
+
+    /** {@code 🚀 name(a, b)}: starts the call as a task and gives its handle. */
+    public static class Spawn extends Expr {
+        public final Call call;
+        public Spawn(Call call) { this.call = call; }
+    }
+
+    /** {@code ⏳ task}: waits for a task and gives its result. */
+    public static class Await extends Expr {
+        public final Expr task;
+        public Await(Expr task) { this.task = task; }
+    }
+
+    /** {@code 📡 capacity}: a new channel holding up to that many numbers; gives its handle. */
+    public static class NewChannel extends Expr {
+        public final Expr capacity;
+        public NewChannel(Expr capacity) { this.capacity = capacity; }
+    }
+
+    /** {@code 📥 channel}: waits for a number in the channel and takes it. */
+    public static class Receive extends Expr {
+        public final Expr channel;
+        public Receive(Expr channel) { this.channel = channel; }
+    }
+
+    /** {@code 📏}, {@code 🧮}, {@code 🔻}, {@code 🔺} or {@code 📊} applied to an array or a 📂 input. */
+    public static class Reduction extends Expr {
+        public final Token.Type operator; // LENGTH, SUM, MIN, MAX or MEAN
+        public final Expr operand;
+        public int file = -1; // set by Resolver: the 📂 input it reads instead of an array
+        public Reduction(Token.Type operator, Expr operand) { this.operator = operator; this.operand = operand; }
+    }
 }
@@ -0,0 +1,390 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary form of a parsed program, used by {@link ProgramCache}.
+ *
+ * Each node is a one-byte tag, its source line as a delta from the previous node's line and its
+ * column, then its fields. Integers are varints (signed ones zig-zag encoded), so a typical node
+ * header is three bytes. Variable names are written once and referred to by index afterwards. Bump {@link #FORMAT_VERSION}
+ * whenever the encoding or the {@code Ast}/{@code Token.Type} shapes change.
+ */
+public class AstCodec {
+    public static final int FORMAT_VERSION = 9;
+
+    private static final int VAR_ASSIGN = 1;
+    private static final int PRINT = 2;
+    private static final int BLOCK = 3;
+    private static final int IF = 4;
+    private static final int WHILE = 5;
+    private static final int INDEX_ASSIGN = 6;
+    private static final int PARALLEL = 7;
+    private static final int FUNCTION = 8;
+    private static final int RETURN = 9;
+    private static final int SEND = 10;
+    private static final int OPEN = 11;
+
+    private static final int NUMBER = 1;
+    private static final int VARIABLE = 2;
+    private static final int BINARY = 3;
+    private static final int ARRAY_LITERAL = 4;
+    private static final int ARRAY_FILL = 5;
+    private static final int INDEX = 6;
+    private static final int REDUCTION = 7;
+    private static final int CALL = 8;
+    private static final int SPAWN = 9;
+    private static final int AWAIT = 10;
+    private static final int NEW_CHANNEL = 11;
+    private static final int RECEIVE = 12;
+
+    private static final Token.Type[] OPERATORS = Token.Type.values();
+
+    public static void write(List<Ast.Stmt> program, DataOutputStream out) throws IOException {
+        new Writer(out).statements(program);
+    }
+
+    /** Decodes a program; throws {@link IOException} on malformed input. */
+    public static List<Ast.Stmt> read(DataInputStream in) throws IOException {
+        return new Reader(in).statements();
+    }
+
+    private static class Writer {
+        private final DataOutputStream out;
+        private final Map<String, Integer> names = new HashMap<>();
+        private int line;
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void statements(List<Ast.Stmt> statements) throws IOException {
+            varint(statements.size());
+            for (Ast.Stmt stmt : statements) stmt(stmt);
+        }
+
+        void stmt(Ast.Stmt stmt) throws IOException {
+            if (stmt instanceof Ast.VarAssign s) {
+                tag(VAR_ASSIGN, s);
+                name(s.name);
+                expr(s.value);
+            } else if (stmt instanceof Ast.Print s) {
+                tag(PRINT, s);
+                expr(s.value);
+            } else if (stmt instanceof Ast.IndexAssign s) {
+                tag(INDEX_ASSIGN, s);
+                expr(s.target);
+                expr(s.index);
+                expr(s.value);
+            } else if (stmt instanceof Ast.Block b) {
+                tag(BLOCK, b);
+                statements(b.statements);
+            } else if (stmt instanceof Ast.If i) {
+                tag(IF, i);
+                expr(i.condition);
+                stmt(i.thenBranch);
+                out.writeBoolean(i.elseBranch != null);
+                if (i.elseBranch != null) stmt(i.elseBranch);
+            } else if (stmt instanceof Ast.While w) {
+                tag(WHILE, w);
+                expr(w.condition);
+                stmt(w.body);
+            } else if (stmt instanceof Ast.Parallel p) {
+                tag(PARALLEL, p);
+                name(p.name);
+                expr(p.start);
+                expr(p.end);
+                varint(p.reductions.size());
+                for (int i = 0; i < p.reductions.size(); i++) {
+                    out.writeByte(p.operators.get(i).ordinal());
+                    expr(p.reductions.get(i));
+                }
+                stmt(p.body);
+            } else if (stmt instanceof Ast.Function f) {
+                tag(FUNCTION, f);
+                name(f.name);
+                out.writeBoolean(f.memo);
+                varint(f.params.size());
+                for (String param : f.params) name(param);
+                stmt(f.body);
+            } else if (stmt instanceof Ast.Return r) {
+                tag(RETURN, r);
+                expr(r.value);
+            } else if (stmt instanceof Ast.Send s) {
+                tag(SEND, s);
+                expr(s.channel);
+                expr(s.value);
+            } else if (stmt instanceof Ast.Open o) {
+                tag(OPEN, o);
+                name(o.name);
+                out.writeUTF(o.path);
+            } else {
+                throw new RuntimeException("Unknown statement type: " + stmt.getClass());
+            }
+        }
+
+        void expr(Ast.Expr expr) throws IOException {
+            if (expr instanceof Ast.NumberLiteral n) {
+                tag(NUMBER, n);
+                out.writeDouble(n.value);
+            } else if (expr instanceof Ast.Variable v) {
+                tag(VARIABLE, v);
+                name(v.name);
+            } else if (expr instanceof Ast.Binary b) {
+                tag(BINARY, b);
+                out.writeByte(b.operator.ordinal());
+                expr(b.left);
+                expr(b.right);
+            } else if (expr instanceof Ast.ArrayLiteral a) {
+                tag(ARRAY_LITERAL, a);
+                varint(a.elements.size());
+                for (Ast.Expr element : a.elements) expr(element);
+            } else if (expr instanceof Ast.ArrayFill f) {
+                tag(ARRAY_FILL, f);
+                expr(f.value);
+                expr(f.count);
+            } else if (expr instanceof Ast.Index i) {
+                tag(INDEX, i);
+                expr(i.array);
+                expr(i.index);
+            } else if (expr instanceof Ast.Reduction r) {
+                tag(REDUCTION, r);
+                out.writeByte(r.operator.ordinal());
+                expr(r.operand);
+            } else if (expr instanceof Ast.Call c) {
+                tag(CALL, c);
+                name(c.name);
+                varint(c.args.size());
+                for (Ast.Expr arg : c.args) expr(arg);
+            } else if (expr instanceof Ast.Spawn s) {
+                tag(SPAWN, s);
+                expr(s.call);
+            } else if (expr instanceof Ast.Await a) {
+                tag(AWAIT, a);
+                expr(a.task);
+            } else if (expr instanceof Ast.NewChannel c) {
+                tag(NEW_CHANNEL, c);
+                expr(c.capacity);
+            } else if (expr instanceof Ast.Receive r) {
+                tag(RECEIVE, r);
+                expr(r.channel);
+            } else {
+                throw new RuntimeException("Unknown expression type: " + expr.getClass());
+            }
+        }
+
+        void tag(int tag, Ast.Node node) throws IOException {
+            out.writeByte(tag);
+            signed(node.line - line);
+            signed(node.column);
+            line = node.line;
+        }
+
+        // Seven bits per byte, low groups first; the high bit marks a following byte
+        void varint(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        void signed(int value) throws IOException {
+            varint((value << 1) ^ (value >> 31));
+        }
+
+        // First use writes the index followed by the text; later uses write only the index
+        void name(String name) throws IOException {
+            Integer index = names.get(name);
+            if (index != null) {
+                varint(index);
+                return;
+            }
+            varint(names.size());
+            out.writeUTF(name);
+            names.put(name, names.size());
+        }
+    }
+
+    private static class Reader {
+        private final DataInputStream in;
+        private final List<String> names = new ArrayList<>();
+        private int line;
+
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        List<Ast.Stmt> statements() throws IOException {
+            int count = varint();
+            if (count < 0) throw new IOException("Negative statement count");
+            List<Ast.Stmt> statements = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) statements.add(stmt());
+            return statements;
+        }
+
+        Ast.Stmt stmt() throws IOException {
+            int tag = in.readUnsignedByte();
+            line += signed();
+            int nodeLine = line, column = signed();
+            return Ast.at(stmt(tag), nodeLine, column);
+        }
+
+        Ast.Stmt stmt(int tag) throws IOException {
+            switch (tag) {
+                case VAR_ASSIGN: {
+                    String name = name();
+                    return new Ast.VarAssign(name, expr());
+                }
+                case PRINT:
+                    return new Ast.Print(expr());
+                case INDEX_ASSIGN: {
+                    if (!(expr() instanceof Ast.Variable target)) throw new IOException("Index assignment to a non-variable");
+                    Ast.Expr index = expr();
+                    return new Ast.IndexAssign(target, index, expr());
+                }
+                case BLOCK:
+                    return new Ast.Block(statements());
+                case IF: {
+                    Ast.Expr condition = expr();
+                    Ast.Stmt thenBranch = stmt();
+                    Ast.Stmt elseBranch = in.readBoolean() ? stmt() : null;
+                    return new Ast.If(condition, thenBranch, elseBranch);
+                }
+                case WHILE: {
+                    Ast.Expr condition = expr();
+                    return new Ast.While(condition, stmt());
+                }
+                case PARALLEL: {
+                    String name = name();
+                    Ast.Expr start = expr();
+                    Ast.Expr end = expr();
+                    int count = varint();
+                    if (count < 0) throw new IOException("Negative reduction count");
+                    List<Ast.Variable> reductions = new ArrayList<>();
+                    List<Token.Type> operators = new ArrayList<>();
+                    for (int i = 0; i < count; i++) {
+                        int operator = in.readUnsignedByte();
+                        if (operator != Token.Type.PLUS.ordinal() && operator != Token.Type.STAR.ordinal()) {
+                            throw new IOException("Unknown reduction operator: " + operator);
+                        }
+                        operators.add(OPERATORS[operator]);
+                        if (!(expr() instanceof Ast.Variable reduction)) throw new IOException("Reduction of a non-variable");
+                        reductions.add(reduction);
+                    }
+                    return new Ast.Parallel(name, start, end, reductions, operators, stmt());
+                }
+                case FUNCTION: {
+                    String name = name();
+                    boolean memo = in.readBoolean();
+                    int count = varint();
+                    if (count < 0) throw new IOException("Negative parameter count");
+                    List<String> params = new ArrayList<>(Math.min(count, 1024));
+                    for (int i = 0; i < count; i++) params.add(name());
+                    return new Ast.Function(name, params, stmt(), memo);
+                }
+                case RETURN:
+                    return new Ast.Return(expr());
+                case SEND: {
+                    Ast.Expr channel = expr();
+                    return new Ast.Send(channel, expr());
+                }
+                case OPEN: {
+                    String name = name();
+                    return new Ast.Open(name, in.readUTF());
+                }
+                default:
+                    throw new IOException("Unknown statement tag: " + tag);
+            }
+        }
+
+        Ast.Expr expr() throws IOException {
+            int tag = in.readUnsignedByte();
+            line += signed();
+            int nodeLine = line, column = signed();
+            return Ast.at(expr(tag), nodeLine, column);
+        }
+
+        Ast.Expr expr(int tag) throws IOException {
+            switch (tag) {
+                case NUMBER:
+                    return new Ast.NumberLiteral(in.readDouble());
+                case VARIABLE:
+                    return new Ast.Variable(name());
+                case BINARY: {
+                    int operator = in.readUnsignedByte();
+                    if (operator >= OPERATORS.length) throw new IOException("Unknown operator: " + operator);
+                    Ast.Expr left = expr();
+                    return new Ast.Binary(left, OPERATORS[operator], expr());
+                }
+                case ARRAY_LITERAL: {
+                    int count = varint();
+                    if (count < 0) throw new IOException("Negative element count");
+                    List<Ast.Expr> elements = new ArrayList<>(Math.min(count, 1024));
+                    for (int i = 0; i < count; i++) elements.add(expr());
+                    return new Ast.ArrayLiteral(elements);
+                }
+                case ARRAY_FILL: {
+                    Ast.Expr value = expr();
+                    return new Ast.ArrayFill(value, expr());
+                }
+                case INDEX: {
+                    Ast.Expr array = expr();
+                    return new Ast.Index(array, expr());
+                }
+                case REDUCTION: {
+                    int operator = in.readUnsignedByte();
+                    if (operator >= OPERATORS.length) throw new IOException("Unknown operator: " + operator);
+                    return new Ast.Reduction(OPERATORS[operator], expr());
+                }
+                case CALL: {
+                    String name = name();
+                    int count = varint();
+                    if (count < 0) throw new IOException("Negative argument count");
+                    List<Ast.Expr> args = new ArrayList<>(Math.min(count, 1024));
+                    for (int i = 0; i < count; i++) args.add(expr());
+                    return new Ast.Call(name, args);
+                }
+                case SPAWN:
+                    if (!(expr() instanceof Ast.Call call)) throw new IOException("🚀 of a non-call");
+                    return new Ast.Spawn(call);
+                case AWAIT:
+                    return new Ast.Await(expr());
+                case NEW_CHANNEL:
+                    return new Ast.NewChannel(expr());
+                case RECEIVE:
+                    return new Ast.Receive(expr());
+                default:
+                    throw new IOException("Unknown expression tag: " + tag);
+            }
+        }
+
+        int varint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Varint longer than 5 bytes");
+        }
+
+        int signed() throws IOException {
+            int value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String name() throws IOException {
+            int index = varint();
+            if (index >= 0 && index < names.size()) return names.get(index);
+            if (index != names.size()) throw new IOException("Bad name index: " + index);
+            String name = in.readUTF();
+            names.add(name);
+            return name;
+        }
+    }
+}
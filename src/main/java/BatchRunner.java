@@ -0,0 +1,153 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Runs many scripts on a work-stealing pool.
+ *
+ * Every script is lexed, parsed, resolved and executed by one task with its own
+ * engine instance and an in-memory {@link StreamOutput}. The main thread joins
+ * the tasks in input order and copies each script's output to stdout under a
+ * {@code ==> path <==} header, so output is deterministic whatever the
+ * scheduling. A per-script timing table and totals go to stderr at the end.
+ */
+public class BatchRunner {
+    private final Main.Options options;
+    private final int jobs;
+
+    public BatchRunner(Main.Options options, int jobs) {
+        this.options = options;
+        this.jobs = jobs;
+    }
+
+    /** True if {@code target} names a directory, a glob pattern, or an {@code @manifest}. */
+    public static boolean isBatch(String target) {
+        return target.startsWith("@") || isGlob(target) || Files.isDirectory(Path.of(target));
+    }
+
+    /**
+     * Expands a directory (every {@code .emj} below it), a glob such as
+     * {@code scripts/**.emj}, or {@code @manifest} (one path per line, relative to
+     * the manifest, {@code #} comments) into scripts. Directories and globs are sorted.
+     */
+    public static List<Path> scripts(String target) throws IOException {
+        if (target.startsWith("@")) {
+            Path manifest = Path.of(target.substring(1));
+            Path base = manifest.toAbsolutePath().getParent();
+            List<Path> scripts = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(manifest)) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    line = line.strip();
+                    if (line.isEmpty() || line.startsWith("#")) continue;
+                    scripts.add(base.resolve(line));
+                }
+            }
+            return scripts;
+        }
+        if (isGlob(target)) {
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + target);
+            return walk(Path.of(globBase(target)), matcher::matches);
+        }
+        return walk(Path.of(target), path -> path.toString().endsWith(".emj"));
+    }
+
+    // A path that exists is taken literally even if its name contains a wildcard
+    private static boolean isGlob(String target) {
+        if (Files.exists(Path.of(target))) return false;
+        for (int i = 0; i < target.length(); i++) {
+            if ("*?[{".indexOf(target.charAt(i)) >= 0) return true;
+        }
+        return false;
+    }
+
+    // Directory part of the pattern before the first wildcard
+    private static String globBase(String pattern) {
+        int wildcard = 0;
+        while ("*?[{".indexOf(pattern.charAt(wildcard)) < 0) wildcard++;
+        int slash = pattern.lastIndexOf('/', wildcard);
+        return slash < 0 ? "" : pattern.substring(0, slash + 1);
+    }
+
+    private static List<Path> walk(Path root, Predicate<Path> filter) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile).filter(filter).sorted().toList();
+        }
+    }
+
+    private static class Result {
+        final Path script;
+        final byte[] output;
+        final Throwable failure;
+        final long nanos;
+
+        Result(Path script, byte[] output, Throwable failure, long nanos) {
+            this.script = script;
+            this.output = output;
+            this.failure = failure;
+            this.nanos = nanos;
+        }
+    }
+
+    /** Runs every script and returns the number that failed. */
+    public int run(List<Path> scripts, OutputStream stdout, PrintStream stderr) throws IOException {
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(jobs);
+        List<Result> results = new ArrayList<>(scripts.size());
+        try {
+            List<ForkJoinTask<Result>> tasks = new ArrayList<>(scripts.size());
+            for (Path script : scripts) tasks.add(pool.submit(() -> runOne(script)));
+            for (ForkJoinTask<Result> task : tasks) {
+                Result result = task.join();
+                stdout.write(("==> " + result.script + " <==" + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+                stdout.write(result.output);
+                results.add(result);
+            }
+            stdout.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+        long wall = System.nanoTime() - start;
+
+        int failures = 0;
+        stderr.printf("%10s  %-6s  %s%n", "ms", "status", "script");
+        for (Result result : results) {
+            String status = result.failure == null ? "ok" : "FAILED";
+            stderr.printf("%10.2f  %-6s  %s", result.nanos / 1e6, status, result.script);
+            if (result.failure != null) {
+                failures++;
+                stderr.print(": " + result.failure.getClass().getSimpleName() + " - " + result.failure.getMessage());
+            }
+            stderr.println();
+        }
+        stderr.printf("%d scripts, %d failed, %.1f ms wall, %.1f scripts/s on %d workers%n",
+                results.size(), failures, wall / 1e6, results.size() / (wall / 1e9), jobs);
+        return failures;
+    }
+
+    private Result runOne(Path script) {
+        long start = System.nanoTime();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Output out = new StreamOutput(bytes, 8192, false);
+        Throwable failure = null;
+        try {
+            Main.run(Main.load(script, options), options.engine, out);
+        } catch (Throwable e) {
+            failure = e;
+        }
+        out.flush();
+        return new Result(script, bytes.toByteArray(), failure, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * In-memory {@link Output}, used by the Studio console. Printing and
+ * {@link #drain()} may happen on different threads, so a running script's
+ * output can be streamed out while it executes.
+ */
+public class BufferOutput implements Output {
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final StringBuilder text = new StringBuilder();
+    private final byte[] entry = new byte[StreamOutput.MAX_ENTRY];
+
+    @Override
+    public synchronized void print(double value) {
+        append(StreamOutput.format(value, entry, 0));
+        text.append(NEWLINE);
+    }
+
+    @Override
+    public synchronized void print(long value) {
+        append(StreamOutput.format(value, entry, 0));
+        text.append(NEWLINE);
+    }
+
+    @Override
+    public synchronized void print(double[] values) {
+        text.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) text.append(", ");
+            append(StreamOutput.format(values[i], entry, 0));
+        }
+        text.append(']').append(NEWLINE);
+    }
+
+    // The first length bytes of entry, which StreamOutput.format filled with ASCII
+    private void append(int length) {
+        for (int i = 0; i < length; i++) text.append((char) entry[i]);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    /** Returns the text printed since the last drain and clears it. */
+    public synchronized String drain() {
+        String result = text.toString();
+        text.setLength(0);
+        return result;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return text.toString();
+    }
+}
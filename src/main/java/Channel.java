@@ -0,0 +1,78 @@
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded first-in first-out queue of numbers between tasks ({@code 📡}).
+ *
+ * Values are kept unboxed in a ring buffer. Waiting uses a
+ * {@link ReentrantLock} rather than {@code synchronized}, so a virtual thread
+ * blocked here releases its carrier thread. Waits end with
+ * {@link CancellationException} once the channel is cancelled or the waiting
+ * thread is interrupted.
+ */
+public class Channel {
+    private final double[] values;
+    private int head; // next value to take
+    private int count;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private boolean cancelled; // guarded by lock
+
+    public Channel(int capacity) {
+        values = new double[capacity];
+    }
+
+    /** Waits until there is room, then adds {@code value}. */
+    public void send(double value) {
+        lock.lock();
+        try {
+            while (count == values.length) await(notFull);
+            int tail = head + count;
+            values[tail < values.length ? tail : tail - values.length] = value;
+            count++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Waits until a value is there, then takes the oldest. */
+    public double receive() {
+        lock.lock();
+        try {
+            while (count == 0) await(notEmpty);
+            double value = values[head];
+            head = head + 1 == values.length ? 0 : head + 1;
+            count--;
+            notFull.signal();
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Wakes every send and receive waiting on this channel, and any later one that would wait, with an exception. */
+    public void cancel() {
+        lock.lock();
+        try {
+            cancelled = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the lock held
+    private void await(Condition condition) {
+        if (cancelled) throw new CancellationException("Execution cancelled");
+        try {
+            condition.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Execution cancelled");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Compiled form of a program for the {@link VM}: a flat array of int opcodes
+ * with their operands inlined, plus a pool of double constants. The
+ * {@code _INTEGER} opcodes work on longs, and comparisons always give a long.
+ */
+public class Chunk {
+    // Opcodes. Operands follow the opcode in the code array.
+    public static final int CONST = 0;         // constant index
+    public static final int LOAD = 1;          // slot
+    public static final int LOAD_CHECKED = 2;  // slot
+    public static final int STORE = 3;         // slot
+    public static final int ADD = 4;
+    public static final int SUB = 5;
+    public static final int MUL = 6;
+    public static final int DIV = 7;
+    public static final int GREATER = 8;       // compares doubles, gives 1 or 0 as a long
+    public static final int LESS = 9;
+    public static final int EQUAL = 10;
+    public static final int NOT_EQUAL = 11;
+    public static final int PRINT = 12;
+    public static final int JUMP = 13;         // absolute target
+    public static final int JUMP_IF_ZERO = 14; // absolute target
+    public static final int HALT = 15;
+    public static final int PRINT_INTEGER = 16;
+    public static final int CONST_INTEGER = 17;  // constant index of a whole number
+    public static final int LOAD_INTEGER = 18;   // slot
+    public static final int LOAD_INTEGER_CHECKED = 19; // slot
+    public static final int STORE_INTEGER = 20;  // slot
+    public static final int ADD_INTEGER = 21;    // Interpreter.add, like the other engines
+    public static final int SUB_INTEGER = 22;
+    public static final int MUL_INTEGER = 23;
+    public static final int GREATER_INTEGER = 24;
+    public static final int LESS_INTEGER = 25;
+    public static final int EQUAL_INTEGER = 26;
+    public static final int NOT_EQUAL_INTEGER = 27;
+    public static final int JUMP_IF_ZERO_INTEGER = 28; // absolute target
+    public static final int TO_DOUBLE = 29;      // converts the long on top of the stack
+    public static final int WIDEN = 30;          // slot; its variable holds decimals from here on (Ast.Stmt.widen)
+
+    public final int[] code;
+    public final double[] constants;
+    public final int maxStack;
+    public final String[] slotNames;
+
+    public Chunk(int[] code, double[] constants, int maxStack, String[] slotNames) {
+        this.code = code;
+        this.constants = constants;
+        this.maxStack = maxStack;
+        this.slotNames = slotNames;
+    }
+}
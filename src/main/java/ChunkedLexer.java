@@ -0,0 +1,120 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lexes a {@link Reader} of any length a chunk at a time, for scripts too
+ * large to hold in memory or still being written to a pipe.
+ *
+ * Each chunk is cut after its last newline (or, on a very long line, its last
+ * whitespace, which only a quoted file name can span), and scanned with a {@link StreamLexer};
+ * whatever follows the cut is carried over to the next chunk. A chunk is only
+ * grown for text with no whitespace in it that is longer than the chunk.
+ * Tokens carry lines and columns but no source offsets.
+ */
+public class ChunkedLexer implements Iterator<Token> {
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private char[] buffer = new char[CHUNK_SIZE];
+    private int filled; // chars read into buffer
+    private int cut; // end of the chunk being lexed
+    private boolean eof;
+    private CharBuffer chunk;
+    private StreamLexer lexer;
+    private boolean done;
+
+    private long base; // offset in the input of buffer[0]
+    private int scanned; // chars of the chunk already counted for line numbers
+    private int line = 1;
+    private long lineStart;
+
+    public ChunkedLexer(Reader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !done;
+    }
+
+    @Override
+    public Token next() {
+        if (done) throw new NoSuchElementException();
+        while (true) {
+            if (lexer == null) refill();
+            Token.Type type = lexer.next();
+            if (type == Token.Type.EOF && !eof) {
+                lexer = null;
+                continue;
+            }
+            done = type == Token.Type.EOF;
+            int start = lexer.start();
+            countLines(start);
+            return new Token(type, StreamLexer.lexeme(chunk, type, start, lexer.end()), -1, -1,
+                    line, (int) (base + start - lineStart + 1));
+        }
+    }
+
+    // Drops the lexed chunk, reads until the next one can be cut, and starts lexing it
+    private void refill() {
+        countLines(cut);
+        base += cut;
+        filled -= cut;
+        System.arraycopy(buffer, cut, buffer, 0, filled);
+        scanned = 0;
+        int searched = 0;
+        cut = 0;
+        try {
+            while (!eof) {
+                cut = lastIndexOf('\n', searched);
+                if (cut > 0) break;
+                if (filled == buffer.length) {
+                    cut = lastWhitespace();
+                    if (cut > 0) break;
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                searched = filled;
+                int read = reader.read(buffer, filled, buffer.length - filled);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    filled += read;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (eof) cut = filled;
+        chunk = CharBuffer.wrap(buffer, 0, cut);
+        lexer = new StreamLexer(chunk);
+    }
+
+    // Returns the offset just past the last 'c' at or after 'from', or 0
+    private int lastIndexOf(char c, int from) {
+        for (int i = filled - 1; i >= from; i--) {
+            if (buffer[i] == c) return i + 1;
+        }
+        return 0;
+    }
+
+    private int lastWhitespace() {
+        for (int i = filled - 1; i >= 0; i--) {
+            if (buffer[i] == ' ' || buffer[i] == '\t' || buffer[i] == '\r') return i + 1;
+        }
+        return 0;
+    }
+
+    private void countLines(int offset) {
+        for (; scanned < offset; scanned++) {
+            if (buffer[scanned] == '\n') {
+                line++;
+                lineStart = base + scanned + 1;
+            }
+        }
+    }
+}
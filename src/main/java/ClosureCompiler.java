@@ -0,0 +1,397 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Compiles a resolved program once into a tree of pre-bound lambdas
+ * ({@code --engine=closure}): a {@link DoubleSupplier} per expression, or a
+ * {@link LongSupplier} for integer ones, a {@link BooleanSupplier} per
+ * condition and a {@link Runnable} per statement. Integer arithmetic and
+ * comparisons are the interpreter's ({@link Interpreter#add}).
+ *
+ * Each node is specialized on the shape of its operands while it is built, so
+ * there is no {@code instanceof} or operator {@code switch} left at run time:
+ * literal-only arithmetic is folded, variable/literal operands read the frame
+ * directly, comparisons in conditions produce booleans without a detour
+ * through 1.0/0.0, and single-statement blocks collapse to their statement.
+ * Operand types are fixed by the resolver, so a node never needs to
+ * re-specialize once built.
+ */
+public class ClosureCompiler {
+    private final double[] frame;
+    private final long[] longs;
+    private final boolean[] defined;
+    private final Output out;
+    private final boolean cancellable;
+    private volatile boolean cancelled;
+
+    public ClosureCompiler(int slotCount, Output out) {
+        this(slotCount, out, false);
+    }
+
+    /**
+     * {@code cancellable} compiles loops that check for {@link #cancel} every iteration, which makes small loops
+     * markedly slower.
+     */
+    public ClosureCompiler(int slotCount, Output out, boolean cancellable) {
+        this.frame = new double[slotCount];
+        this.longs = new long[slotCount];
+        this.defined = new boolean[slotCount];
+        this.out = out;
+        this.cancellable = cancellable;
+    }
+
+    /**
+     * Asks the running program to stop; if it was compiled as cancellable, it throws
+     * {@link CancellationException} at the next loop iteration.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** Returns the whole program; running it flushes the output at the end. */
+    public Runnable compile(List<Ast.Stmt> statements) {
+        Runnable program = sequence(statements);
+        return () -> {
+            try {
+                program.run();
+            } finally {
+                out.flush();
+            }
+        };
+    }
+
+    private Runnable stmt(Ast.Stmt stmt) {
+        final double[] frame = this.frame;
+        final boolean[] defined = this.defined;
+        if (stmt instanceof Ast.VarAssign s && s.integer) {
+            final long[] longs = this.longs;
+            int slot = s.slot;
+            LongSupplier value = integer(s.value);
+            return () -> {
+                longs[slot] = value.getAsLong();
+                defined[slot] = true;
+            };
+        }
+        if (stmt instanceof Ast.VarAssign s) {
+            int slot = s.slot;
+            DoubleSupplier value = expr(s.value);
+            return () -> {
+                frame[slot] = value.getAsDouble();
+                defined[slot] = true;
+            };
+        }
+        if (stmt instanceof Ast.Print s) {
+            final Output out = this.out;
+            if (s.value.integer) {
+                LongSupplier value = integer(s.value);
+                return () -> out.print(value.getAsLong());
+            }
+            DoubleSupplier value = expr(s.value);
+            return () -> out.print(value.getAsDouble());
+        }
+        if (stmt instanceof Ast.Block b) {
+            return sequence(b.statements);
+        }
+        if (stmt instanceof Ast.If i) {
+            BooleanSupplier condition = condition(i.condition);
+            Runnable thenBranch = stmt(i.thenBranch);
+            if (i.elseBranch == null) {
+                return () -> {
+                    if (condition.getAsBoolean()) thenBranch.run();
+                };
+            }
+            Runnable elseBranch = stmt(i.elseBranch);
+            return () -> {
+                if (condition.getAsBoolean()) thenBranch.run();
+                else elseBranch.run();
+            };
+        }
+        if (stmt instanceof Ast.While w) {
+            BooleanSupplier condition = condition(w.condition);
+            Runnable body = stmt(w.body);
+            if (!cancellable) {
+                return () -> {
+                    while (condition.getAsBoolean()) body.run();
+                };
+            }
+            return () -> {
+                while (condition.getAsBoolean()) {
+                    body.run();
+                    if (cancelled) throw new CancellationException("Execution cancelled");
+                }
+            };
+        }
+        throw new RuntimeException("Unknown statement type: " + stmt.getClass());
+    }
+
+    private Runnable sequence(List<Ast.Stmt> statements) {
+        List<Runnable> compiled = new ArrayList<>(statements.size());
+        for (Ast.Stmt stmt : statements) {
+            if (stmt.widen != null) compiled.add(widen(stmt.widen));
+            compiled.add(stmt(stmt));
+        }
+        switch (compiled.size()) {
+            case 0:
+                return () -> { };
+            case 1:
+                return compiled.get(0);
+            case 2: {
+                Runnable first = compiled.get(0);
+                Runnable second = compiled.get(1);
+                return () -> {
+                    first.run();
+                    second.run();
+                };
+            }
+            default: {
+                Runnable[] all = compiled.toArray(new Runnable[0]);
+                return () -> {
+                    for (Runnable r : all) r.run();
+                };
+            }
+        }
+    }
+
+    // Moves the values of variables that hold decimals from here on (Ast.Stmt.widen)
+    private Runnable widen(int[] slots) {
+        final double[] frame = this.frame;
+        final long[] longs = this.longs;
+        return () -> {
+            for (int slot : slots) frame[slot] = Interpreter.decimal(longs[slot]);
+        };
+    }
+
+    private BooleanSupplier condition(Ast.Expr expr) {
+        final double[] frame = this.frame;
+        final long[] longs = this.longs;
+        if (expr instanceof Ast.Binary b && isComparison(b.operator) && b.left.integer && b.right.integer) {
+            if (isPlainVariable(b.left) && b.right instanceof Ast.NumberLiteral n) {
+                int slot = ((Ast.Variable) b.left).slot;
+                long k = (long) n.value;
+                // A literal is never NaN, which sorts above every other value, so only > has to rule it out
+                return switch (b.operator) {
+                    case GREATER -> () -> Interpreter.compare(longs[slot], k, -1) > 0;
+                    case LESS -> () -> longs[slot] < k;
+                    case EQUAL_EQUAL -> () -> longs[slot] == k;
+                    default -> () -> longs[slot] != k;
+                };
+            }
+            if (isPlainVariable(b.left) && isPlainVariable(b.right)) {
+                int left = ((Ast.Variable) b.left).slot;
+                int right = ((Ast.Variable) b.right).slot;
+                return switch (b.operator) {
+                    case GREATER -> () -> Interpreter.compare(longs[left], longs[right], -1) > 0;
+                    case LESS -> () -> Interpreter.compare(longs[left], longs[right], 1) < 0;
+                    case EQUAL_EQUAL -> () -> Interpreter.compare(longs[left], longs[right], -1) == 0;
+                    default -> () -> Interpreter.compare(longs[left], longs[right], -1) != 0;
+                };
+            }
+            LongSupplier left = integer(b.left);
+            LongSupplier right = integer(b.right);
+            return switch (b.operator) {
+                case GREATER -> () -> Interpreter.compare(left.getAsLong(), right.getAsLong(), -1) > 0;
+                case LESS -> () -> Interpreter.compare(left.getAsLong(), right.getAsLong(), 1) < 0;
+                case EQUAL_EQUAL -> () -> Interpreter.compare(left.getAsLong(), right.getAsLong(), -1) == 0;
+                default -> () -> Interpreter.compare(left.getAsLong(), right.getAsLong(), -1) != 0;
+            };
+        }
+        if (expr instanceof Ast.Binary b && isComparison(b.operator)) {
+            // slot-vs-literal is the common loop/if shape: read the frame directly
+            if (isPlainDecimal(b.left) && b.right instanceof Ast.NumberLiteral n) {
+                int slot = ((Ast.Variable) b.left).slot;
+                double k = n.value;
+                return switch (b.operator) {
+                    case GREATER -> () -> frame[slot] > k;
+                    case LESS -> () -> frame[slot] < k;
+                    case EQUAL_EQUAL -> () -> frame[slot] == k;
+                    default -> () -> frame[slot] != k;
+                };
+            }
+            if (isPlainDecimal(b.left) && isPlainDecimal(b.right)) {
+                int left = ((Ast.Variable) b.left).slot;
+                int right = ((Ast.Variable) b.right).slot;
+                return switch (b.operator) {
+                    case GREATER -> () -> frame[left] > frame[right];
+                    case LESS -> () -> frame[left] < frame[right];
+                    case EQUAL_EQUAL -> () -> frame[left] == frame[right];
+                    default -> () -> frame[left] != frame[right];
+                };
+            }
+            DoubleSupplier left = expr(b.left);
+            DoubleSupplier right = expr(b.right);
+            return switch (b.operator) {
+                case GREATER -> () -> left.getAsDouble() > right.getAsDouble();
+                case LESS -> () -> left.getAsDouble() < right.getAsDouble();
+                case EQUAL_EQUAL -> () -> left.getAsDouble() == right.getAsDouble();
+                default -> () -> left.getAsDouble() != right.getAsDouble();
+            };
+        }
+        if (expr instanceof Ast.NumberLiteral n) {
+            boolean value = n.value != 0;
+            return () -> value;
+        }
+        if (expr.integer) {
+            LongSupplier value = integer(expr);
+            return () -> value.getAsLong() != 0;
+        }
+        DoubleSupplier value = expr(expr);
+        return () -> value.getAsDouble() != 0;
+    }
+
+    private LongSupplier integer(Ast.Expr expr) {
+        final long[] longs = this.longs;
+        if (expr instanceof Ast.NumberLiteral n) {
+            long value = (long) n.value;
+            return () -> value;
+        }
+        if (expr instanceof Ast.Variable v) {
+            if (v.checked) return new CheckedRead(v.slot, v.name);
+            int slot = v.slot;
+            return () -> longs[slot];
+        }
+        if (expr instanceof Ast.Binary b && isComparison(b.operator)) {
+            BooleanSupplier test = condition(b);
+            return () -> test.getAsBoolean() ? 1 : 0;
+        }
+        if (expr instanceof Ast.Binary b) {
+            if (isPlainVariable(b.left) && b.right instanceof Ast.NumberLiteral n) {
+                int slot = ((Ast.Variable) b.left).slot;
+                long k = (long) n.value;
+                return switch (b.operator) {
+                    case PLUS -> () -> Interpreter.add(longs[slot], k);
+                    case MINUS -> () -> Interpreter.subtract(longs[slot], k);
+                    case STAR -> () -> Interpreter.multiply(longs[slot], k);
+                    default -> throw new RuntimeException("Unsupported operator: " + b.operator);
+                };
+            }
+            LongSupplier left = integer(b.left);
+            LongSupplier right = integer(b.right);
+            return switch (b.operator) {
+                case PLUS -> () -> Interpreter.add(left.getAsLong(), right.getAsLong());
+                case MINUS -> () -> Interpreter.subtract(left.getAsLong(), right.getAsLong());
+                case STAR -> () -> Interpreter.multiply(left.getAsLong(), right.getAsLong());
+                default -> throw new RuntimeException("Unsupported operator: " + b.operator);
+            };
+        }
+        throw new RuntimeException("Unknown integer expression type: " + expr.getClass());
+    }
+
+    private DoubleSupplier expr(Ast.Expr expr) {
+        final double[] frame = this.frame;
+        if (expr.integer) {
+            LongSupplier value = integer(expr);
+            return () -> Interpreter.decimal(value.getAsLong());
+        }
+        if (expr instanceof Ast.NumberLiteral n) {
+            double value = n.value;
+            return () -> value;
+        }
+        if (expr instanceof Ast.Variable v) {
+            if (v.checked) return new CheckedRead(v.slot, v.name);
+            int slot = v.slot;
+            return () -> frame[slot];
+        }
+        if (expr instanceof Ast.Binary b) {
+            if (b.left instanceof Ast.NumberLiteral l && b.right instanceof Ast.NumberLiteral r) {
+                double value = apply(b.operator, l.value, r.value);
+                return () -> value;
+            }
+            if (isPlainDecimal(b.left) && b.right instanceof Ast.NumberLiteral n) {
+                int slot = ((Ast.Variable) b.left).slot;
+                double k = n.value;
+                return switch (b.operator) {
+                    case PLUS -> () -> frame[slot] + k;
+                    case MINUS -> () -> frame[slot] - k;
+                    case STAR -> () -> frame[slot] * k;
+                    case SLASH -> () -> frame[slot] / k;
+                    default -> throw new RuntimeException("Unsupported operator: " + b.operator);
+                };
+            }
+            if (isPlainDecimal(b.left) && isPlainDecimal(b.right)) {
+                int left = ((Ast.Variable) b.left).slot;
+                int right = ((Ast.Variable) b.right).slot;
+                return switch (b.operator) {
+                    case PLUS -> () -> frame[left] + frame[right];
+                    case MINUS -> () -> frame[left] - frame[right];
+                    case STAR -> () -> frame[left] * frame[right];
+                    case SLASH -> () -> frame[left] / frame[right];
+                    default -> throw new RuntimeException("Unsupported operator: " + b.operator);
+                };
+            }
+            DoubleSupplier left = expr(b.left);
+            DoubleSupplier right = expr(b.right);
+            return switch (b.operator) {
+                case PLUS -> () -> left.getAsDouble() + right.getAsDouble();
+                case MINUS -> () -> left.getAsDouble() - right.getAsDouble();
+                case STAR -> () -> left.getAsDouble() * right.getAsDouble();
+                case SLASH -> () -> left.getAsDouble() / right.getAsDouble();
+                default -> throw new RuntimeException("Unsupported operator: " + b.operator);
+            };
+        }
+        throw new RuntimeException("Unknown expression type: " + expr.getClass());
+    }
+
+    // An unchecked read; integer operands read longs[slot]
+    private static boolean isPlainVariable(Ast.Expr expr) {
+        return expr instanceof Ast.Variable v && !v.checked;
+    }
+
+    // An unchecked read of frame[slot]
+    private static boolean isPlainDecimal(Ast.Expr expr) {
+        return isPlainVariable(expr) && !expr.integer;
+    }
+
+    private static boolean isComparison(Token.Type operator) {
+        return operator == Token.Type.GREATER || operator == Token.Type.LESS
+                || operator == Token.Type.EQUAL_EQUAL || operator == Token.Type.BANG_EQUAL;
+    }
+
+    private static double apply(Token.Type operator, double left, double right) {
+        return switch (operator) {
+            case PLUS -> left + right;
+            case MINUS -> left - right;
+            case STAR -> left * right;
+            case SLASH -> left / right;
+            default -> throw new RuntimeException("Unsupported operator: " + operator);
+        };
+    }
+
+    /**
+     * Read of a variable that may not be assigned yet. Variables never become
+     * undefined again, so once a read has succeeded the node drops the check
+     * and behaves like a plain slot read.
+     */
+    private final class CheckedRead implements DoubleSupplier, LongSupplier {
+        private final int slot;
+        private final String name;
+        private boolean seenDefined;
+
+        CheckedRead(int slot, String name) {
+            this.slot = slot;
+            this.name = name;
+        }
+
+        @Override
+        public double getAsDouble() {
+            check();
+            return frame[slot];
+        }
+
+        @Override
+        public long getAsLong() {
+            check();
+            return longs[slot];
+        }
+
+        private void check() {
+            if (!seenDefined) {
+                if (!defined[slot]) throw new RuntimeException("Undefined variable: " + name);
+                seenDefined = true;
+            }
+        }
+    }
+}
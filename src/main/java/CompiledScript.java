@@ -0,0 +1,98 @@
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A script compiled once and executed any number of times, from any number of
+ * threads at once.
+ *
+ * {@link #compile} lexes, parses, optimizes and resolves up front; the
+ * resulting AST is never written again. Each {@link #execute} call gets its own
+ * {@link Interpreter} and frame, so calls share nothing mutable. Inputs are
+ * named at compile time and count as assigned from the start of the script.
+ */
+public final class CompiledScript {
+    private static final Output DISCARD = new Output() {
+        @Override
+        public void print(double value) {
+        }
+
+        @Override
+        public void print(long value) {
+        }
+
+        @Override
+        public void print(double[] values) {
+        }
+
+        @Override
+        public void flush() {
+        }
+    };
+
+    private final List<Ast.Stmt> program;
+    private final List<String> inputs;
+    private final String[] slotNames;
+    private final boolean[] arraySlots;
+    private final boolean[] integerSlots;
+
+    private CompiledScript(List<Ast.Stmt> program, List<String> inputs, String[] slotNames,
+                           boolean[] arraySlots, boolean[] integerSlots) {
+        this.program = program;
+        this.inputs = inputs;
+        this.slotNames = slotNames;
+        this.arraySlots = arraySlots;
+        this.integerSlots = integerSlots;
+    }
+
+    /** Compiles {@code source}; every {@link #execute} call must bind each name in {@code inputs}. */
+    public static CompiledScript compile(String source, String... inputs) {
+        List<Ast.Stmt> program = new Optimizer().optimize(new Parser(new StreamLexer(source).tokens()).parse());
+        Resolver resolver = new Resolver(program, List.of(inputs));
+        resolver.resolve();
+        boolean[] arraySlots = new boolean[resolver.slotCount()];
+        boolean[] integerSlots = new boolean[resolver.slotCount()];
+        for (int slot = 0; slot < arraySlots.length; slot++) {
+            arraySlots[slot] = resolver.isArray(slot);
+            integerSlots[slot] = resolver.isInteger(slot);
+        }
+        return new CompiledScript(List.copyOf(program), List.of(inputs), resolver.slotNames().toArray(new String[0]),
+                arraySlots, integerSlots);
+    }
+
+    public List<String> inputs() {
+        return inputs;
+    }
+
+    /** Runs the script, discarding printed output. */
+    public Map<String, Double> execute(Map<String, Double> bindings) {
+        return execute(bindings, DISCARD);
+    }
+
+    /**
+     * Runs the script with {@code bindings} as its inputs, printing to {@code out},
+     * and returns the final value of every number variable the run assigned (inputs included).
+     */
+    public Map<String, Double> execute(Map<String, Double> bindings, Output out) {
+        if (bindings.size() != inputs.size()) {
+            for (String name : bindings.keySet()) {
+                if (!inputs.contains(name)) throw new IllegalArgumentException("Unknown input: " + name);
+            }
+        }
+        Interpreter interpreter = new Interpreter(slotNames.length, out);
+        for (int slot = 0; slot < inputs.size(); slot++) {
+            Double value = bindings.get(inputs.get(slot));
+            if (value == null) throw new IllegalArgumentException("Missing input: " + inputs.get(slot));
+            interpreter.set(slot, value);
+        }
+        interpreter.execute(program);
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (int slot = 0; slot < slotNames.length; slot++) {
+            if (interpreter.isDefined(slot) && !arraySlots[slot] && !slotNames[slot].startsWith(Optimizer.TEMP_PREFIX)) {
+                values.put(slotNames[slot], integerSlots[slot] ? Interpreter.decimal(interpreter.getLong(slot)) : interpreter.get(slot));
+            }
+        }
+        return Collections.unmodifiableMap(values);
+    }
+}
@@ -0,0 +1,173 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a resolved program into a {@link Chunk} for the {@link VM}.
+ * {@code if} and {@code while} become conditional and unconditional jumps.
+ * An expression leaves a long if it is an integer and a double otherwise;
+ * {@code TO_DOUBLE} converts where an integer meets a decimal.
+ */
+public class Compiler {
+    private int[] code = new int[64];
+    private int size = 0;
+    private double[] constants = new double[16];
+    private int constantCount = 0;
+    private final Map<Double, Integer> constantIndex = new HashMap<>();
+    private int depth = 0;
+    private int maxStack = 0;
+
+    public Chunk compile(List<Ast.Stmt> statements, List<String> slotNames) {
+        for (Ast.Stmt stmt : statements) {
+            if (stmt.widen != null) for (int slot : stmt.widen) emit(Chunk.WIDEN, slot);
+            compile(stmt);
+        }
+        emit(Chunk.HALT);
+        return new Chunk(Arrays.copyOf(code, size), Arrays.copyOf(constants, constantCount),
+                maxStack, slotNames.toArray(new String[0]));
+    }
+
+    private void compile(Ast.Stmt stmt) {
+        if (stmt instanceof Ast.VarAssign s) {
+            if (s.integer) {
+                compile(s.value);
+                emit(Chunk.STORE_INTEGER, s.slot);
+            } else {
+                compileDouble(s.value);
+                emit(Chunk.STORE, s.slot);
+            }
+            pop(1);
+        } else if (stmt instanceof Ast.Print s) {
+            compile(s.value);
+            emit(s.value.integer ? Chunk.PRINT_INTEGER : Chunk.PRINT);
+            pop(1);
+        } else if (stmt instanceof Ast.Block b) {
+            for (Ast.Stmt inner : b.statements) compile(inner);
+        } else if (stmt instanceof Ast.If i) {
+            int toElse = condition(i.condition);
+            pop(1);
+            compile(i.thenBranch);
+            if (i.elseBranch != null) {
+                int toEnd = emitJump(Chunk.JUMP);
+                patch(toElse);
+                compile(i.elseBranch);
+                patch(toEnd);
+            } else {
+                patch(toElse);
+            }
+        } else if (stmt instanceof Ast.While w) {
+            int start = size;
+            int toEnd = condition(w.condition);
+            pop(1);
+            compile(w.body);
+            emit(Chunk.JUMP, start);
+            patch(toEnd);
+        } else {
+            throw new RuntimeException("Unknown statement type: " + stmt.getClass());
+        }
+    }
+
+    // Emits a jump taken when the condition is 0 and returns the operand position to patch
+    private int condition(Ast.Expr condition) {
+        compile(condition);
+        return emitJump(condition.integer ? Chunk.JUMP_IF_ZERO_INTEGER : Chunk.JUMP_IF_ZERO);
+    }
+
+    private void compileDouble(Ast.Expr expr) {
+        compile(expr);
+        if (expr.integer) emit(Chunk.TO_DOUBLE);
+    }
+
+    private void compile(Ast.Expr expr) {
+        if (expr instanceof Ast.NumberLiteral n) {
+            emit(n.integer ? Chunk.CONST_INTEGER : Chunk.CONST, constant(n.value));
+            push();
+        } else if (expr instanceof Ast.Variable v) {
+            if (v.integer) emit(v.checked ? Chunk.LOAD_INTEGER_CHECKED : Chunk.LOAD_INTEGER, v.slot);
+            else emit(v.checked ? Chunk.LOAD_CHECKED : Chunk.LOAD, v.slot);
+            push();
+        } else if (expr instanceof Ast.Binary b && isComparison(b.operator)) {
+            boolean integers = b.left.integer && b.right.integer;
+            if (integers) {
+                compile(b.left);
+                compile(b.right);
+            } else {
+                compileDouble(b.left);
+                compileDouble(b.right);
+            }
+            emit(switch (b.operator) {
+                case GREATER -> integers ? Chunk.GREATER_INTEGER : Chunk.GREATER;
+                case LESS -> integers ? Chunk.LESS_INTEGER : Chunk.LESS;
+                case EQUAL_EQUAL -> integers ? Chunk.EQUAL_INTEGER : Chunk.EQUAL;
+                default -> integers ? Chunk.NOT_EQUAL_INTEGER : Chunk.NOT_EQUAL;
+            });
+            pop(1);
+            if (!b.integer) emit(Chunk.TO_DOUBLE);
+        } else if (expr instanceof Ast.Binary b && b.integer) {
+            compile(b.left);
+            compile(b.right);
+            emit(switch (b.operator) {
+                case PLUS -> Chunk.ADD_INTEGER;
+                case MINUS -> Chunk.SUB_INTEGER;
+                case STAR -> Chunk.MUL_INTEGER;
+                default -> throw new RuntimeException("Unsupported operator: " + b.operator);
+            });
+            pop(1);
+        } else if (expr instanceof Ast.Binary b) {
+            compileDouble(b.left);
+            compileDouble(b.right);
+            emit(switch (b.operator) {
+                case PLUS -> Chunk.ADD;
+                case MINUS -> Chunk.SUB;
+                case STAR -> Chunk.MUL;
+                case SLASH -> Chunk.DIV;
+                default -> throw new RuntimeException("Unsupported operator: " + b.operator);
+            });
+            pop(1);
+        } else {
+            throw new RuntimeException("Unknown expression type: " + expr.getClass());
+        }
+    }
+
+    private static boolean isComparison(Token.Type operator) {
+        return operator == Token.Type.GREATER || operator == Token.Type.LESS
+                || operator == Token.Type.EQUAL_EQUAL || operator == Token.Type.BANG_EQUAL;
+    }
+
+    private int constant(double value) {
+        return constantIndex.computeIfAbsent(value, v -> {
+            if (constantCount == constants.length) constants = Arrays.copyOf(constants, constantCount * 2);
+            constants[constantCount] = v;
+            return constantCount++;
+        });
+    }
+
+    private void emit(int op) {
+        if (size == code.length) code = Arrays.copyOf(code, size * 2);
+        code[size++] = op;
+    }
+
+    private void emit(int op, int operand) {
+        emit(op);
+        emit(operand);
+    }
+
+    // Emits a jump with a placeholder target and returns the operand position to patch
+    private int emitJump(int op) {
+        emit(op, -1);
+        return size - 1;
+    }
+
+    private void patch(int operandPosition) {
+        code[operandPosition] = size;
+    }
+
+    private void push() {
+        if (++depth > maxStack) maxStack = depth;
+    }
+
+    private void pop(int count) {
+        depth -= count;
+    }
+}
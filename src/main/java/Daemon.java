@@ -0,0 +1,213 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-lived server that runs scripts for {@link DaemonClient}s over a
+ * Unix-domain socket, so each run skips JVM startup and starts on warm JIT code.
+ *
+ * One connection carries one request: magic, protocol version, engine,
+ * optimize flag, the client's working directory, then either a script path or
+ * the source text. Relative {@code 📂} names are opened from the client's
+ * directory, as they would be without the daemon. The reply is a sequence of
+ * frames: output chunks as they are flushed, an optional error message, and a
+ * final frame with the run's latency. Connections are served concurrently,
+ * each with its own engine instance, and a run still going after the timeout
+ * is cancelled. Every request is logged to stderr with its latency.
+ */
+public class Daemon {
+    static final int MAGIC = 0x454D4A44; // "EMJD"
+    static final int VERSION = 2;
+    static final long DEFAULT_TIMEOUT_SECONDS = 600;
+
+    static final byte PATH = 0;
+    static final byte SOURCE = 1;
+
+    static final byte OUTPUT = 1;
+    static final byte ERROR = 2;
+    static final byte DONE = 3;
+
+    private static final int FRAME_SIZE = 8192;
+    private static final int WARM_UP_RUNS = 200;
+    private static final String WARM_UP_SCRIPT = """
+            📦 i == 0
+            📦 s == 0
+            🔁 i < 2000 {
+                ❓ i > 1000 { 📦 s == s ➕ i ➗ 3 } else { 📦 s == s ➖ 1 }
+                📦 i == i ➕ 1
+            }
+            📢 s
+            """;
+
+    private final Main.Options options;
+    private final Path socket;
+    private final AtomicLong requests = new AtomicLong();
+    private final ScheduledExecutorService deadlines = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "emoji-daemon-deadlines");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public Daemon(Main.Options options, Path socket) {
+        this.options = options;
+        this.socket = socket;
+    }
+
+    public static Path defaultSocket() {
+        return ProgramCache.defaultDirectory().resolve("daemon.sock");
+    }
+
+    /** Serves until the process is killed. */
+    public void serve() throws IOException {
+        if (Files.exists(socket)) {
+            if (isListening(socket)) throw new IOException("A daemon is already listening on " + socket);
+            Files.delete(socket); // left behind by a daemon that died
+        }
+        Files.createDirectories(socket.toAbsolutePath().getParent());
+        warmUp();
+
+        ExecutorService workers = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "emoji-daemon-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Files.deleteIfExists(socket);
+                } catch (IOException ignored) {
+                    // nothing useful to do while exiting
+                }
+            }));
+            System.err.println("emoji daemon listening on " + socket);
+            while (true) {
+                SocketChannel client = server.accept();
+                workers.execute(() -> serve(client));
+            }
+        }
+    }
+
+    private static boolean isListening(Path socket) {
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socket)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Runs every engine on a small program until the JIT has compiled the hot paths
+    private void warmUp() {
+        Output discard = new StreamOutput(OutputStream.nullOutputStream(), StreamOutput.DEFAULT_BUFFER_SIZE, false);
+        for (int run = 0; run < WARM_UP_RUNS; run++) {
+            for (String engine : List.of("tree", "vm", "jit", "closure")) {
+                List<Ast.Stmt> program = new Optimizer().optimize(new Parser(new Lexer(WARM_UP_SCRIPT).lex()).parse());
+                Main.run(program, engine, discard);
+            }
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        long id = requests.incrementAndGet();
+        long start = System.nanoTime();
+        String target = "?";
+        String engine = options.engine;
+        String failure = null;
+        try (channel) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("Bad request header");
+            engine = in.readUTF();
+            Main.Options request = new Main.Options();
+            request.engine = engine;
+            request.optimize = in.readBoolean();
+            request.cache = options.cache;
+            Path directory = Path.of(in.readUTF());
+            byte kind = in.readByte();
+            List<Ast.Stmt> program;
+            AtomicBoolean timedOut = new AtomicBoolean();
+            List<ScheduledFuture<?>> deadline = new ArrayList<>(1);
+            try {
+                if (kind == PATH) {
+                    target = in.readUTF();
+                    program = Main.load(Path.of(target), request);
+                } else {
+                    byte[] source = new byte[in.readInt()];
+                    in.readFully(source);
+                    target = "<source>";
+                    program = Main.parse(new String(source, StandardCharsets.UTF_8), false, request.optimize);
+                }
+                Main.run(program, engine, new StreamOutput(new FrameOutputStream(out), FRAME_SIZE, false), directory,
+                        options.timeoutSeconds == 0 ? null : cancel -> {
+                            long left = TimeUnit.SECONDS.toNanos(options.timeoutSeconds) - (System.nanoTime() - start);
+                            deadline.add(deadlines.schedule(() -> {
+                                timedOut.set(true);
+                                cancel.run();
+                            }, left, TimeUnit.NANOSECONDS));
+                        });
+            } catch (RuntimeException | IOException e) {
+                failure = timedOut.get() ? "Timed out after " + options.timeoutSeconds + " s"
+                        : e.getClass().getSimpleName() + " - " + e.getMessage();
+                out.writeByte(ERROR);
+                out.writeUTF(failure);
+            }
+            for (ScheduledFuture<?> pending : deadline) pending.cancel(false);
+            out.writeByte(DONE);
+            out.writeLong(System.nanoTime() - start);
+            out.flush();
+        } catch (IOException | RuntimeException e) {
+            // the client went away or sent garbage; nothing to reply to
+            failure = "connection: " + e.getMessage();
+        }
+        System.err.printf("#%d %8.2f ms  %-6s %-7s %s%s%n", id, (System.nanoTime() - start) / 1e6,
+                failure == null ? "ok" : "FAILED", engine, target, failure == null ? "" : ": " + failure);
+    }
+
+    // Wraps each chunk StreamOutput writes in an OUTPUT frame
+    private static class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+
+        FrameOutputStream(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) return;
+            out.writeByte(OUTPUT);
+            out.writeInt(length);
+            out.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Sends one run request to a {@link Daemon} and copies its output to stdout as
+ * it arrives. Loads none of the lexer, parser or engine classes.
+ */
+public class DaemonClient {
+    /** Connects to the daemon at {@code socket}, or returns null if none is listening. */
+    public static DaemonClient connect(Path socket) {
+        try {
+            return new DaemonClient(SocketChannel.open(UnixDomainSocketAddress.of(socket)));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private final SocketChannel channel;
+
+    private DaemonClient(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    /** Runs the script at {@code path}; returns the process exit status. */
+    public int runPath(Path path, String engine, boolean optimize) throws IOException {
+        return run(engine, optimize, out -> {
+            out.writeByte(Daemon.PATH);
+            out.writeUTF(path.toAbsolutePath().toString());
+        });
+    }
+
+    /** Runs {@code source} text; returns the process exit status. */
+    public int runSource(byte[] source, String engine, boolean optimize) throws IOException {
+        return run(engine, optimize, out -> {
+            out.writeByte(Daemon.SOURCE);
+            out.writeInt(source.length);
+            out.write(source);
+        });
+    }
+
+    private interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private int run(String engine, boolean optimize, Body body) throws IOException {
+        try (channel) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(Daemon.MAGIC);
+            out.writeInt(Daemon.VERSION);
+            out.writeUTF(engine);
+            out.writeBoolean(optimize);
+            out.writeUTF(Path.of("").toAbsolutePath().toString());
+            body.write(out);
+            out.flush();
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            OutputStream stdout = new FileOutputStream(FileDescriptor.out);
+            int status = 0;
+            while (true) {
+                byte frame = in.readByte();
+                if (frame == Daemon.OUTPUT) {
+                    byte[] chunk = new byte[in.readInt()];
+                    in.readFully(chunk);
+                    stdout.write(chunk);
+                } else if (frame == Daemon.ERROR) {
+                    System.err.println("Error: " + in.readUTF());
+                    status = 1;
+                } else if (frame == Daemon.DONE) {
+                    in.readLong();
+                    return status;
+                } else {
+                    throw new IOException("Bad frame from daemon: " + frame);
+                }
+            }
+        }
+    }
+}
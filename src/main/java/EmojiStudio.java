@@ -1,34 +1,91 @@
 import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.io.File;
 
 /**
  * Simple desktop "studio" for the Emoji programming language.
  *
- * It provides a text editor, a Run button, and an output console.
+ * It provides a syntax-highlighting editor, Run and Profile buttons, an output
+ * console, and a profile table whose rows jump to their source position.
  */
 public class EmojiStudio {
+    private static final int OUTPUT_INTERVAL_MS = 100;
+    private static final int MAX_CONSOLE_CHARS = 1_000_000;
+
     private final JFrame frame;
-    private final JTextArea editor;
+    private final JTextPane editor;
     private final JTextArea console;
+    private final JTabbedPane bottomTabs;
+    private final DefaultTableModel profileModel;
+    private final JButton runButton;
+    private final JButton profileButton;
+    private final JButton stopButton;
+    private final JLabel statusLabel;
     private File currentFile;
+    private Interpreter running; // event thread only
 
     public EmojiStudio() {
         frame = new JFrame("Emoji Lang Studio");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setSize(800, 600);
 
-        editor = new JTextArea();
+        editor = new JTextPane();
         editor.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 16));
+        new SyntaxHighlighter(editor);
 
         console = new JTextArea();
         console.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 14));
         console.setEditable(false);
 
-        JButton runButton = new JButton("Run ▶");
-        runButton.addActionListener(this::runProgram);
+        profileModel = new DefaultTableModel(
+                new Object[] {"Kind", "Line", "Column", "Node", "Count", "Self ms", "Incl ms"}, 0) {
+            @Override
+            public Class<?> getColumnClass(int column) {
+                return switch (column) {
+                    case 1, 2 -> Integer.class;
+                    case 4 -> Long.class;
+                    case 5, 6 -> Double.class;
+                    default -> String.class;
+                };
+            }
+
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable profileTable = new JTable(profileModel);
+        profileTable.setAutoCreateRowSorter(true);
+        profileTable.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = profileTable.getSelectedRow();
+                if (e.getClickCount() != 2 || row < 0) return;
+                int model = profileTable.convertRowIndexToModel(row);
+                goTo((Integer) profileModel.getValueAt(model, 1), (Integer) profileModel.getValueAt(model, 2));
+            }
+        });
+
+        bottomTabs = new JTabbedPane();
+        bottomTabs.addTab("Output", new JScrollPane(console));
+        bottomTabs.addTab("Profile", new JScrollPane(profileTable));
+
+        runButton = new JButton("Run ▶");
+        runButton.addActionListener(e -> runProgram(false));
+
+        profileButton = new JButton("Profile ⏱");
+        profileButton.addActionListener(e -> runProgram(true));
+
+        stopButton = new JButton("Stop ■");
+        stopButton.setEnabled(false);
+        stopButton.addActionListener(e -> stopProgram());
+
+        statusLabel = new JLabel(" ");
 
         JButton clearButton = new JButton("Clear Console");
         clearButton.addActionListener(e -> console.setText(""));
@@ -38,11 +95,14 @@ public class EmojiStudio {
 
         JPanel topBar = new JPanel(new FlowLayout(FlowLayout.LEFT));
         topBar.add(runButton);
+        topBar.add(profileButton);
+        topBar.add(stopButton);
         topBar.add(clearButton);
         topBar.add(openExampleButton);
+        topBar.add(statusLabel);
 
         JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
-                new JScrollPane(editor), new JScrollPane(console));
+                new JScrollPane(editor), bottomTabs);
         splitPane.setResizeWeight(0.7);
 
         frame.getContentPane().setLayout(new BorderLayout());
@@ -69,37 +129,121 @@ public class EmojiStudio {
         return bar;
     }
 
-    private void runProgram(ActionEvent e) {
+    private void runProgram(boolean profile) {
+        if (running != null) return;
         console.setText("");
+        bottomTabs.setSelectedIndex(0);
         String source = editor.getText();
+        java.util.List<Ast.Stmt> program;
+        Resolver resolver;
         try {
             Lexer lexer = new Lexer(source);
             java.util.List<Token> tokens = lexer.lex();
             Parser parser = new Parser(tokens);
-            java.util.List<Ast.Stmt> program = parser.parse();
+            program = new Optimizer().optimize(parser.parse());
+            resolver = new Resolver(program);
+            resolver.resolve();
+        } catch (Exception ex) {
+            showError(ex);
+            return;
+        }
+
+        // Run off the event thread; output is pulled into the console by a timer
+        BufferOutput out = new BufferOutput();
+        Profiler profiler = profile ? new Profiler() : null;
+        Interpreter interpreter = profile
+                ? Interpreter.profiling(resolver.slotCount(), out, profiler)
+                : new Interpreter(resolver.slotCount(), out);
+        Timer outputTimer = new Timer(OUTPUT_INTERVAL_MS, ev -> appendOutput(out));
+        running = interpreter;
+        runButton.setEnabled(false);
+        profileButton.setEnabled(false);
+        stopButton.setEnabled(true);
+        statusLabel.setText("Running...");
+        outputTimer.start();
 
-            // Capture output by temporarily redirecting System.out
-            java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
-            java.io.PrintStream originalOut = System.out;
-            java.io.PrintStream ps = new java.io.PrintStream(baos, true);
-            System.setOut(ps);
+        Thread worker = new Thread(() -> {
+            long start = System.nanoTime();
+            Throwable failure = null;
             try {
-                Interpreter interpreter = new Interpreter();
                 interpreter.execute(program);
-            } finally {
-                System.setOut(originalOut);
+            } catch (Throwable ex) {
+                // Errors too (deep recursion, out of memory), or the buttons would stay disabled
+                failure = ex;
             }
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            Throwable result = failure;
+            SwingUtilities.invokeLater(() -> {
+                outputTimer.stop();
+                appendOutput(out);
+                running = null;
+                runButton.setEnabled(true);
+                profileButton.setEnabled(true);
+                stopButton.setEnabled(false);
+                if (profiler != null) showProfile(profiler);
+                String summary = elapsedMs + " ms, " + interpreter.statementCount() + " statements";
+                if (result instanceof CancellationException) {
+                    statusLabel.setText("Stopped after " + summary);
+                } else if (result != null) {
+                    statusLabel.setText("Failed after " + summary);
+                    showError(result);
+                } else {
+                    statusLabel.setText("Finished in " + summary);
+                }
+            });
+        }, "emoji-run");
+        worker.setDaemon(true);
+        worker.start();
+    }
 
-            console.append(baos.toString());
-        } catch (Exception ex) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("Error: ").append(ex.getClass().getSimpleName())
-              .append(" - ").append(ex.getMessage()).append("\n");
-            console.append(sb.toString());
-            // Also show a dialog for visibility
-            JOptionPane.showMessageDialog(frame, sb.toString(),
-                    "Runtime / Parse Error", JOptionPane.ERROR_MESSAGE);
+    private void stopProgram() {
+        Interpreter interpreter = running;
+        if (interpreter != null) interpreter.cancel();
+    }
+
+    private void showProfile(Profiler profiler) {
+        profileModel.setRowCount(0);
+        for (Profiler.Stats s : profiler.statements()) {
+            profileModel.addRow(new Object[] {"statement", s.node.line, s.node.column, Profiler.label(s.node), s.count,
+                    s.selfNanos / 1e6, s.inclusiveNanos / 1e6});
+        }
+        for (Profiler.Stats s : profiler.expressions()) {
+            profileModel.addRow(new Object[] {"expression", s.node.line, s.node.column, Profiler.label(s.node), s.count,
+                    null, null});
         }
+        bottomTabs.setSelectedIndex(1);
+    }
+
+    // Moves the caret to a 1-based line and column
+    private void goTo(int line, int column) {
+        String text = editor.getText();
+        int offset = 0;
+        for (int l = 1; l < line; l++) {
+            int newline = text.indexOf('\n', offset);
+            if (newline < 0) return;
+            offset = newline + 1;
+        }
+        editor.setCaretPosition(Math.min(offset + column - 1, text.length()));
+        editor.requestFocusInWindow();
+    }
+
+    private void appendOutput(BufferOutput out) {
+        String text = out.drain();
+        if (text.isEmpty()) return;
+        console.append(text);
+        // Keep the console bounded so a chatty loop cannot exhaust memory
+        int excess = console.getDocument().getLength() - MAX_CONSOLE_CHARS;
+        if (excess > 0) console.replaceRange("", 0, excess);
+    }
+
+    private void showError(Throwable ex) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Error: ").append(ex.getClass().getSimpleName())
+          .append(" - ").append(ex.getMessage()).append("\n");
+        console.append(sb.toString());
+        // Also show a dialog for visibility
+        JOptionPane.showMessageDialog(frame, sb.toString(),
+                "Runtime / Parse Error", JOptionPane.ERROR_MESSAGE);
     }
 
     private void openFile() {
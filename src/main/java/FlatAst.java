@@ -0,0 +1,224 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A whole program stored as parallel arrays instead of {@link Ast} objects.
+ *
+ * Node {@code n} has kind {@code kind[n]} and up to three operands in
+ * {@code a[n]}, {@code b[n]} and {@code c[n]}:
+ * <pre>
+ * ASSIGN    a = slot, b = value
+ * PRINT     a = value, b = 1 if the value is an integer
+ * BLOCK     a = first index in children, b = child count
+ * IF        a = condition, b = then, c = else or -1
+ * WHILE     a = condition, b = body
+ * BINARY    a = left, b = right, c = operator ordinal
+ * VARIABLE  a = slot, c = 1 if the read must be checked at run time
+ * NUMBER    a = index in numbers
+ * </pre>
+ * {@code integer[n]} is set by {@link #resolve} for expressions that are
+ * integers and assignments to integer variables, which run on longs, typing
+ * one top-level statement at a time like {@link Resolver}; {@code widen[i]}
+ * lists the slots to move to decimals before the root's i-th child runs.
+ * Nodes are added children first, so each top-level statement's nodes are
+ * the ones after the previous statement's node, up to its own.
+ * Slots are indexes into {@link #names}, handed out in order of first
+ * appearance, so {@link FlatParser} resolves names as it goes and
+ * {@link #resolve} only has to check definite assignment and which prints
+ * show integers. The program itself is the BLOCK at {@link #root}.
+ */
+public final class FlatAst {
+    public static final int ASSIGN = 0;
+    public static final int PRINT = 1;
+    public static final int BLOCK = 2;
+    public static final int IF = 3;
+    public static final int WHILE = 4;
+    public static final int BINARY = 5;
+    public static final int VARIABLE = 6;
+    public static final int NUMBER = 7;
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final Token.Type[] OPERATORS = Token.Type.values();
+
+    int[] kind = new int[INITIAL_CAPACITY];
+    int[] a = new int[INITIAL_CAPACITY];
+    int[] b = new int[INITIAL_CAPACITY];
+    int[] c = new int[INITIAL_CAPACITY];
+    int[] line = new int[INITIAL_CAPACITY];
+    int[] column = new int[INITIAL_CAPACITY];
+    int size;
+
+    int[] children = new int[INITIAL_CAPACITY];
+    int childCount;
+
+    double[] numbers = new double[INITIAL_CAPACITY];
+    int numberCount;
+
+    final List<String> names = new ArrayList<>();
+    int root = -1;
+    boolean[] integer = new boolean[0];
+    int[][] widen = new int[0][];
+
+    public int nodeCount() {
+        return size;
+    }
+
+    public int slotCount() {
+        return names.size();
+    }
+
+    /** Variable names indexed by slot. */
+    public List<String> slotNames() {
+        return names;
+    }
+
+    int add(int kind, int a, int b, int c, int line, int column) {
+        if (size == this.kind.length) {
+            int capacity = size * 2;
+            this.kind = Arrays.copyOf(this.kind, capacity);
+            this.a = Arrays.copyOf(this.a, capacity);
+            this.b = Arrays.copyOf(this.b, capacity);
+            this.c = Arrays.copyOf(this.c, capacity);
+            this.line = Arrays.copyOf(this.line, capacity);
+            this.column = Arrays.copyOf(this.column, capacity);
+        }
+        this.kind[size] = kind;
+        this.a[size] = a;
+        this.b[size] = b;
+        this.c[size] = c;
+        this.line[size] = line;
+        this.column[size] = column;
+        return size++;
+    }
+
+    int number(double value) {
+        if (numberCount == numbers.length) numbers = Arrays.copyOf(numbers, numberCount * 2);
+        numbers[numberCount] = value;
+        return numberCount++;
+    }
+
+    // Copies the top 'count' entries of a scratch stack into children and returns where they start
+    int children(int[] stack, int from, int count) {
+        if (childCount + count > children.length) {
+            children = Arrays.copyOf(children, Math.max(children.length * 2, childCount + count));
+        }
+        System.arraycopy(stack, from, children, childCount, count);
+        int first = childCount;
+        childCount += count;
+        return first;
+    }
+
+    /** Trims every array to its used length. */
+    void trim() {
+        kind = Arrays.copyOf(kind, size);
+        a = Arrays.copyOf(a, size);
+        b = Arrays.copyOf(b, size);
+        c = Arrays.copyOf(c, size);
+        line = Arrays.copyOf(line, size);
+        column = Arrays.copyOf(column, size);
+        children = Arrays.copyOf(children, childCount);
+        numbers = Arrays.copyOf(numbers, numberCount);
+    }
+
+    /**
+     * Reports reads of names that are never assigned, marks reads that may
+     * run before the first assignment and flags integers, with the same rules
+     * as {@link Resolver}.
+     */
+    public FlatAst resolve() {
+        BitSet everAssigned = new BitSet();
+        for (int n = 0; n < size; n++) if (kind[n] == ASSIGN) everAssigned.set(a[n]);
+        resolve(root, new BitSet(), everAssigned);
+        integer = new boolean[size];
+        widen = new int[b[root]][];
+        BitSet integers = new BitSet();
+        int known = 0; // slots seen in earlier statements
+        for (int i = 0, first = 0; i < b[root]; i++) {
+            int last = children[a[root] + i];
+            int seen = known;
+            for (int n = first; n <= last; n++) {
+                if (kind[n] == ASSIGN || kind[n] == VARIABLE) seen = Math.max(seen, a[n] + 1);
+            }
+            integers.set(known, seen);
+            widen[i] = inferIntegers(first, last, integers, known);
+            known = seen;
+            for (int n = first; n <= last; n++) {
+                integer[n] = switch (kind[n]) {
+                    case ASSIGN -> integers.get(a[n]);
+                    case NUMBER, VARIABLE, BINARY -> isInteger(n, integers);
+                    default -> false;
+                };
+                if (kind[n] == PRINT) b[n] = isInteger(a[n], integers) ? 1 : 0;
+            }
+            first = last + 1;
+        }
+        return this;
+    }
+
+    // Drops the slots that the assignments among nodes first..last give a non-integer; returns those below 'known'
+    private int[] inferIntegers(int first, int last, BitSet integers, int known) {
+        BitSet widened = new BitSet();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int n = first; n <= last; n++) {
+                if (kind[n] == ASSIGN && integers.get(a[n]) && !isInteger(b[n], integers)) {
+                    integers.clear(a[n]);
+                    if (a[n] < known) widened.set(a[n]);
+                    changed = true;
+                }
+            }
+        }
+        return widened.isEmpty() ? null : widened.stream().toArray();
+    }
+
+    private boolean isInteger(int n, BitSet integers) {
+        return switch (kind[n]) {
+            case NUMBER -> Resolver.isInteger(numbers[a[n]]);
+            case VARIABLE -> integers.get(a[n]);
+            case BINARY -> Resolver.isInteger(OPERATORS[c[n]], isInteger(a[n], integers), isInteger(b[n], integers));
+            default -> false;
+        };
+    }
+
+    // 'assigned' holds the slots that are definitely assigned at this point.
+    private void resolve(int n, BitSet assigned, BitSet everAssigned) {
+        switch (kind[n]) {
+            case ASSIGN -> {
+                resolve(b[n], assigned, everAssigned);
+                assigned.set(a[n]);
+            }
+            case PRINT -> resolve(a[n], assigned, everAssigned);
+            case BLOCK -> {
+                for (int i = a[n]; i < a[n] + b[n]; i++) resolve(children[i], assigned, everAssigned);
+            }
+            case IF -> {
+                resolve(a[n], assigned, everAssigned);
+                BitSet thenAssigned = (BitSet) assigned.clone();
+                resolve(b[n], thenAssigned, everAssigned);
+                BitSet elseAssigned = (BitSet) assigned.clone();
+                if (c[n] >= 0) resolve(c[n], elseAssigned, everAssigned);
+                thenAssigned.and(elseAssigned);
+                assigned.or(thenAssigned);
+            }
+            case WHILE -> {
+                resolve(a[n], assigned, everAssigned);
+                // The body may run zero times, so nothing it assigns is definite afterwards
+                resolve(b[n], (BitSet) assigned.clone(), everAssigned);
+            }
+            case BINARY -> {
+                resolve(a[n], assigned, everAssigned);
+                resolve(b[n], assigned, everAssigned);
+            }
+            case VARIABLE -> {
+                if (!everAssigned.get(a[n])) throw new RuntimeException("Undefined variable: " + names.get(a[n]));
+                c[n] = assigned.get(a[n]) ? 0 : 1;
+            }
+            case NUMBER -> {
+            }
+            default -> throw new RuntimeException("Unknown node kind: " + kind[n]);
+        }
+    }
+}
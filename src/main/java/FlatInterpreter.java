@@ -0,0 +1,146 @@
+/**
+ * Runs a resolved {@link FlatAst} by walking node indexes, with the same
+ * semantics and errors as {@link Interpreter}: integer nodes run on longs with
+ * its arithmetic ({@link Interpreter#add}), and the rest on doubles.
+ */
+public class FlatInterpreter {
+    private static final int PLUS = Token.Type.PLUS.ordinal();
+    private static final int MINUS = Token.Type.MINUS.ordinal();
+    private static final int STAR = Token.Type.STAR.ordinal();
+    private static final int SLASH = Token.Type.SLASH.ordinal();
+    private static final int GREATER = Token.Type.GREATER.ordinal();
+    private static final int LESS = Token.Type.LESS.ordinal();
+    private static final int EQUAL_EQUAL = Token.Type.EQUAL_EQUAL.ordinal();
+    private static final int BANG_EQUAL = Token.Type.BANG_EQUAL.ordinal();
+
+    private final FlatAst ast;
+    private final int[] kind;
+    private final int[] a;
+    private final int[] b;
+    private final int[] c;
+    private final boolean[] integer;
+    private final int[] children;
+    private final double[] numbers;
+    private final double[] frame;
+    private final long[] longs;
+    private final boolean[] defined;
+    private final Output out;
+
+    public FlatInterpreter(FlatAst ast, Output out) {
+        this.ast = ast;
+        this.kind = ast.kind;
+        this.a = ast.a;
+        this.b = ast.b;
+        this.c = ast.c;
+        this.integer = ast.integer;
+        this.children = ast.children;
+        this.numbers = ast.numbers;
+        this.frame = new double[ast.slotCount()];
+        this.longs = new long[ast.slotCount()];
+        this.defined = new boolean[ast.slotCount()];
+        this.out = out;
+    }
+
+    public void execute() {
+        int[][] widen = ast.widen;
+        try {
+            for (int i = 0; i < b[ast.root]; i++) {
+                if (widen[i] != null) {
+                    for (int slot : widen[i]) frame[slot] = Interpreter.decimal(longs[slot]);
+                }
+                exec(children[a[ast.root] + i]);
+            }
+        } finally {
+            out.flush();
+        }
+    }
+
+    private void exec(int n) {
+        switch (kind[n]) {
+            case FlatAst.ASSIGN -> {
+                if (integer[n]) longs[a[n]] = evalLong(b[n]);
+                else frame[a[n]] = eval(b[n]);
+                defined[a[n]] = true;
+            }
+            case FlatAst.PRINT -> {
+                if (b[n] != 0) out.print(evalLong(a[n]));
+                else out.print(eval(a[n]));
+            }
+            case FlatAst.BLOCK -> {
+                for (int i = a[n], end = a[n] + b[n]; i < end; i++) exec(children[i]);
+            }
+            case FlatAst.IF -> {
+                if (test(a[n])) {
+                    exec(b[n]);
+                } else if (c[n] >= 0) {
+                    exec(c[n]);
+                }
+            }
+            case FlatAst.WHILE -> {
+                while (test(a[n])) exec(b[n]);
+            }
+            default -> throw new RuntimeException("Unknown statement kind: " + kind[n]);
+        }
+    }
+
+    private boolean test(int n) {
+        return integer[n] ? evalLong(n) != 0 : eval(n) != 0;
+    }
+
+    private long evalLong(int n) {
+        switch (kind[n]) {
+            case FlatAst.NUMBER:
+                return (long) numbers[a[n]];
+            case FlatAst.VARIABLE:
+                if (c[n] != 0 && !defined[a[n]]) throw new RuntimeException("Undefined variable: " + ast.names.get(a[n]));
+                return longs[a[n]];
+            case FlatAst.BINARY:
+                int op = c[n];
+                if (op == PLUS) return Interpreter.add(evalLong(a[n]), evalLong(b[n]));
+                if (op == MINUS) return Interpreter.subtract(evalLong(a[n]), evalLong(b[n]));
+                if (op == STAR) return Interpreter.multiply(evalLong(a[n]), evalLong(b[n]));
+                return compare(n) ? 1 : 0;
+            default:
+                throw new RuntimeException("Unknown expression kind: " + kind[n]);
+        }
+    }
+
+    private boolean compare(int n) {
+        int op = c[n];
+        if (integer[a[n]] && integer[b[n]]) {
+            int order = Interpreter.compare(evalLong(a[n]), evalLong(b[n]), op == LESS ? 1 : -1);
+            if (op == GREATER) return order > 0;
+            if (op == LESS) return order < 0;
+            if (op == EQUAL_EQUAL) return order == 0;
+            if (op == BANG_EQUAL) return order != 0;
+        } else {
+            double left = eval(a[n]);
+            double right = eval(b[n]);
+            if (op == GREATER) return left > right;
+            if (op == LESS) return left < right;
+            if (op == EQUAL_EQUAL) return left == right;
+            if (op == BANG_EQUAL) return left != right;
+        }
+        throw new RuntimeException("Unsupported operator: " + Token.Type.values()[op]);
+    }
+
+    private double eval(int n) {
+        if (integer[n]) return Interpreter.decimal(evalLong(n));
+        switch (kind[n]) {
+            case FlatAst.NUMBER:
+                return numbers[a[n]];
+            case FlatAst.VARIABLE:
+                if (c[n] != 0 && !defined[a[n]]) throw new RuntimeException("Undefined variable: " + ast.names.get(a[n]));
+                return frame[a[n]];
+            case FlatAst.BINARY:
+                int op = c[n];
+                if (op == SLASH) return eval(a[n]) / eval(b[n]);
+                if (op == PLUS) return eval(a[n]) + eval(b[n]);
+                if (op == MINUS) return eval(a[n]) - eval(b[n]);
+                if (op == STAR) return eval(a[n]) * eval(b[n]);
+                return compare(n) ? 1.0 : 0.0;
+            default:
+                throw new RuntimeException("Unknown expression kind: " + kind[n]);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses straight into a {@link FlatAst}: same grammar and errors as
+ * {@link Parser}, but no node objects. Child lists are collected on one
+ * shared int stack and copied into the store when their block closes, and
+ * binary operators are parsed by precedence climbing over
+ * {@link Parser#PRECEDENCE}.
+ */
+public class FlatParser {
+    private final Iterator<Token> tokens;
+    private Token current;
+    private Token previous;
+
+    private final FlatAst ast = new FlatAst();
+    private final Map<String, Integer> slots = new HashMap<>();
+    private int[] stack = new int[64];
+    private int depth;
+
+    public FlatParser(List<Token> tokens) {
+        this(tokens.iterator());
+    }
+
+    public FlatParser(Iterator<Token> tokens) {
+        this.tokens = tokens;
+        this.current = tokens.next();
+    }
+
+    public FlatAst parse() {
+        int mark = depth;
+        while (!isAtEnd()) {
+            // Skip stray semicolons at the top level
+            if (match(Token.Type.SEMICOLON)) continue;
+            push(statement());
+        }
+        ast.root = block(mark, 1, 1);
+        ast.trim();
+        return ast;
+    }
+
+    private int statement() {
+        if (match(Token.Type.ASSIGN)) {
+            Token keyword = previous;
+            Token name = consume(Token.Type.IDENTIFIER, "Expected identifier after 📦");
+            if (check(Token.Type.LBRACKET)) throw arraysUnsupported();
+            consume(Token.Type.EQUAL_EQUAL, "Expected '=' transformed to '==' after identifier (simplified parser)");
+            int value = expression(0);
+            match(Token.Type.SEMICOLON);
+            return ast.add(FlatAst.ASSIGN, slot(name.lexeme), value, 0, keyword.line, keyword.column);
+        }
+        if (match(Token.Type.PRINT)) {
+            Token keyword = previous;
+            int value = expression(0);
+            match(Token.Type.SEMICOLON);
+            return ast.add(FlatAst.PRINT, value, 0, 0, keyword.line, keyword.column);
+        }
+        if (match(Token.Type.IF)) {
+            Token keyword = previous;
+            int cond = expression(0);
+            int thenBranch = statementOrBlock();
+            int elseBranch = -1;
+            if (match(Token.Type.IDENTIFIER) && "else".equals(previous.lexeme)) {
+                elseBranch = statementOrBlock();
+            }
+            return ast.add(FlatAst.IF, cond, thenBranch, elseBranch, keyword.line, keyword.column);
+        }
+        if (match(Token.Type.WHILE)) {
+            Token keyword = previous;
+            int cond = expression(0);
+            int body = statementOrBlock();
+            return ast.add(FlatAst.WHILE, cond, body, 0, keyword.line, keyword.column);
+        }
+        if (check(Token.Type.PARALLEL)) throw new RuntimeException("--ast=flat does not support 🔀, found " + current);
+        if (check(Token.Type.FUNCTION) || check(Token.Type.MEMO) || check(Token.Type.RETURN)) throw functionsUnsupported();
+        if (check(Token.Type.SEND)) throw tasksUnsupported();
+        if (check(Token.Type.OPEN)) throw new RuntimeException("--ast=flat does not support 📂 inputs, found " + current);
+        if (check(Token.Type.LBRACE)) {
+            consume(Token.Type.LBRACE, "Expected '{'");
+            return blockBody(previous);
+        }
+        Token first = current;
+        int expr = expression(0);
+        match(Token.Type.SEMICOLON);
+        return ast.add(FlatAst.PRINT, expr, 0, 0, first.line, first.column);
+    }
+
+    private int statementOrBlock() {
+        if (match(Token.Type.LBRACE)) return blockBody(previous);
+        return statement();
+    }
+
+    // The '{' has been consumed
+    private int blockBody(Token brace) {
+        int mark = depth;
+        while (!check(Token.Type.RBRACE) && !isAtEnd()) {
+            push(statement());
+        }
+        consume(Token.Type.RBRACE, "Expected '}'");
+        return block(mark, brace.line, brace.column);
+    }
+
+    private int block(int mark, int line, int column) {
+        int first = ast.children(stack, mark, depth - mark);
+        int node = ast.add(FlatAst.BLOCK, first, depth - mark, 0, line, column);
+        depth = mark;
+        return node;
+    }
+
+    private int expression(int minPrecedence) {
+        int expr = primary();
+        int precedence;
+        while ((precedence = Parser.PRECEDENCE[current.type.ordinal()]) > minPrecedence) {
+            Token op = advance();
+            int right = expression(precedence);
+            expr = ast.add(FlatAst.BINARY, expr, right, op.type.ordinal(), op.line, op.column);
+        }
+        return expr;
+    }
+
+    private int primary() {
+        if (match(Token.Type.NUMBER)) {
+            int index = ast.number(Double.parseDouble(previous.lexeme));
+            return ast.add(FlatAst.NUMBER, index, 0, 0, previous.line, previous.column);
+        }
+        if (match(Token.Type.IDENTIFIER)) {
+            if (check(Token.Type.LPAREN)) throw functionsUnsupported();
+            return ast.add(FlatAst.VARIABLE, slot(previous.lexeme), 0, 0, previous.line, previous.column);
+        }
+        switch (current.type) {
+            case LBRACKET, LENGTH, SUM, MIN, MAX, MEAN -> throw arraysUnsupported();
+            case SPAWN, AWAIT, CHANNEL, RECEIVE -> throw tasksUnsupported();
+            default -> throw new RuntimeException("Unexpected token: " + current);
+        }
+    }
+
+    private RuntimeException arraysUnsupported() {
+        return new RuntimeException("--ast=flat does not support arrays, found " + current);
+    }
+
+    private RuntimeException functionsUnsupported() {
+        return new RuntimeException("--ast=flat does not support functions, found " + current);
+    }
+
+    private RuntimeException tasksUnsupported() {
+        return new RuntimeException("--ast=flat does not support tasks and channels, found " + current);
+    }
+
+    private int slot(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = ast.names.size();
+            slots.put(name, slot);
+            ast.names.add(name);
+        }
+        return slot;
+    }
+
+    private void push(int node) {
+        if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+        stack[depth++] = node;
+    }
+
+    private boolean match(Token.Type type) {
+        if (!check(type)) return false;
+        advance();
+        return true;
+    }
+
+    private boolean check(Token.Type type) {
+        if (isAtEnd()) return false;
+        return current.type == type;
+    }
+
+    private Token advance() {
+        if (!isAtEnd()) {
+            previous = current;
+            current = tokens.next();
+        }
+        return previous;
+    }
+
+    private boolean isAtEnd() {
+        return current.type == Token.Type.EOF;
+    }
+
+    private Token consume(Token.Type type, String message) {
+        if (check(type)) return advance();
+        throw new RuntimeException(message + ", found " + current);
+    }
+}
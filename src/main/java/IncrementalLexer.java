@@ -0,0 +1,177 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Token list for an editor buffer that is kept up to date by re-lexing only
+ * the part of the text an edit touched.
+ *
+ * {@link #update} restarts {@link StreamLexer} at the token boundary just
+ * before the damaged region and lexes forward until a new token lines up with
+ * an old token (same type and span, shifted by the edit's length change) past
+ * the end of the damage. From there the old tokens are reused. The language
+ * has no multi-line tokens, so any token start is a safe restart point.
+ *
+ * Tokens are held in parallel primitive arrays; {@code EOF} is not stored.
+ */
+public class IncrementalLexer {
+    private Token.Type[] types = new Token.Type[256];
+    private int[] starts = new int[256];
+    private int[] ends = new int[256];
+    private int count = 0;
+
+    private int changedFrom;
+    private int changedTo;
+    private int changedStart;
+    private int changedEnd;
+
+    /**
+     * Re-lexes {@code text} after an edit. {@code damageStart}/{@code damageEnd}
+     * bound the changed characters in the new text and {@code delta} is the new
+     * length minus the length at the previous update.
+     */
+    public void update(CharSequence text, int damageStart, int damageEnd, int delta) {
+        int first = firstEndingAtOrAfter(damageStart);
+        int from = first > 0 ? first - 1 : 0;
+        int restart = first > 0 ? starts[from] : 0;
+
+        // Old tokens wholly after the damage are candidates for resynchronizing
+        int reuse = from;
+        while (reuse < count && starts[reuse] < damageEnd - delta) reuse++;
+
+        Token.Type[] newTypes = new Token.Type[16];
+        int[] newStarts = new int[16];
+        int[] newEnds = new int[16];
+        int added = 0;
+        int resync = count;
+        StreamLexer lexer = new StreamLexer(text, restart);
+        for (Token.Type type = lexer.next(); type != Token.Type.EOF; type = lexer.next()) {
+            int start = lexer.start();
+            int end = lexer.end();
+            if (start >= damageEnd) {
+                while (reuse < count && starts[reuse] + delta < start) reuse++;
+                if (reuse < count && starts[reuse] + delta == start
+                        && ends[reuse] + delta == end && types[reuse] == type) {
+                    resync = reuse;
+                    break;
+                }
+            }
+            if (added == newTypes.length) {
+                newTypes = Arrays.copyOf(newTypes, added * 2);
+                newStarts = Arrays.copyOf(newStarts, added * 2);
+                newEnds = Arrays.copyOf(newEnds, added * 2);
+            }
+            newTypes[added] = type;
+            newStarts[added] = start;
+            newEnds[added] = end;
+            added++;
+        }
+
+        int kept = count - resync;
+        int newCount = from + added + kept;
+        ensureCapacity(newCount);
+        System.arraycopy(types, resync, types, from + added, kept);
+        System.arraycopy(starts, resync, starts, from + added, kept);
+        System.arraycopy(ends, resync, ends, from + added, kept);
+        if (delta != 0) {
+            for (int i = from + added; i < newCount; i++) {
+                starts[i] += delta;
+                ends[i] += delta;
+            }
+        }
+        System.arraycopy(newTypes, 0, types, from, added);
+        System.arraycopy(newStarts, 0, starts, from, added);
+        System.arraycopy(newEnds, 0, ends, from, added);
+        count = newCount;
+
+        changedFrom = from;
+        changedTo = from + added;
+        changedStart = restart;
+        changedEnd = kept > 0 ? starts[changedTo] : text.length();
+    }
+
+    /** Lexes {@code text} from scratch. */
+    public void reset(CharSequence text) {
+        count = 0;
+        update(text, 0, text.length(), 0);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public Token.Type type(int index) {
+        return types[index];
+    }
+
+    public int start(int index) {
+        return starts[index];
+    }
+
+    public int end(int index) {
+        return ends[index];
+    }
+
+    /** First token index re-lexed by the last update. */
+    public int changedFrom() {
+        return changedFrom;
+    }
+
+    /** One past the last token index re-lexed by the last update. */
+    public int changedTo() {
+        return changedTo;
+    }
+
+    /** Text offset where the last update started re-lexing. */
+    public int changedStart() {
+        return changedStart;
+    }
+
+    /** Text offset where the last update resynchronized with the old tokens. */
+    public int changedEnd() {
+        return changedEnd;
+    }
+
+    /** Tokens of {@code text} (which must be the text of the last update) followed by {@code EOF}. */
+    public Iterator<Token> tokens(CharSequence text) {
+        StreamLexer.LineCounter lines = new StreamLexer.LineCounter(0);
+        return new Iterator<>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index <= count;
+            }
+
+            @Override
+            public Token next() {
+                if (index > count) throw new NoSuchElementException();
+                int i = index++;
+                int start = i == count ? text.length() : starts[i];
+                lines.advanceTo(text, start);
+                int column = start - lines.lineStart + 1;
+                if (i == count) return new Token(Token.Type.EOF, "", start, start, lines.line, column);
+                return new Token(types[i], StreamLexer.lexeme(text, types[i], start, ends[i]), start, ends[i], lines.line, column);
+            }
+        };
+    }
+
+    private int firstEndingAtOrAfter(int offset) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ends[mid] < offset) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= types.length) return;
+        int size = Math.max(capacity, types.length * 2);
+        types = Arrays.copyOf(types, size);
+        starts = Arrays.copyOf(starts, size);
+        ends = Arrays.copyOf(ends, size);
+    }
+}
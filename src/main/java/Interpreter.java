@@ -1,46 +1,649 @@
-import java.util.HashMap;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class Interpreter {
-    private final Map<String, Double> env = new HashMap<>();
+    private static final ArrayKernels KERNELS = ArrayKernels.get();
+    /**
+     * 🔀 ranges are halved down to this many iterations whatever the pool size,
+     * so partial results are always combined in the same order.
+     */
+    static final int PARALLEL_GRAIN = 1024;
+    /**
+     * Integers are exact in [-2^53, 2^53), where long and double arithmetic agree. A ➕ ➖ ✖️ whose result
+     * leaves that range gives the decimal that double arithmetic would, kept in the long as ±the bits of its
+     * magnitude: those lie outside the range and sort like the decimals they stand for, NaN above everything.
+     * Every later operation on such a value works on the decimal, so results stay those of doubles.
+     */
+    private static final long EXACT = 1L << 53;
+    private static final long NAN = Double.doubleToLongBits(Double.NaN);
+
+    // Variables live in slots assigned by Resolver
+    private double[] frame;
+    private long[] longs; // integer variables, by the same slots
+    private double[][] arrays; // array variables, by the same slots
+    private boolean[] defined;
+    private Output out; // made a SynchronizedOutput before the first task starts
+    private final Jit jit; // null unless hot loops should be compiled
+    private ForkJoinPool pool = ForkJoinPool.commonPool(); // null runs 🔀 slices one after another
+    private volatile boolean cancelled;
+    private long executed;
+    private long iterations; // of 🔁 and 🔀 loops
+    private long printed;
+
+    // 🧩 calls run on frames[0..depth); a frame is kept for the next call at its depth
+    private Frame[] frames = new Frame[16];
+    private int depth;
+    private boolean returning; // a ↩️ is leaving the running function
+    private Ast.Call tailCall; // the call that ↩️ left to run in place, its arguments bound in frames[depth]
+    private boolean returnedInteger;
+    private long returnLong;
+    private double returnDouble;
+    private MemoCache[] memos = new MemoCache[0]; // by Function.index, for 🧠 functions
+    private volatile Tasks tasks; // created by the first 🚀 or 📡, shared with every task
+    private MappedInput[] files = new MappedInput[0]; // 📂 inputs, by Open.index
+    private Path directory; // for relative 📂 names, or null for the working directory
+
+    private static final class Frame {
+        final double[] values;
+        final long[] longs;
+        final boolean[] defined;
+
+        Frame(int size) {
+            values = new double[size];
+            longs = new long[size];
+            defined = new boolean[size];
+        }
+    }
+
+    public Interpreter(int slotCount, Output out) {
+        this(slotCount, out, null);
+    }
+
+    public Interpreter(int slotCount, Output out, Jit jit) {
+        this.frame = new double[slotCount];
+        this.longs = new long[slotCount];
+        this.arrays = new double[slotCount][];
+        this.defined = new boolean[slotCount];
+        this.out = out;
+        this.jit = jit;
+    }
+
+    /** An interpreter that records statement and expression counts and timings into {@code profiler}. */
+    public static Interpreter profiling(int slotCount, Output out, Profiler profiler) {
+        return new Profiling(slotCount, out, profiler);
+    }
 
     public void execute(List<Ast.Stmt> statements) {
-        for (Ast.Stmt stmt : statements) {
-            exec(stmt);
+        Telemetry.ExecuteEvent event = Telemetry.recording() ? new Telemetry.ExecuteEvent() : null;
+        long executedBefore = executed;
+        long iterationsBefore = iterations;
+        long printedBefore = printed;
+        if (event != null) event.begin();
+        try {
+            for (Ast.Stmt stmt : statements) {
+                widen(stmt);
+                exec(stmt);
+            }
+            awaitTasks();
+        } finally {
+            out.flush();
+            if (event != null && event.shouldCommit()) {
+                event.statements = statements.size();
+                event.executed = executed - executedBefore;
+                event.iterations = iterations - iterationsBefore;
+                event.printed = printed - printedBefore;
+                event.commit();
+            }
         }
     }
 
-    private void exec(Ast.Stmt stmt) {
+    /** Waits for every 🚀 task started so far; a program ends when its tasks have. */
+    public void awaitTasks() {
+        if (tasks != null) tasks.awaitAll();
+    }
+
+    /** Hit counts of the {@code 🧠} functions called so far, one line each. */
+    public String memoStats() {
+        StringBuilder stats = new StringBuilder();
+        for (MemoCache memo : memos) {
+            if (memo != null) stats.append(memo).append('\n');
+        }
+        return stats.toString();
+    }
+
+    /** Runs one more top-level statement; unlike {@link #execute(List)}, leaves flushing to the caller. */
+    public void execute(Ast.Stmt stmt) {
+        widen(stmt);
+        exec(stmt);
+    }
+
+    /** Makes room for {@code slotCount} variables, for programs resolved a statement at a time. */
+    public void grow(int slotCount) {
+        if (slotCount <= frame.length) return;
+        int capacity = Math.max(slotCount, frame.length * 2);
+        frame = Arrays.copyOf(frame, capacity);
+        longs = Arrays.copyOf(longs, capacity);
+        arrays = Arrays.copyOf(arrays, capacity);
+        defined = Arrays.copyOf(defined, capacity);
+    }
+
+    // Moves the values of variables that become decimals at this top-level statement to where decimals are kept
+    private void widen(Ast.Stmt stmt) {
+        if (stmt.widen == null) return;
+        for (int slot : stmt.widen) frame[slot] = decimal(longs[slot]);
+    }
+
+    /** Runs the slices of {@code 🔀} loops on {@code pool} instead of the common pool. */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /** Opens relative {@code 📂} names from {@code directory} instead of the process's working directory. */
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Asks a running {@link #execute} to stop; it throws {@link CancellationException} at the next loop iteration,
+     * and so do its 🚀 tasks, as well as any wait on a task or channel.
+     */
+    public void cancel() {
+        cancelled = true;
+        Tasks shared = tasks;
+        if (shared != null) shared.cancel();
+    }
+
+    /** Throws {@link CancellationException} if {@link #cancel} was called; compiled loops call it every iteration. */
+    void poll() {
+        if (cancelled) throw new CancellationException("Execution cancelled");
+    }
+
+    /** Assigns a variable before {@link #execute}, e.g. a script input. */
+    public void set(int slot, double value) {
+        frame[slot] = value;
+        defined[slot] = true;
+    }
+
+    public double get(int slot) {
+        return frame[slot];
+    }
+
+    /** Value of an integer variable (see {@link Resolver#isInteger}); {@link #decimal} gives the number. */
+    public long getLong(int slot) {
+        return longs[slot];
+    }
+
+    public boolean isDefined(int slot) {
+        return defined[slot];
+    }
+
+    /**
+     * Number of statements executed so far, in {@code 🔀} slices too, but not in {@code 🚀} tasks or in loops
+     * the JIT compiled.
+     */
+    public long statementCount() {
+        return executed;
+    }
+
+    /** Number of {@code 🔁} and {@code 🔀} iterations run so far, with the same exception. */
+    public long iterationCount() {
+        return iterations;
+    }
+
+    /** Number of values {@code 📢} printed so far, with the same exception. */
+    public long printCount() {
+        return printed;
+    }
+
+    /** True if an integer value is a whole number in [-2^53, 2^53), false if it holds a decimal it overflowed to. */
+    public static boolean isExact(long value) {
+        return (value + EXACT) >>> 54 == 0;
+    }
+
+    /** The number an integer value stands for. Also called from JIT-compiled loops. */
+    public static double decimal(long value) {
+        if (isExact(value)) return value;
+        double magnitude = Double.longBitsToDouble(Math.abs(value));
+        return value < 0 ? -magnitude : magnitude;
+    }
+
+    // The integer value standing for a result of ➕ ➖ ✖️ in doubles
+    private static long integer(double value) {
+        if (value >= -EXACT && value < EXACT) return (long) value;
+        long bits = Double.doubleToLongBits(Math.abs(value));
+        return value < 0 ? -bits : bits;
+    }
+
+    /** {@code left ➕ right} on integers. Also called from JIT-compiled loops. */
+    public static long add(long left, long right) {
+        long sum = left + right;
+        if (((left + EXACT | right + EXACT | sum + EXACT) >>> 54) == 0) return sum;
+        return integer(decimal(left) + decimal(right));
+    }
+
+    public static long subtract(long left, long right) {
+        long difference = left - right;
+        if (((left + EXACT | right + EXACT | difference + EXACT) >>> 54) == 0) return difference;
+        return integer(decimal(left) - decimal(right));
+    }
+
+    public static long multiply(long left, long right) {
+        long product = left * right;
+        if (((left + EXACT | right + EXACT | product + EXACT) >>> 54) == 0
+                && Math.multiplyHigh(left, right) == product >> 63) {
+            return product;
+        }
+        return integer(decimal(left) * decimal(right));
+    }
+
+    /**
+     * Compares two integer values like {@code dcmpl} ({@code unordered} -1) or {@code dcmpg} (1) compares the
+     * numbers they stand for. Also called from JIT-compiled loops.
+     */
+    public static int compare(long left, long right, int unordered) {
+        if (left == NAN || right == NAN) return unordered;
+        return Long.compare(left, right);
+    }
+
+    // exec and eval are overridden only by Profiling, which is loaded only when
+    // profiling; until then the JIT can treat them as final and inline them
+    void exec(Ast.Stmt stmt) {
+        executed++;
         if (stmt instanceof Ast.VarAssign s) {
-            double value = eval(s.value);
-            env.put(s.name, value);
+            if (s.value.array) {
+                double[] value = evalArray(s.value);
+                // Arrays are values: copying one variable into another must not alias it
+                arrays[s.slot] = s.value instanceof Ast.Variable ? value.clone() : value;
+            } else if (s.integer) {
+                longs[s.slot] = evalLong(s.value);
+            } else {
+                frame[s.slot] = eval(s.value);
+            }
+            defined[s.slot] = true;
         } else if (stmt instanceof Ast.Print s) {
-            double value = eval(s.value);
-            System.out.println(value);
+            printed++;
+            if (s.value.array) {
+                out.print(evalArray(s.value));
+            } else if (s.value.integer) {
+                out.print(evalLong(s.value));
+            } else {
+                out.print(eval(s.value));
+            }
+        } else if (stmt instanceof Ast.IndexAssign s) {
+            double[] target = evalArray(s.target);
+            int index = index(target, eval(s.index));
+            target[index] = eval(s.value);
         } else if (stmt instanceof Ast.Block b) {
-            for (Ast.Stmt inner : b.statements) exec(inner);
+            for (Ast.Stmt inner : b.statements) {
+                exec(inner);
+                if (returning) return;
+            }
         } else if (stmt instanceof Ast.If i) {
-            if (eval(i.condition) != 0) {
+            if (test(i.condition)) {
                 exec(i.thenBranch);
             } else if (i.elseBranch != null) {
                 exec(i.elseBranch);
             }
         } else if (stmt instanceof Ast.While w) {
-            while (eval(w.condition) != 0) exec(w.body);
+            if (jit != null) {
+                execWithJit(w);
+            } else {
+                while (test(w.condition)) {
+                    iterations++;
+                    exec(w.body);
+                    if (returning) return;
+                    if (cancelled) throw new CancellationException("Execution cancelled");
+                }
+            }
+        } else if (stmt instanceof Ast.Parallel p) {
+            execParallel(p);
+        } else if (stmt instanceof Ast.Return r) {
+            if (r.tail) {
+                tailCall = (Ast.Call) r.value;
+                bind(tailCall, frame(depth, tailCall.function.frameSize));
+            } else if (r.value.integer) {
+                returnLong = evalLong(r.value);
+                returnedInteger = true;
+            } else {
+                returnDouble = eval(r.value);
+                returnedInteger = false;
+            }
+            returning = true;
+        } else if (stmt instanceof Ast.Send s) {
+            Channel channel = tasks().channel(eval(s.channel));
+            channel.send(eval(s.value));
+        } else if (stmt instanceof Ast.Open o) {
+            if (o.index >= files.length) files = Arrays.copyOf(files, o.index + 1);
+            files[o.index] = MappedInput.open(directory == null ? o.path : directory.resolve(o.path).toString());
+        } else if (stmt instanceof Ast.Function) {
+            // Defined by Resolver; runs when called
         } else {
             throw new RuntimeException("Unknown statement type: " + stmt.getClass());
         }
     }
 
-    private double eval(Ast.Expr expr) {
+    private void execParallel(Ast.Parallel p) {
+        long start = evalLong(p.start);
+        long end = evalLong(p.end);
+        if (start >= end) return;
+        if (!isExact(start) || !isExact(end)) {
+            throw new RuntimeException("🔀 range too large: " + decimal(start) + " to " + decimal(end));
+        }
+        Range range = new Range(this, p, start, end);
+        Interpreter result;
+        try {
+            result = pool == null ? range.compute() : pool.invoke(range);
+        } catch (RuntimeException e) {
+            // ForkJoinTask rethrows a worker's exception as a copy made on this thread
+            throw e.getCause() instanceof RuntimeException cause && cause.getClass() == e.getClass() ? cause : e;
+        }
+        combine(result, p);
+    }
+
+    /** A fresh interpreter with a private copy of this one's variables, for one slice of a 🔀 loop. */
+    private Interpreter worker(Ast.Parallel p) {
+        Interpreter worker = blank(frame.length, out);
+        System.arraycopy(frame, 0, worker.frame, 0, frame.length);
+        System.arraycopy(longs, 0, worker.longs, 0, longs.length);
+        System.arraycopy(arrays, 0, worker.arrays, 0, arrays.length); // shared arrays are read-only in the body
+        System.arraycopy(defined, 0, worker.defined, 0, defined.length);
+        for (int i = 0; i < p.reductions.size(); i++) {
+            int slot = p.reductions.get(i).slot;
+            boolean plus = p.operators.get(i) == Token.Type.PLUS;
+            worker.longs[slot] = plus ? 0 : 1;
+            worker.frame[slot] = plus ? 0.0 : 1.0;
+        }
+        return worker;
+    }
+
+    Interpreter blank(int slotCount, Output out) {
+        return new Interpreter(slotCount, out);
+    }
+
+    // Folds another slice's reduction variables into this interpreter's
+    private void combine(Interpreter other, Ast.Parallel p) {
+        for (int i = 0; i < p.reductions.size(); i++) {
+            Ast.Variable r = p.reductions.get(i);
+            boolean plus = p.operators.get(i) == Token.Type.PLUS;
+            if (r.integer) {
+                longs[r.slot] = plus ? add(longs[r.slot], other.longs[r.slot]) : multiply(longs[r.slot], other.longs[r.slot]);
+            } else {
+                frame[r.slot] = plus ? frame[r.slot] + other.frame[r.slot] : frame[r.slot] * other.frame[r.slot];
+            }
+        }
+        executed += other.executed;
+        iterations += other.iterations;
+        printed += other.printed;
+    }
+
+    /** Iterations {@code [start, end)} of a 🔀 loop; returns an interpreter holding their partial reductions. */
+    private static final class Range extends RecursiveTask<Interpreter> {
+        private static final long serialVersionUID = 1L;
+
+        private final Interpreter parent;
+        private final Ast.Parallel loop;
+        private final long start;
+        private final long end;
+
+        Range(Interpreter parent, Ast.Parallel loop, long start, long end) {
+            this.parent = parent;
+            this.loop = loop;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Interpreter compute() {
+            if (end - start <= PARALLEL_GRAIN) {
+                Interpreter worker = parent.worker(loop);
+                for (long i = start; i < end; i++) {
+                    worker.longs[loop.slot] = i;
+                    worker.defined[loop.slot] = true;
+                    worker.iterations++;
+                    worker.exec(loop.body);
+                    if (parent.cancelled) throw new CancellationException("Execution cancelled");
+                }
+                return worker;
+            }
+            long middle = start + (end - start) / 2;
+            Range left = new Range(parent, loop, start, middle);
+            Range right = new Range(parent, loop, middle, end);
+            if (parent.pool == null) {
+                Interpreter result = left.compute();
+                result.combine(right.compute(), loop);
+                return result;
+            }
+            left.fork();
+            Interpreter rightResult = right.compute();
+            Interpreter result = left.join();
+            result.combine(rightResult, loop);
+            return result;
+        }
+    }
+
+    private void execWithJit(Ast.While w) {
+        Jit.Loop compiled = jit.compiled(w);
+        if (compiled != null) {
+            compiled.run(frame, longs, defined, out, this);
+            return;
+        }
+        int remaining = jit.remaining(w);
+        int count = 0;
+        while (test(w.condition)) {
+            iterations++;
+            exec(w.body);
+            if (returning) return;
+            if (cancelled) throw new CancellationException("Execution cancelled");
+            if (++count == remaining) {
+                compiled = jit.compile(w);
+                if (compiled != null) {
+                    compiled.run(frame, longs, defined, out, this);
+                    return;
+                }
+            }
+        }
+        jit.record(w, count);
+    }
+
+    // Runs a 🧩 call and leaves its result in returnLong if call.integer, else in returnDouble
+    private void call(Ast.Call call) {
+        Frame callee = frame(depth, call.function.frameSize);
+        bind(call, callee);
+        invoke(call, callee);
+    }
+
+    // Runs a call whose arguments are bound in 'callee', which must be frames[depth]
+    private void invoke(Ast.Call call, Frame callee) {
+        Ast.Function function = call.function;
+        MemoCache memo = function.memo ? memo(function) : null;
+        long[] key = memo == null ? null : memo.key(callee.longs, callee.values, function.integerParams);
+        if (memo != null) {
+            Long cached = memo.get(key);
+            if (cached != null) {
+                if (call.integer) returnLong = cached; else returnDouble = Double.longBitsToDouble(cached);
+                return;
+            }
+        }
+        double[] callerValues = frame;
+        long[] callerLongs = longs;
+        boolean[] callerDefined = defined;
+        depth++;
+        try {
+            while (true) {
+                enter(callee, function);
+                exec(function.body);
+                if (!returning) throw new RuntimeException("🧩 " + function.name + " ended without ↩️");
+                returning = false;
+                if (tailCall == null) break;
+                // A tail-recursive loop never grows the stack, so it must be cancellable like a 🔁
+                if (cancelled) throw new CancellationException("Execution cancelled");
+                // The tail call's frame, bound one above, takes this one's place
+                function = tailCall.function;
+                tailCall = null;
+                callee = frames[depth];
+                frames[depth] = frames[depth - 1];
+                frames[depth - 1] = callee;
+            }
+        } catch (StackOverflowError e) {
+            throw new RuntimeException("Calls nested too deeply in 🧩 " + function.name);
+        } finally {
+            depth--;
+            returning = false;
+            tailCall = null;
+            frame = callerValues;
+            longs = callerLongs;
+            defined = callerDefined;
+        }
+        // A decimal function can return integers; an integer one returns nothing else
+        if (!call.integer && returnedInteger) returnDouble = decimal(returnLong);
+        if (memo != null) memo.put(key, call.integer ? returnLong : Double.doubleToRawLongBits(returnDouble));
+    }
+
+    // Evaluates the arguments in the caller's frame into 'callee', which must be frames[depth]
+    private void bind(Ast.Call call, Frame callee) {
+        Ast.Function function = call.function;
+        depth++; // calls among the arguments take the frames above
+        try {
+            for (int i = 0; i < function.integerParams.length; i++) {
+                Ast.Expr arg = call.args.get(i);
+                if (function.integerParams[i]) {
+                    callee.longs[i] = evalLong(arg);
+                } else {
+                    callee.values[i] = eval(arg);
+                }
+            }
+        } finally {
+            depth--;
+        }
+    }
+
+    // Binds the arguments here and runs the call on a new interpreter sharing this one's tasks and output
+    private long spawn(Ast.Spawn spawn) {
+        Ast.Call call = spawn.call;
+        Tasks shared = tasks();
+        Interpreter task = new Interpreter(0, out, null);
+        task.tasks = shared;
+        Frame callee = task.frame(0, call.function.frameSize);
+        bind(call, callee);
+        return shared.spawn(() -> {
+            task.invoke(call, callee);
+            return call.integer ? decimal(task.returnLong) : task.returnDouble;
+        }, () -> task.cancelled = true); // not task.cancel(), which would cancel the shared tasks again
+    }
+
+    private Tasks tasks() {
+        Tasks shared = tasks;
+        if (shared == null) {
+            tasks = shared = new Tasks();
+            out = new SynchronizedOutput(out);
+            // cancel() may have run before there were tasks to pass it on to
+            if (cancelled) shared.cancel();
+        }
+        return shared;
+    }
+
+    private void enter(Frame callee, Ast.Function function) {
+        frame = callee.values;
+        longs = callee.longs;
+        defined = callee.defined;
+        int params = function.integerParams.length;
+        Arrays.fill(defined, 0, params, true);
+        Arrays.fill(defined, params, function.frameSize, false);
+    }
+
+    private Frame frame(int index, int size) {
+        if (index == frames.length) frames = Arrays.copyOf(frames, index * 2);
+        Frame frame = frames[index];
+        if (frame == null || frame.values.length < size) frames[index] = frame = new Frame(Math.max(size, 8));
+        return frame;
+    }
+
+    private MemoCache memo(Ast.Function function) {
+        if (function.index >= memos.length) memos = Arrays.copyOf(memos, function.index + 1);
+        MemoCache memo = memos[function.index];
+        if (memo == null) memos[function.index] = memo = new MemoCache(signature(function));
+        return memo;
+    }
+
+    // Each version of a function has a cache of its own: "f(integer n, x)"
+    private static String signature(Ast.Function function) {
+        StringJoiner params = new StringJoiner(", ", function.name + "(", ")");
+        for (int i = 0; i < function.params.size(); i++) {
+            params.add((function.integerParams[i] ? "integer " : "") + function.params.get(i));
+        }
+        return params.toString();
+    }
+
+    private boolean test(Ast.Expr condition) {
+        return condition.integer ? evalLong(condition) != 0 : eval(condition) != 0;
+    }
+
+    long evalLong(Ast.Expr expr) {
+        if (expr instanceof Ast.NumberLiteral n) {
+            return (long) n.value;
+        }
+        if (expr instanceof Ast.Variable v) {
+            if (v.checked && !defined[v.slot]) throw new RuntimeException("Undefined variable: " + v.name);
+            return longs[v.slot];
+        }
+        if (expr instanceof Ast.Binary b) {
+            switch (b.operator) {
+                case PLUS -> { return add(evalLong(b.left), evalLong(b.right)); }
+                case MINUS -> { return subtract(evalLong(b.left), evalLong(b.right)); }
+                case STAR -> { return multiply(evalLong(b.left), evalLong(b.right)); }
+                default -> { return compare(b) ? 1 : 0; }
+            }
+        }
+        if (expr instanceof Ast.Reduction r) {
+            if (r.file >= 0) return files[r.file].count();
+            return evalArray(r.operand).length; // only 📏 is an integer
+        }
+        if (expr instanceof Ast.Call c) {
+            call(c);
+            return returnLong;
+        }
+        if (expr instanceof Ast.Spawn s) return spawn(s);
+        if (expr instanceof Ast.NewChannel c) return tasks().newChannel(eval(c.capacity));
+        throw new RuntimeException("Unknown integer expression type: " + expr.getClass());
+    }
+
+    private boolean compare(Ast.Binary b) {
+        if (b.left.integer && b.right.integer) {
+            int order = compare(evalLong(b.left), evalLong(b.right), b.operator == Token.Type.LESS ? 1 : -1);
+            return switch (b.operator) {
+                case GREATER -> order > 0;
+                case LESS -> order < 0;
+                case EQUAL_EQUAL -> order == 0;
+                case BANG_EQUAL -> order != 0;
+                default -> throw new RuntimeException("Unsupported operator: " + b.operator);
+            };
+        }
+        double left = eval(b.left);
+        double right = eval(b.right);
+        return switch (b.operator) {
+            case GREATER -> left > right;
+            case LESS -> left < right;
+            case EQUAL_EQUAL -> left == right;
+            case BANG_EQUAL -> left != right;
+            default -> throw new RuntimeException("Unsupported operator: " + b.operator);
+        };
+    }
+
+    double eval(Ast.Expr expr) {
+        if (expr.integer) {
+            return decimal(evalLong(expr));
+        }
         if (expr instanceof Ast.NumberLiteral n) {
             return n.value;
         }
         if (expr instanceof Ast.Variable v) {
-            Double value = env.get(v.name);
-            if (value == null) throw new RuntimeException("Undefined variable: " + v.name);
-            return value;
+            if (v.checked && !defined[v.slot]) throw new RuntimeException("Undefined variable: " + v.name);
+            return frame[v.slot];
         }
         if (expr instanceof Ast.Binary b) {
             double left = eval(b.left);
@@ -50,13 +653,126 @@ public class Interpreter {
                 case MINUS -> left - right;
                 case STAR -> left * right;
                 case SLASH -> left / right;
-                case GREATER -> left > right ? 1.0 : 0.0;
-                case LESS -> left < right ? 1.0 : 0.0;
-                case EQUAL_EQUAL -> left == right ? 1.0 : 0.0;
-                case BANG_EQUAL -> left != right ? 1.0 : 0.0;
                 default -> throw new RuntimeException("Unsupported operator: " + b.operator);
             };
         }
+        if (expr instanceof Ast.Index i) {
+            if (i.file >= 0) return files[i.file].get(eval(i.index));
+            double[] array = evalArray(i.array);
+            return array[index(array, eval(i.index))];
+        }
+        if (expr instanceof Ast.Reduction r) {
+            if (r.file >= 0) return reduce(r.operator, files[r.file]);
+            double[] array = evalArray(r.operand);
+            if (r.operator == Token.Type.SUM) return KERNELS.sum(array);
+            if (array.length == 0) throw new RuntimeException(r.operator + " of an empty array");
+            if (r.operator == Token.Type.MEAN) return KERNELS.sum(array) / array.length;
+            return r.operator == Token.Type.MIN ? KERNELS.min(array) : KERNELS.max(array);
+        }
+        if (expr instanceof Ast.Call c) {
+            call(c);
+            return returnDouble;
+        }
+        if (expr instanceof Ast.Await a) return tasks().await(eval(a.task));
+        if (expr instanceof Ast.Receive r) return tasks().channel(eval(r.channel)).receive();
         throw new RuntimeException("Unknown expression type: " + expr.getClass());
     }
+
+    private static double reduce(Token.Type operator, MappedInput file) {
+        if (operator == Token.Type.SUM) return file.sum();
+        if (file.count() == 0) throw new RuntimeException(operator + " of an empty 📂 input");
+        return switch (operator) {
+            case MIN -> file.min();
+            case MAX -> file.max();
+            default -> file.mean();
+        };
+    }
+
+    double[] evalArray(Ast.Expr expr) {
+        if (expr instanceof Ast.Variable v) {
+            if (v.checked && !defined[v.slot]) throw new RuntimeException("Undefined variable: " + v.name);
+            return arrays[v.slot];
+        }
+        if (expr instanceof Ast.Binary b) {
+            if (!b.left.array) return KERNELS.apply(b.operator, eval(b.left), evalArray(b.right));
+            double[] left = evalArray(b.left);
+            if (!b.right.array) return KERNELS.apply(b.operator, left, eval(b.right));
+            double[] right = evalArray(b.right);
+            if (left.length != right.length) {
+                throw new RuntimeException("Array lengths differ: " + left.length + " and " + right.length);
+            }
+            return KERNELS.apply(b.operator, left, right);
+        }
+        if (expr instanceof Ast.ArrayLiteral a) {
+            double[] values = new double[a.elements.size()];
+            for (int i = 0; i < values.length; i++) values[i] = eval(a.elements.get(i));
+            return values;
+        }
+        if (expr instanceof Ast.ArrayFill f) {
+            double value = eval(f.value);
+            double count = eval(f.count);
+            if (!(count >= 0 && count <= Integer.MAX_VALUE - 8 && count == (int) count)) {
+                throw new RuntimeException("Array size must be a non-negative integer: " + count);
+            }
+            double[] values = new double[(int) count];
+            if (value != 0 || Double.doubleToRawLongBits(value) != 0) Arrays.fill(values, value);
+            return values;
+        }
+        throw new RuntimeException("Unknown array expression type: " + expr.getClass());
+    }
+
+    private static int index(double[] array, double index) {
+        if (index != (int) index) throw new RuntimeException("Index must be an integer: " + index);
+        if (index < 0 || index >= array.length) {
+            throw new RuntimeException("Index " + (int) index + " out of bounds for length " + array.length);
+        }
+        return (int) index;
+    }
+
+    private static class Profiling extends Interpreter {
+        private final Profiler profiler;
+
+        Profiling(int slotCount, Output out, Profiler profiler) {
+            super(slotCount, out, null);
+            this.profiler = profiler;
+            setPool(null); // the profiler is single-threaded
+        }
+
+        @Override
+        Interpreter blank(int slotCount, Output out) {
+            return new Profiling(slotCount, out, profiler);
+        }
+
+        @Override
+        void exec(Ast.Stmt stmt) {
+            if (stmt instanceof Ast.Block) {
+                super.exec(stmt);
+                return;
+            }
+            profiler.enter(stmt);
+            try {
+                super.exec(stmt);
+            } finally {
+                profiler.exit();
+            }
+        }
+
+        @Override
+        double eval(Ast.Expr expr) {
+            if (!expr.integer) profiler.evaluated(expr); // otherwise counted by evalLong
+            return super.eval(expr);
+        }
+
+        @Override
+        long evalLong(Ast.Expr expr) {
+            profiler.evaluated(expr);
+            return super.evalLong(expr);
+        }
+
+        @Override
+        double[] evalArray(Ast.Expr expr) {
+            profiler.evaluated(expr);
+            return super.evalArray(expr);
+        }
+    }
 }
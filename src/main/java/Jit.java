@@ -0,0 +1,534 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Hot-loop compiler used by {@code --engine=jit}.
+ *
+ * The {@link Interpreter} counts iterations of every {@code while} loop. Once a
+ * loop has run {@link #THRESHOLD} iterations it is translated to JVM bytecode,
+ * loaded as a hidden class and the rest of the loop runs there, so HotSpot can
+ * compile the arithmetic down to native doubles, and to native longs for
+ * integer expressions (see {@link Resolver} and {@link Interpreter#add}). Loops that cannot be compiled
+ * keep running in the interpreter.
+ */
+public class Jit {
+    public static final int THRESHOLD = 1000;
+
+    /** A compiled loop; runs until the loop condition is false. */
+    public interface Loop {
+        void run(double[] frame, long[] longs, boolean[] defined, Output out, Interpreter interpreter);
+    }
+
+    private static final Loop NOT_COMPILABLE = (frame, longs, defined, out, interpreter) -> {
+        throw new IllegalStateException("loop was not compiled");
+    };
+
+    private final Map<Ast.While, Loop> loops = new IdentityHashMap<>();
+    private final Map<Ast.While, Integer> iterations = new IdentityHashMap<>();
+
+    /** Returns the compiled form of the loop, or null while it is still interpreted. */
+    public Loop compiled(Ast.While loop) {
+        Loop compiled = loops.get(loop);
+        return compiled == NOT_COMPILABLE ? null : compiled;
+    }
+
+    /** Iterations the loop may still run in the interpreter before it is compiled. */
+    public int remaining(Ast.While loop) {
+        if (loops.get(loop) == NOT_COMPILABLE) return -1;
+        return THRESHOLD - iterations.getOrDefault(loop, 0);
+    }
+
+    public void record(Ast.While loop, int count) {
+        iterations.merge(loop, count, Integer::sum);
+    }
+
+    /** Forgets every loop seen so far, once the statements holding them have been discarded. */
+    public void clear() {
+        loops.clear();
+        iterations.clear();
+    }
+
+    /** Compiles the loop, returning null if it contains something the JIT does not support. */
+    public Loop compile(Ast.While loop) {
+        Loop compiled;
+        try {
+            byte[] bytes = new LoopWriter().write(loop);
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            compiled = (Loop) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (Unsupported e) {
+            compiled = NOT_COMPILABLE;
+        } catch (Throwable e) {
+            throw new RuntimeException("JIT failed to load compiled loop", e);
+        }
+        loops.put(loop, compiled);
+        return compiled == NOT_COMPILABLE ? null : compiled;
+    }
+
+    /** Called from compiled code for reads that may precede the first assignment. */
+    public static double load(double[] frame, boolean[] defined, int slot, String name) {
+        if (!defined[slot]) throw new RuntimeException("Undefined variable: " + name);
+        return frame[slot];
+    }
+
+    public static long loadLong(long[] longs, boolean[] defined, int slot, String name) {
+        if (!defined[slot]) throw new RuntimeException("Undefined variable: " + name);
+        return longs[slot];
+    }
+
+    private static class Unsupported extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Unsupported(String message) { super(message); }
+    }
+
+    /**
+     * Writes a class file implementing {@link Loop}. Locals are fixed
+     * (this, frame, longs, defined, out, interpreter), integer expressions leave a long on
+     * the stack and everything else a double, and comparisons used as values are computed
+     * without branches, so the operand stack is empty at every jump target
+     * and each StackMapTable entry is a plain same_frame.
+     */
+    private static class LoopWriter {
+        private static final String CLASS_NAME = "JitLoop";
+        private static final String LOOP = "Jit$Loop";
+        private static final String RUN_DESCRIPTOR = "([D[J[ZLOutput;LInterpreter;)V";
+        private static final int MAX_JUMP = Short.MAX_VALUE;
+
+        private final List<Object[]> pool = new ArrayList<>();
+        private final Map<String, Integer> poolIndex = new HashMap<>();
+        private int poolSize = 1;
+
+        private byte[] code = new byte[256];
+        private int size = 0;
+        private final TreeSet<Integer> jumpTargets = new TreeSet<>();
+        private int depth = 0;
+        private int maxDepth = 0;
+
+        byte[] write(Ast.While loop) throws IOException {
+            stmt(loop);
+            op(0xb1, 0); // return
+            if (size > MAX_JUMP) throw new Unsupported("loop too large");
+
+            int thisClass = classRef(CLASS_NAME);
+            int superClass = classRef("java/lang/Object");
+            int loopInterface = classRef(LOOP);
+            int objectInit = methodRef("java/lang/Object", "<init>", "()V");
+            int initName = utf8("<init>");
+            int initType = utf8("()V");
+            int runName = utf8("run");
+            int runType = utf8(RUN_DESCRIPTOR);
+            int codeName = utf8("Code");
+            int stackMapName = jumpTargets.isEmpty() ? 0 : utf8("StackMapTable");
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(61); // Java 17
+            writePool(out);
+            out.writeShort(0x0011); // ACC_PUBLIC | ACC_FINAL
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(loopInterface);
+            out.writeShort(0); // fields
+            out.writeShort(2); // methods
+
+            // public <init>() { super(); }
+            out.writeShort(0x0001);
+            out.writeShort(initName);
+            out.writeShort(initType);
+            out.writeShort(1);
+            out.writeShort(codeName);
+            out.writeInt(12 + 5);
+            out.writeShort(1);
+            out.writeShort(1);
+            out.writeInt(5);
+            out.writeByte(0x2a); // aload_0
+            out.writeByte(0xb7); // invokespecial
+            out.writeShort(objectInit);
+            out.writeByte(0xb1); // return
+            out.writeShort(0);
+            out.writeShort(0);
+
+            // public void run(double[] frame, long[] longs, boolean[] defined, Output out, Interpreter interpreter)
+            byte[] stackMap = stackMap();
+            byte[] body = Arrays.copyOf(code, size);
+            out.writeShort(0x0001);
+            out.writeShort(runName);
+            out.writeShort(runType);
+            out.writeShort(1);
+            out.writeShort(codeName);
+            out.writeInt(12 + body.length + (stackMap == null ? 0 : 6 + stackMap.length));
+            out.writeShort(maxDepth);
+            out.writeShort(6);
+            out.writeInt(body.length);
+            out.write(body);
+            out.writeShort(0); // exception table
+            if (stackMap == null) {
+                out.writeShort(0);
+            } else {
+                out.writeShort(1);
+                out.writeShort(stackMapName);
+                out.writeInt(stackMap.length);
+                out.write(stackMap);
+            }
+            out.writeShort(0); // class attributes
+            return bytes.toByteArray();
+        }
+
+        private byte[] stackMap() throws IOException {
+            if (jumpTargets.isEmpty()) return null;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeShort(jumpTargets.size());
+            int previous = -1;
+            for (int target : jumpTargets) {
+                int delta = target - previous - 1;
+                if (delta < 64) {
+                    out.writeByte(delta); // same_frame
+                } else {
+                    out.writeByte(251); // same_frame_extended
+                    out.writeShort(delta);
+                }
+                previous = target;
+            }
+            return bytes.toByteArray();
+        }
+
+        private void stmt(Ast.Stmt stmt) {
+            if (stmt instanceof Ast.VarAssign s) {
+                if (s.integer) {
+                    op(0x2c, 1); // aload_2
+                    intConst(s.slot);
+                    expr(s.value);
+                    op(0x50, -4); // lastore
+                } else {
+                    op(0x2b, 1); // aload_1
+                    intConst(s.slot);
+                    number(s.value);
+                    op(0x52, -4); // dastore
+                }
+                op(0x2d, 1); // aload_3
+                intConst(s.slot);
+                op(0x04, 1); // iconst_1
+                op(0x54, -3); // bastore
+            } else if (stmt instanceof Ast.Print s) {
+                op(0x19, 1); // aload
+                put(4);
+                expr(s.value);
+                op(0xb9, -3); // invokeinterface
+                u2(interfaceMethodRef("Output", "print", s.value.integer ? "(J)V" : "(D)V"));
+                put(3); // argument slots including the receiver
+                put(0);
+            } else if (stmt instanceof Ast.Block b) {
+                for (Ast.Stmt inner : b.statements) stmt(inner);
+            } else if (stmt instanceof Ast.If i) {
+                int toElse = branchIfFalse(i.condition);
+                stmt(i.thenBranch);
+                if (i.elseBranch != null) {
+                    int toEnd = jump(0xa7, 0); // goto
+                    bind(toElse);
+                    stmt(i.elseBranch);
+                    bind(toEnd);
+                } else {
+                    bind(toElse);
+                }
+            } else if (stmt instanceof Ast.While w) {
+                int start = size;
+                jumpTargets.add(start);
+                int toEnd = branchIfFalse(w.condition);
+                stmt(w.body);
+                // Interpreter.cancel() stops compiled loops too
+                op(0x19, 1); // aload
+                put(5);
+                op(0xb6, -1); // invokevirtual
+                u2(methodRef("Interpreter", "poll", "()V"));
+                int back = size;
+                op(0xa7, 0); // goto
+                u2(start - back);
+                bind(toEnd);
+            } else {
+                throw new Unsupported("statement " + stmt.getClass().getSimpleName());
+            }
+        }
+
+        // Emits the condition and a jump taken when it is false; returns the jump to bind
+        private int branchIfFalse(Ast.Expr condition) {
+            if (condition instanceof Ast.Binary b) {
+                switch (b.operator) {
+                    case GREATER -> { compare(b, 0x97); return jump(0x9e, -1); } // dcmpl, ifle
+                    case LESS -> { compare(b, 0x98); return jump(0x9c, -1); }    // dcmpg, ifge
+                    case EQUAL_EQUAL -> { compare(b, 0x97); return jump(0x9a, -1); } // dcmpl, ifne
+                    case BANG_EQUAL -> { compare(b, 0x97); return jump(0x99, -1); }  // dcmpl, ifeq
+                    default -> { }
+                }
+            }
+            expr(condition);
+            if (condition.integer) {
+                op(0x09, 2); // lconst_0
+                op(0x94, -3); // lcmp
+            } else {
+                op(0x0e, 2); // dconst_0
+                op(0x97, -3); // dcmpl (NaN counts as true, like the interpreter)
+            }
+            return jump(0x99, -1); // ifeq
+        }
+
+        // dcmpl or dcmpg, or Interpreter.compare with the same NaN result when both operands are integers
+        private void compare(Ast.Binary b, int opcode) {
+            if (b.left.integer && b.right.integer) {
+                expr(b.left);
+                expr(b.right);
+                op(opcode == 0x98 ? 0x04 : 0x02, 1); // iconst_1 or iconst_m1
+                op(0xb8, -4); // invokestatic
+                u2(methodRef("Interpreter", "compare", "(JJI)I"));
+            } else {
+                number(b.left);
+                number(b.right);
+                op(opcode, -3);
+            }
+        }
+
+        // Leaves the expression on the stack as a double
+        private void number(Ast.Expr expr) {
+            expr(expr);
+            if (expr.integer) {
+                op(0xb8, 0); // invokestatic
+                u2(methodRef("Interpreter", "decimal", "(J)D"));
+            }
+        }
+
+        private void expr(Ast.Expr expr) {
+            if (expr.array) throw new Unsupported("array expression");
+            if (expr instanceof Ast.NumberLiteral n && n.integer) {
+                long value = (long) n.value;
+                if (value == 0 || value == 1) {
+                    op(0x09 + (int) value, 2); // lconst_<n>
+                } else {
+                    op(0x14, 2); // ldc2_w
+                    u2(longConst(value));
+                }
+            } else if (expr instanceof Ast.NumberLiteral n) {
+                if (Double.doubleToRawLongBits(n.value) == 0L) {
+                    op(0x0e, 2); // dconst_0
+                } else if (n.value == 1.0) {
+                    op(0x0f, 2); // dconst_1
+                } else {
+                    op(0x14, 2); // ldc2_w
+                    u2(doubleConst(n.value));
+                }
+            } else if (expr instanceof Ast.Variable v && v.integer) {
+                if (v.checked) {
+                    op(0x2c, 1); // aload_2
+                    op(0x2d, 1); // aload_3
+                    intConst(v.slot);
+                    op(0x13, 1); // ldc_w
+                    u2(stringConst(v.name));
+                    op(0xb8, -2); // invokestatic
+                    u2(methodRef("Jit", "loadLong", "([J[ZILjava/lang/String;)J"));
+                } else {
+                    op(0x2c, 1); // aload_2
+                    intConst(v.slot);
+                    op(0x2f, 0); // laload
+                }
+            } else if (expr instanceof Ast.Variable v) {
+                if (v.checked) {
+                    op(0x2b, 1); // aload_1
+                    op(0x2d, 1); // aload_3
+                    intConst(v.slot);
+                    op(0x13, 1); // ldc_w
+                    u2(stringConst(v.name));
+                    op(0xb8, -2); // invokestatic
+                    u2(methodRef("Jit", "load", "([D[ZILjava/lang/String;)D"));
+                } else {
+                    op(0x2b, 1); // aload_1
+                    intConst(v.slot);
+                    op(0x31, 0); // daload
+                }
+            } else if (expr instanceof Ast.Binary b && b.integer) {
+                switch (b.operator) {
+                    case PLUS -> exact(b, "add");
+                    case MINUS -> exact(b, "subtract");
+                    case STAR -> exact(b, "multiply");
+                    case GREATER -> { // (cmp + 1) >> 1
+                        compare(b, 0x97);
+                        op(0x04, 1);
+                        op(0x60, -1);
+                        op(0x04, 1);
+                        op(0x7a, -1);
+                        op(0x85, 1); // i2l
+                    }
+                    case LESS -> { // (1 - cmp) >> 1
+                        compare(b, 0x98);
+                        op(0x74, 0);
+                        op(0x04, 1);
+                        op(0x60, -1);
+                        op(0x04, 1);
+                        op(0x7a, -1);
+                        op(0x85, 1);
+                    }
+                    case EQUAL_EQUAL -> { // (cmp * cmp) ^ 1
+                        compare(b, 0x97);
+                        op(0x59, 1);
+                        op(0x68, -1);
+                        op(0x04, 1);
+                        op(0x82, -1);
+                        op(0x85, 1);
+                    }
+                    case BANG_EQUAL -> { // cmp * cmp
+                        compare(b, 0x97);
+                        op(0x59, 1);
+                        op(0x68, -1);
+                        op(0x85, 1);
+                    }
+                    default -> throw new Unsupported("operator " + b.operator);
+                }
+            } else if (expr instanceof Ast.Binary b) {
+                number(b.left);
+                number(b.right);
+                switch (b.operator) {
+                    case PLUS -> op(0x63, -2);  // dadd
+                    case MINUS -> op(0x67, -2); // dsub
+                    case STAR -> op(0x6b, -2);  // dmul
+                    case SLASH -> op(0x6f, -2); // ddiv
+                    default -> throw new Unsupported("operator " + b.operator);
+                }
+            } else {
+                throw new Unsupported("expression " + expr.getClass().getSimpleName());
+            }
+        }
+
+        // Long arithmetic that falls back to doubles outside ±2^53, shared with the interpreter
+        private void exact(Ast.Binary b, String method) {
+            expr(b.left);
+            expr(b.right);
+            op(0xb8, -2); // invokestatic
+            u2(methodRef("Interpreter", method, "(JJ)J"));
+        }
+
+        private void intConst(int value) {
+            if (value <= 5) {
+                op(0x03 + value, 1); // iconst_<n>
+            } else if (value <= Byte.MAX_VALUE) {
+                op(0x10, 1); // bipush
+                put(value);
+            } else if (value <= Short.MAX_VALUE) {
+                op(0x11, 1); // sipush
+                u2(value);
+            } else {
+                throw new Unsupported("slot index " + value);
+            }
+        }
+
+        private void op(int opcode, int stackDelta) {
+            put(opcode);
+            depth += stackDelta;
+            if (depth > maxDepth) maxDepth = depth;
+        }
+
+        private void u2(int value) {
+            put(value >>> 8);
+            put(value);
+        }
+
+        private void put(int value) {
+            if (size == code.length) code = Arrays.copyOf(code, size * 2);
+            code[size++] = (byte) value;
+        }
+
+        // Emits a forward jump with a placeholder offset; returns its position for bind()
+        private int jump(int opcode, int stackDelta) {
+            int at = size;
+            op(opcode, stackDelta);
+            u2(0);
+            return at;
+        }
+
+        private void bind(int jumpAt) {
+            int offset = size - jumpAt;
+            if (offset > MAX_JUMP) throw new Unsupported("loop too large");
+            code[jumpAt + 1] = (byte) (offset >>> 8);
+            code[jumpAt + 2] = (byte) offset;
+            jumpTargets.add(size);
+        }
+
+        private int utf8(String value) {
+            return constant("U" + value, 1, new Object[] {1, value});
+        }
+
+        private int classRef(String internalName) {
+            int name = utf8(internalName);
+            return constant("C" + internalName, 1, new Object[] {7, name});
+        }
+
+        private int stringConst(String value) {
+            int utf = utf8(value);
+            return constant("S" + value, 1, new Object[] {8, utf});
+        }
+
+        private int doubleConst(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            return constant("D" + bits, 2, new Object[] {6, bits});
+        }
+
+        private int longConst(long value) {
+            return constant("J" + value, 2, new Object[] {5, value});
+        }
+
+        private int nameAndType(String name, String descriptor) {
+            int n = utf8(name);
+            int d = utf8(descriptor);
+            return constant("N" + name + ":" + descriptor, 1, new Object[] {12, n, d});
+        }
+
+        private int interfaceMethodRef(String owner, String name, String descriptor) {
+            int c = classRef(owner);
+            int nt = nameAndType(name, descriptor);
+            return constant("I" + owner + "." + name + ":" + descriptor, 1, new Object[] {11, c, nt});
+        }
+
+        private int methodRef(String owner, String name, String descriptor) {
+            int c = classRef(owner);
+            int nt = nameAndType(name, descriptor);
+            return constant("M" + owner + "." + name + ":" + descriptor, 1, new Object[] {10, c, nt});
+        }
+
+        private int constant(String key, int width, Object[] entry) {
+            Integer existing = poolIndex.get(key);
+            if (existing != null) return existing;
+            int index = poolSize;
+            pool.add(entry);
+            poolIndex.put(key, index);
+            poolSize += width;
+            return index;
+        }
+
+        private void writePool(DataOutputStream out) throws IOException {
+            out.writeShort(poolSize);
+            for (Object[] entry : pool) {
+                int tag = (Integer) entry[0];
+                out.writeByte(tag);
+                switch (tag) {
+                    case 1 -> out.writeUTF((String) entry[1]);
+                    case 5, 6 -> out.writeLong((Long) entry[1]);
+                    case 7, 8 -> out.writeShort((Integer) entry[1]);
+                    default -> {
+                        out.writeShort((Integer) entry[1]);
+                        out.writeShort((Integer) entry[2]);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+import java.util.Arrays;
+
+/**
+ * Entry point of the jar: runs {@link Main} with the arguments, or Emoji
+ * Studio when the first argument is {@code --studio}.
+ *
+ * The Studio is looked up by name, so a command-line run never loads it or
+ * the Swing and AWT classes behind it, and neither does the training run that
+ * builds the class-data archive ({@code mvn -Pcds package}).
+ */
+public class Launcher {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--studio")) {
+            Class.forName("EmojiStudio").getMethod("main", String[].class)
+                    .invoke(null, (Object) Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        Main.main(args);
+    }
+}
@@ -5,13 +5,19 @@ public class Lexer {
     private final String source;
     private final List<Token> tokens = new ArrayList<>();
     private int current = 0;
+    private int start = 0;
+    private int line = 1;
+    private int lineStart = 0;
 
     public Lexer(String source) {
         this.source = source;
     }
 
     public List<Token> lex() {
+        Telemetry.LexEvent event = Telemetry.recording() ? new Telemetry.LexEvent() : null;
+        if (event != null) event.begin();
         while (!isAtEnd()) {
+            start = current;
             String lexeme = advance();
             char c = lexeme.charAt(0);
             switch (lexeme) {
@@ -71,8 +77,69 @@ public class Lexer {
                 case ";":
                     add(Token.Type.SEMICOLON, ";");
                     break;
-                case " ": case "\r": case "\t": case "\n":
+                case "[":
+                    add(Token.Type.LBRACKET, "[");
+                    break;
+                case "]":
+                    add(Token.Type.RBRACKET, "]");
+                    break;
+                case ",":
+                    add(Token.Type.COMMA, ",");
+                    break;
+                case "📏":
+                    add(Token.Type.LENGTH, "📏");
+                    break;
+                case "🧮":
+                    add(Token.Type.SUM, "🧮");
+                    break;
+                case "🔻":
+                    add(Token.Type.MIN, "🔻");
+                    break;
+                case "🔺":
+                    add(Token.Type.MAX, "🔺");
+                    break;
+                case "📊":
+                    add(Token.Type.MEAN, "📊");
+                    break;
+                case "🔀":
+                    add(Token.Type.PARALLEL, "🔀");
+                    break;
+                case "🧩":
+                    add(Token.Type.FUNCTION, "🧩");
+                    break;
+                case "↩":
+                    add(Token.Type.RETURN, "↩️");
+                    break;
+                case "🧠":
+                    add(Token.Type.MEMO, "🧠");
+                    break;
+                case "🚀":
+                    add(Token.Type.SPAWN, "🚀");
+                    break;
+                case "⏳":
+                    add(Token.Type.AWAIT, "⏳");
+                    break;
+                case "📡":
+                    add(Token.Type.CHANNEL, "📡");
+                    break;
+                case "📤":
+                    add(Token.Type.SEND, "📤");
+                    break;
+                case "📥":
+                    add(Token.Type.RECEIVE, "📥");
+                    break;
+                case "📂":
+                    add(Token.Type.OPEN, "📂");
+                    break;
+                case "\"":
+                    string();
+                    break;
+                case " ": case "\r": case "\t":
                     break; // skip whitespace
+                case "\n":
+                    line++;
+                    lineStart = current;
+                    break;
                 default:
                     if (Character.isDigit(c)) {
                         number(c);
@@ -81,7 +148,11 @@ public class Lexer {
                     }
             }
         }
-        tokens.add(new Token(Token.Type.EOF, ""));
+        tokens.add(new Token(Token.Type.EOF, "", current, current, line, current - lineStart + 1));
+        if (event != null && event.shouldCommit()) {
+            event.tokens = tokens.size();
+            event.commit();
+        }
         return tokens;
     }
 
@@ -105,7 +176,7 @@ public class Lexer {
     }
 
     private void add(Token.Type type, String lexeme) {
-        tokens.add(new Token(type, lexeme));
+        tokens.add(new Token(type, lexeme, start, current, line, start - lineStart + 1));
     }
 
     private void number(char first) {
@@ -117,6 +188,16 @@ public class Lexer {
         add(Token.Type.NUMBER, sb.toString());
     }
 
+    // A lone quote, with no closing quote on its line, is skipped like other stray characters
+    private void string() {
+        int close = current;
+        while (close < source.length() && source.charAt(close) != '"' && source.charAt(close) != '\n') close++;
+        if (close == source.length() || source.charAt(close) != '"') return;
+        String text = source.substring(current, close);
+        current = close + 1;
+        add(Token.Type.STRING, text);
+    }
+
     private void identifier(char first) {
         StringBuilder sb = new StringBuilder();
         sb.append(first);
@@ -1,19 +1,323 @@
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class Main {
+    private static final String USAGE =
+            "Usage: java -jar emoji-lang.jar [--engine=tree|vm|jit|closure] [--lexer=list|stream] [--ast=object|flat] [-O0|-O1]"
+            + " [--cache] [--cache-dir=DIR] [--cache-stats] [--profile[=FOLDED-FILE]] [--jobs=N] [--stream] [--memo-stats] [--stats]"
+            + " [--connect[=SOCKET]] <source-file | - | directory | glob | @manifest>"
+            + "\n       java -jar emoji-lang.jar --daemon[=SOCKET] [--engine=...] [--cache] [--timeout=SECONDS]"
+            + "\n       java -jar emoji-lang.jar --studio";
+    private static final List<String> ENGINES = List.of("tree", "vm", "jit", "closure");
+    private static final int PROFILE_REPORT_ROWS = 20;
+
+    /** Settings shared by single-script and batch runs. */
+    static class Options {
+        String engine = "tree";
+        boolean optimize = true;
+        boolean streamLexer = false;
+        ProgramCache cache; // null unless caching
+        long timeoutSeconds = Daemon.DEFAULT_TIMEOUT_SECONDS; // per daemon request, 0 for none
+    }
+
     public static void main(String[] args) throws Exception {
-        if (args.length != 1) {
-            System.err.println("Usage: java -jar emoji-lang.jar <source-file>");
+        Options options = new Options();
+        boolean cache = false;
+        boolean cacheStats = false;
+        Path cacheDir = ProgramCache.defaultDirectory();
+        boolean profile = false;
+        boolean flatAst = false;
+        boolean stream = false;
+        boolean memoStats = false;
+        boolean stats = false;
+        Path profileFile = null;
+        int jobs = Runtime.getRuntime().availableProcessors();
+        Path daemonSocket = null;
+        Path connectSocket = null;
+        boolean timeout = false;
+        String file = null;
+        for (String arg : args) {
+            if (arg.startsWith("--engine=")) {
+                options.engine = arg.substring("--engine=".length());
+                if (!ENGINES.contains(options.engine)) usage();
+            } else if (arg.equals("--lexer=list") || arg.equals("--lexer=stream")) {
+                options.streamLexer = arg.equals("--lexer=stream");
+            } else if (arg.equals("--ast=object") || arg.equals("--ast=flat")) {
+                flatAst = arg.equals("--ast=flat");
+            } else if (arg.equals("-O0") || arg.equals("-O1")) {
+                options.optimize = arg.equals("-O1");
+            } else if (arg.equals("--cache")) {
+                cache = true;
+            } else if (arg.startsWith("--cache-dir=")) {
+                cache = true;
+                cacheDir = Path.of(arg.substring("--cache-dir=".length()));
+            } else if (arg.equals("--cache-stats")) {
+                cacheStats = true;
+            } else if (arg.equals("--profile")) {
+                profile = true;
+            } else if (arg.startsWith("--profile=")) {
+                profile = true;
+                profileFile = Path.of(arg.substring("--profile=".length()));
+            } else if (arg.equals("--stream")) {
+                stream = true;
+            } else if (arg.equals("--memo-stats")) {
+                memoStats = true;
+            } else if (arg.equals("--stats")) {
+                stats = true;
+            } else if (arg.startsWith("--jobs=")) {
+                jobs = Integer.parseInt(arg.substring("--jobs=".length()));
+                if (jobs < 1) usage();
+            } else if (arg.equals("--daemon") || arg.startsWith("--daemon=")) {
+                daemonSocket = socket(arg);
+            } else if (arg.startsWith("--timeout=")) {
+                timeout = true;
+                options.timeoutSeconds = Long.parseLong(arg.substring("--timeout=".length()));
+                if (options.timeoutSeconds < 0) usage();
+            } else if (arg.equals("--connect") || arg.startsWith("--connect=")) {
+                connectSocket = socket(arg);
+            } else if (file == null && (arg.equals("-") || !arg.startsWith("-"))) {
+                file = arg;
+            } else {
+                usage();
+            }
+        }
+        ProgramCache programCache = new ProgramCache(cacheDir);
+        if (file == null && cacheStats) {
+            System.err.println(programCache.stats());
+            return;
+        }
+        if (cache) options.cache = programCache;
+        if (daemonSocket != null) {
+            new Daemon(options, daemonSocket).serve();
+            return;
+        }
+        if (timeout) {
+            System.err.println("--timeout applies to --daemon requests");
             System.exit(1);
         }
-        String source = Files.readString(Path.of(args[0]));
-        Lexer lexer = new Lexer(source);
-        List<Token> tokens = lexer.lex();
+        if (file == null) usage();
+        if (profile && !options.engine.equals("tree")) {
+            System.err.println("--profile needs --engine=tree");
+            System.exit(1);
+        }
+        if (flatAst && (profile || !options.engine.equals("tree"))) {
+            System.err.println("--ast=flat runs on --engine=tree without --profile");
+            System.exit(1);
+        }
+        if (stream && (profile || flatAst || cache || !(options.engine.equals("tree") || options.engine.equals("jit")))) {
+            System.err.println("--stream runs on --engine=tree or jit without --profile, --ast=flat or --cache");
+            System.exit(1);
+        }
+        if (stats && (profile || flatAst || stream || cache || options.streamLexer)) {
+            System.err.println("--stats runs on --lexer=list without --profile, --ast=flat, --stream or --cache");
+            System.exit(1);
+        }
+
+        if (BatchRunner.isBatch(file)) {
+            if (profile || flatAst || stream || memoStats || stats) {
+                System.err.println((profile ? "--profile" : flatAst ? "--ast=flat" : stream ? "--stream"
+                        : memoStats ? "--memo-stats" : "--stats") + " runs a single script");
+                System.exit(1);
+            }
+            BufferedOutputStream stdout =
+                    new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), StreamOutput.DEFAULT_BUFFER_SIZE);
+            int failures = new BatchRunner(options, jobs).run(BatchRunner.scripts(file), stdout, System.err);
+            if (cache && cacheStats) System.err.println(programCache.stats());
+            if (failures > 0) System.exit(1);
+            return;
+        }
+
+        if (connectSocket != null && !profile && !flatAst && !stream && !memoStats && !stats) {
+            DaemonClient client = DaemonClient.connect(connectSocket);
+            if (client != null) {
+                int status = file.equals("-")
+                        ? client.runSource(System.in.readAllBytes(), options.engine, options.optimize)
+                        : client.runPath(Path.of(file), options.engine, options.optimize);
+                if (status != 0) System.exit(status);
+                return;
+            }
+            // No daemon listening: run in this process instead
+        }
+
+        if (stream) {
+            InputStreamReader reader = new InputStreamReader(
+                    file.equals("-") ? System.in : Files.newInputStream(Path.of(file)), StandardCharsets.UTF_8);
+            Interpreter interpreter = new StreamingRunner(options.engine, options.optimize).run(reader, StreamOutput.stdout());
+            if (memoStats) System.err.print(interpreter.memoStats());
+            return;
+        }
+
+        String stdin = file.equals("-") ? new String(System.in.readAllBytes(), StandardCharsets.UTF_8) : null;
+        if (stats) {
+            Interpreter interpreter = runWithStats(stdin != null ? stdin : Files.readString(Path.of(file)), options);
+            if (memoStats && interpreter != null) System.err.print(interpreter.memoStats());
+            return;
+        }
+        if (flatAst) {
+            String source = stdin != null ? stdin : Files.readString(Path.of(file));
+            FlatParser parser = options.streamLexer
+                    ? new FlatParser(new StreamLexer(source).tokens())
+                    : new FlatParser(new Lexer(source).lex());
+            new FlatInterpreter(parser.parse().resolve(), StreamOutput.stdout()).execute();
+            return;
+        }
+
+        List<Ast.Stmt> program = stdin != null
+                ? parse(stdin, options.streamLexer, options.optimize)
+                : load(Path.of(file), options);
+        if (cache && cacheStats) System.err.println(programCache.stats());
+        if (profile) {
+            Resolver resolver = new Resolver(program);
+            resolver.resolve();
+            Profiler profiler = new Profiler();
+            Interpreter interpreter = Interpreter.profiling(resolver.slotCount(), StreamOutput.stdout(), profiler);
+            try {
+                interpreter.execute(program);
+            } finally {
+                report(profiler, program, profileFile);
+            }
+            if (memoStats) System.err.print(interpreter.memoStats());
+            return;
+        }
+        Interpreter interpreter = run(program, options.engine, StreamOutput.stdout());
+        if (memoStats && interpreter != null) System.err.print(interpreter.memoStats());
+    }
+
+    /** Lexes, parses and optionally optimizes a script, going through the cache if one is set. */
+    static List<Ast.Stmt> load(Path file, Options options) throws IOException {
+        if (options.cache == null) {
+            if (options.streamLexer) return build(new Parser(StreamLexer.open(file).tokens()), options.optimize);
+            return parse(Files.readString(file), false, options.optimize);
+        }
+        byte[] source = Files.readAllBytes(file);
+        String key = ProgramCache.key(source, options.optimize);
+        long start = System.nanoTime();
+        ProgramCache.Entry entry = options.cache.load(key);
+        if (entry != null) {
+            options.cache.recordHit(entry.buildNanos, System.nanoTime() - start);
+            return entry.program;
+        }
+        start = System.nanoTime();
+        CharSequence text = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(source));
+        List<Ast.Stmt> program = parse(text, options.streamLexer, options.optimize);
+        options.cache.store(key, program, System.nanoTime() - start);
+        options.cache.recordMiss();
+        return program;
+    }
+
+    /**
+     * Resolves {@code program} and runs it on {@code engine}; the engine flushes {@code out} when done.
+     * Programs with arrays, {@code 🔀} loops, {@code 🧩} functions, channels or {@code 📂} inputs run on the tree
+     * walker when {@code vm} or {@code closure} is asked for. Returns the tree walker that ran it, or null.
+     */
+    static Interpreter run(List<Ast.Stmt> program, String engine, Output out) {
+        return run(program, engine, out, null, null);
+    }
+
+    /**
+     * Like {@link #run(List, String, Output)}, opening relative {@code 📂} names from {@code directory} (null for
+     * the working directory); unless it is null, {@code started} gets a way to stop the run, which then throws
+     * {@link java.util.concurrent.CancellationException}, just before it starts.
+     */
+    static Interpreter run(List<Ast.Stmt> program, String engine, Output out, Path directory,
+            Consumer<Runnable> started) {
+        Resolver resolver = new Resolver(program);
+        resolver.resolve();
+        if ((resolver.usesArrays() || resolver.usesParallel() || resolver.usesFunctions() || resolver.usesTasks()
+                || resolver.usesFiles())
+                && (engine.equals("vm") || engine.equals("closure"))) {
+            engine = "tree";
+        }
+        Interpreter interpreter = switch (engine) {
+            case "tree" -> new Interpreter(resolver.slotCount(), out);
+            case "jit" -> new Interpreter(resolver.slotCount(), out, new Jit());
+            case "vm" -> {
+                Chunk chunk = new Compiler().compile(program, resolver.slotNames());
+                VM vm = new VM(resolver.slotCount(), out);
+                if (started != null) started.accept(vm::cancel);
+                vm.run(chunk);
+                yield null;
+            }
+            case "closure" -> {
+                ClosureCompiler compiler = new ClosureCompiler(resolver.slotCount(), out, started != null);
+                Runnable compiled = compiler.compile(program);
+                if (started != null) started.accept(compiler::cancel);
+                compiled.run();
+                yield null;
+            }
+            default -> throw new IllegalArgumentException("Unknown engine: " + engine);
+        };
+        if (interpreter != null) {
+            interpreter.setDirectory(directory);
+            if (started != null) started.accept(interpreter::cancel);
+            interpreter.execute(program);
+        }
+        return interpreter;
+    }
+
+    /**
+     * Runs a script one phase at a time for {@code --stats}, then reports each phase's wall time and the bytes it
+     * allocated on this thread to stderr, with the parser's counts and, on the tree walker, the run's.
+     */
+    static Interpreter runWithStats(String source, Options options) {
+        Telemetry.Stats stats = new Telemetry.Stats();
+        List<Token> tokens = stats.phase("lex", () -> new Lexer(source).lex());
         Parser parser = new Parser(tokens);
+        List<Ast.Stmt> parsed = stats.phase("parse", parser::parse);
+        List<Ast.Stmt> program = options.optimize ? stats.phase("optimize", () -> new Optimizer().optimize(parsed)) : parsed;
+        Interpreter interpreter = stats.phase("execute", () -> run(program, options.engine, StreamOutput.stdout()));
+        stats.count("tokens", tokens.size());
+        stats.count("statements", parser.statementCount());
+        if (interpreter != null) {
+            stats.count("executed", interpreter.statementCount());
+            stats.count("loop iterations", interpreter.iterationCount());
+            stats.count("printed", interpreter.printCount());
+        }
+        System.err.print(stats);
+        return interpreter;
+    }
+
+    // Lexes, parses and optionally optimizes; the result is what ProgramCache stores
+    static List<Ast.Stmt> parse(CharSequence source, boolean streamLexer, boolean optimize) {
+        Parser parser = streamLexer
+                ? new Parser(new StreamLexer(source).tokens())
+                : new Parser(new Lexer(source.toString()).lex());
+        return build(parser, optimize);
+    }
+
+    private static List<Ast.Stmt> build(Parser parser, boolean optimize) {
         List<Ast.Stmt> program = parser.parse();
-        Interpreter interpreter = new Interpreter();
-        interpreter.execute(program);
+        if (optimize) program = new Optimizer().optimize(program);
+        return program;
+    }
+
+    // Hot spots go to stderr, collapsed stacks to the optional file
+    private static void report(Profiler profiler, List<Ast.Stmt> program, Path folded) throws IOException {
+        System.err.print(profiler.report(PROFILE_REPORT_ROWS));
+        if (folded == null) return;
+        try (Writer writer = Files.newBufferedWriter(folded)) {
+            profiler.writeCollapsed(program, writer);
+        }
+    }
+
+    // --daemon / --connect with an optional =SOCKET
+    private static Path socket(String arg) {
+        int equals = arg.indexOf('=');
+        return equals < 0 ? Daemon.defaultSocket() : Path.of(arg.substring(equals + 1));
+    }
+
+    private static void usage() {
+        System.err.println(USAGE);
+        System.exit(1);
     }
 }
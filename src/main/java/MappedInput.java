@@ -0,0 +1,259 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file of numbers opened by {@code 📂}, read through memory mappings so that
+ * files of many gigabytes never come onto the heap. A name ending in
+ * {@code .f64} or {@code .bin} holds raw little-endian doubles; anything else
+ * is text, numbers separated by whitespace or commas.
+ *
+ * The aggregations run in one pass over the mapped bytes on first use and are
+ * kept, since the file is not expected to change while a script reads it.
+ * {@link #sum} adds in the same order as {@link ArrayKernels#sum}, so an input
+ * sums to the same result as an array holding its numbers.
+ *
+ * {@link #get} reads doubles directly; text is scanned from the element read
+ * last, so reading a text input in order costs one pass over it.
+ */
+public class MappedInput {
+    static final int CHUNK_BITS = 30; // 1 GiB mappings, whole doubles and whole sum groups each
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+            1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+
+    private final String path;
+    private final ByteBuffer[] chunks;
+    private final long size;
+    private final boolean binary;
+
+    private boolean aggregated;
+    private long count = -1; // known up front for doubles, after the first pass for text
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    // Text cursor: element 'next' is the first at or after byte 'position'; 'current' is element next - 1
+    private long next;
+    private long position;
+    private double current;
+    private double value; // the number the last scan read
+
+    private MappedInput(String path, ByteBuffer[] chunks, long size, boolean binary) {
+        this.path = path;
+        this.chunks = chunks;
+        this.size = size;
+        this.binary = binary;
+        if (binary) count = size / Double.BYTES;
+    }
+
+    public static MappedInput open(String path) {
+        boolean binary = path.endsWith(".f64") || path.endsWith(".bin");
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (binary && size % Double.BYTES != 0) {
+                throw new RuntimeException("📂 " + path + " holds " + size + " bytes, not a whole number of doubles");
+            }
+            ByteBuffer[] chunks = new ByteBuffer[(int) ((size + CHUNK_MASK) >>> CHUNK_BITS)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = (long) i << CHUNK_BITS;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, 1L << CHUNK_BITS))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new MappedInput(path, chunks, size, binary);
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("Cannot open 📂 " + path + ": no such file");
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot open 📂 " + path + ": " + e.getMessage());
+        }
+    }
+
+    /** Number of elements. */
+    public long count() {
+        if (count < 0) aggregate();
+        return count;
+    }
+
+    public double sum() {
+        aggregate();
+        return sum;
+    }
+
+    /** Smallest element, as {@code Math.min} ranks them; {@code +∞} if there are none. */
+    public double min() {
+        aggregate();
+        return min;
+    }
+
+    /** Largest element, as {@code Math.max} ranks them; {@code -∞} if there are none. */
+    public double max() {
+        aggregate();
+        return max;
+    }
+
+    public double mean() {
+        aggregate();
+        return sum / count;
+    }
+
+    /** Element {@code index}, which must be a whole number within the input. */
+    public double get(double index) {
+        if (index != (long) index) throw new RuntimeException("Index must be an integer: " + index);
+        long i = (long) index;
+        if (binary) {
+            if (i < 0 || i >= count) throw outOfBounds(i);
+            long offset = i * Double.BYTES;
+            return chunks[(int) (offset >>> CHUNK_BITS)].getDouble((int) (offset & CHUNK_MASK));
+        }
+        if (i < 0) throw outOfBounds(i);
+        if (i == next - 1) return current;
+        if (i < next) {
+            next = 0;
+            position = 0;
+        }
+        while (next <= i) {
+            long end = scan(position);
+            if (end < 0) {
+                count = next;
+                throw outOfBounds(i);
+            }
+            position = end;
+            next++;
+        }
+        current = value;
+        return current;
+    }
+
+    private RuntimeException outOfBounds(long index) {
+        return new RuntimeException("Index " + index + " out of bounds for 📂 " + path
+                + (count < 0 ? "" : " of length " + count));
+    }
+
+    // Counts, sums in ArrayKernels.SUM_LANES interleaved partial sums, and finds the extremes in one pass
+    private void aggregate() {
+        if (aggregated) return;
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        double sum;
+        if (binary) {
+            ByteBuffer last = null;
+            int tail = 0;
+            for (ByteBuffer chunk : chunks) {
+                int bytes = chunk.limit();
+                int bound = bytes - bytes % (ArrayKernels.SUM_LANES * Double.BYTES);
+                for (int i = 0; i < bound; i += ArrayKernels.SUM_LANES * Double.BYTES) {
+                    double v0 = chunk.getDouble(i), v1 = chunk.getDouble(i + 8);
+                    double v2 = chunk.getDouble(i + 16), v3 = chunk.getDouble(i + 24);
+                    s0 += v0;
+                    s1 += v1;
+                    s2 += v2;
+                    s3 += v3;
+                    min = Math.min(Math.min(min, v0), Math.min(Math.min(v1, v2), v3));
+                    max = Math.max(Math.max(max, v0), Math.max(Math.max(v1, v2), v3));
+                }
+                last = chunk;
+                tail = bound;
+            }
+            sum = s0 + s1 + s2 + s3;
+            for (int i = tail; last != null && i < last.limit(); i += Double.BYTES) {
+                double v = last.getDouble(i);
+                sum += v;
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+        } else {
+            // Each group of four is added once complete; the last 0 to 3 numbers are added after the lanes
+            double p0 = 0, p1 = 0, p2 = 0;
+            long n = 0;
+            for (long pos = scan(0); pos >= 0; pos = scan(pos)) {
+                double v = value;
+                switch ((int) (n++ & 3)) {
+                    case 0 -> p0 = v;
+                    case 1 -> p1 = v;
+                    case 2 -> p2 = v;
+                    default -> {
+                        s0 += p0;
+                        s1 += p1;
+                        s2 += p2;
+                        s3 += v;
+                    }
+                }
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+            sum = s0 + s1 + s2 + s3;
+            int rest = (int) (n & 3);
+            if (rest > 0) sum += p0;
+            if (rest > 1) sum += p1;
+            if (rest > 2) sum += p2;
+            count = n;
+        }
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        aggregated = true;
+    }
+
+    private byte byteAt(long pos) {
+        return chunks[(int) (pos >>> CHUNK_BITS)].get((int) (pos & CHUNK_MASK));
+    }
+
+    private static boolean separator(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == ',';
+    }
+
+    // Reads the text number at or after 'pos' into 'value' and returns the offset just past it, or -1 at the end
+    private long scan(long pos) {
+        while (pos < size && separator(byteAt(pos))) pos++;
+        if (pos == size) return -1;
+        long start = pos;
+        byte b = byteAt(pos);
+        boolean negative = b == '-';
+        if (b == '-' || b == '+') pos++;
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1; // digits after the point, -1 before it
+        boolean simple = true;
+        for (; pos < size && !separator(b = byteAt(pos)); pos++) {
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (decimals >= 0) decimals++;
+            } else if (b == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                simple = false;
+            }
+        }
+        if (simple && digits > 0 && digits < POWERS_OF_TEN.length) {
+            // Both operands are exact doubles, so the quotient is correctly rounded, as parseDouble's would be
+            double magnitude = mantissa / POWERS_OF_TEN[Math.max(decimals, 0)];
+            value = negative ? -magnitude : magnitude;
+        } else {
+            value = parse(start, pos);
+        }
+        return pos;
+    }
+
+    // Exponents and long mantissas
+    private double parse(long start, long end) {
+        byte[] bytes = new byte[(int) Math.min(end - start, 64)];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = byteAt(start + i);
+        String text = new String(bytes, StandardCharsets.ISO_8859_1);
+        boolean numeric = end - start <= 64;
+        for (byte b : bytes) {
+            numeric &= (b >= '0' && b <= '9') || b == '.' || b == 'e' || b == 'E' || b == '-' || b == '+';
+        }
+        try {
+            if (numeric) return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new RuntimeException("Not a number in 📂 " + path + " at byte " + start + ": " + text);
+    }
+}
@@ -0,0 +1,88 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Results of one {@code 🧠} function by its arguments, keeping the
+ * {@link #CAPACITY} most recently used and counting hits, misses and
+ * evictions.
+ *
+ * Arguments and results are kept as raw bits: integers as they are, decimals
+ * through {@link Double#doubleToLongBits}, so {@code 0} and {@code -0} stay
+ * apart and every NaN is the same key.
+ */
+public class MemoCache {
+    static final int CAPACITY = 4096;
+
+    private final String name;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private final LinkedHashMap<Key, Long> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+            if (size() <= CAPACITY) return false;
+            evictions++;
+            return true;
+        }
+    };
+
+    private record Key(long[] bits) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && Arrays.equals(bits, key.bits);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(bits);
+        }
+    }
+
+    public MemoCache(String name) {
+        this.name = name;
+    }
+
+    /** The key for the arguments in a frame: integer parameters from {@code longs}, the rest from {@code values}. */
+    public long[] key(long[] longs, double[] values, boolean[] integerParams) {
+        long[] bits = new long[integerParams.length];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = integerParams[i] ? longs[i] : Double.doubleToLongBits(values[i]);
+        }
+        return bits;
+    }
+
+    /** The result bits stored for {@code key}, or null on a miss. */
+    public Long get(long[] key) {
+        Long result = entries.get(new Key(key));
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    public void put(long[] key, long result) {
+        entries.put(new Key(key), result);
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    public long evictions() {
+        return evictions;
+    }
+
+    @Override
+    public String toString() {
+        long calls = hits + misses;
+        return String.format("🧠 %s: %d calls, %.1f%% hits, %d evictions, %d cached",
+                name, calls, calls == 0 ? 0.0 : 100.0 * hits / calls, evictions, entries.size());
+    }
+}
@@ -0,0 +1,326 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rewrites a parsed program before it is resolved ({@code -O1}).
+ *
+ * <ul>
+ *   <li>folds {@code Binary} nodes whose operands are literals;</li>
+ *   <li>replaces cheap operations with simpler ones ({@code x ✖️ 1} to
+ *       {@code x}, {@code x ✖️ 2} to {@code x ➕ x});</li>
+ *   <li>drops {@code ❓} branches and {@code 🔁} loops whose condition is a
+ *       constant that never selects them, unless they assign a variable,
+ *       since the assignments still decide whether it holds integers;</li>
+ *   <li>hoists loop-invariant expressions out of {@code 🔁} loops into
+ *       temporaries evaluated once, just after the loop is known to run.</li>
+ * </ul>
+ *
+ * Only rewrites that give bit-identical results and keep every expression's
+ * integer or decimal type (see {@link Resolver}) are applied, so output is the
+ * same as with {@code -O0}.
+ */
+public class Optimizer {
+    // Not a valid identifier in source, so it cannot clash with user variables
+    static final String TEMP_PREFIX = "$t";
+
+    private int tempCount = 0;
+    // Reduction variables of the enclosing 🔀, whose updates must keep their r == r OP e shape
+    private Set<String> reductions = Set.of();
+
+    public List<Ast.Stmt> optimize(List<Ast.Stmt> statements) {
+        List<Ast.Stmt> result = new ArrayList<>(statements.size());
+        for (Ast.Stmt stmt : statements) {
+            Ast.Stmt optimized = stmt(stmt);
+            if (optimized != null) result.add(optimized);
+        }
+        return result;
+    }
+
+    // Returns null for statements that can be removed entirely
+    private Ast.Stmt stmt(Ast.Stmt stmt) {
+        if (stmt instanceof Ast.VarAssign s) {
+            if (reductions.contains(s.name) && s.value instanceof Ast.Binary b) {
+                return Ast.at(new Ast.VarAssign(s.name, Ast.at(new Ast.Binary(b.left, b.operator, expr(b.right)), b)), s);
+            }
+            return Ast.at(new Ast.VarAssign(s.name, expr(s.value)), s);
+        }
+        if (stmt instanceof Ast.Print s) {
+            return Ast.at(new Ast.Print(expr(s.value)), s);
+        }
+        if (stmt instanceof Ast.IndexAssign s) {
+            return Ast.at(new Ast.IndexAssign(s.target, expr(s.index), expr(s.value)), s);
+        }
+        if (stmt instanceof Ast.Block b) {
+            List<Ast.Stmt> inner = optimize(b.statements);
+            return inner.isEmpty() ? null : Ast.at(new Ast.Block(inner), b);
+        }
+        if (stmt instanceof Ast.If i) {
+            Ast.Expr condition = expr(i.condition);
+            if (condition instanceof Ast.NumberLiteral n && !assigns(n.value != 0 ? i.elseBranch : i.thenBranch)) {
+                if (n.value != 0) return stmt(i.thenBranch);
+                return i.elseBranch == null ? null : stmt(i.elseBranch);
+            }
+            Ast.Stmt thenBranch = orEmpty(stmt(i.thenBranch));
+            Ast.Stmt elseBranch = i.elseBranch == null ? null : stmt(i.elseBranch);
+            return Ast.at(new Ast.If(condition, thenBranch, elseBranch), i);
+        }
+        if (stmt instanceof Ast.While w) {
+            Ast.Expr condition = expr(w.condition);
+            if (condition instanceof Ast.NumberLiteral n && n.value == 0) {
+                return assigns(w.body) ? Ast.at(new Ast.While(condition, orEmpty(stmt(w.body))), w) : null;
+            }
+            return hoist(Ast.at(new Ast.While(condition, orEmpty(stmt(w.body))), w));
+        }
+        if (stmt instanceof Ast.Parallel p) {
+            reductions = new HashSet<>();
+            for (Ast.Variable v : p.reductions) reductions.add(v.name);
+            Ast.Stmt body = orEmpty(stmt(p.body));
+            reductions = Set.of();
+            return Ast.at(new Ast.Parallel(p.name, expr(p.start), expr(p.end), p.reductions, p.operators, body), p);
+        }
+        if (stmt instanceof Ast.Function f) {
+            return Ast.at(new Ast.Function(f.name, f.params, orEmpty(stmt(f.body)), f.memo), f);
+        }
+        if (stmt instanceof Ast.Return r) {
+            return Ast.at(new Ast.Return(expr(r.value)), r);
+        }
+        if (stmt instanceof Ast.Send s) {
+            return Ast.at(new Ast.Send(expr(s.channel), expr(s.value)), s);
+        }
+        if (stmt instanceof Ast.Open o) return Ast.at(new Ast.Open(o.name, o.path), o);
+        throw new RuntimeException("Unknown statement type: " + stmt.getClass());
+    }
+
+    // The Binary rewrites hold element-wise too, so they need not know which operands are arrays
+    private Ast.Expr expr(Ast.Expr expr) {
+        if (expr instanceof Ast.ArrayLiteral a) {
+            List<Ast.Expr> elements = new ArrayList<>(a.elements.size());
+            for (Ast.Expr element : a.elements) elements.add(expr(element));
+            return Ast.at(new Ast.ArrayLiteral(elements), a);
+        }
+        if (expr instanceof Ast.ArrayFill f) return Ast.at(new Ast.ArrayFill(expr(f.value), expr(f.count)), f);
+        if (expr instanceof Ast.Index i) return Ast.at(new Ast.Index(expr(i.array), expr(i.index)), i);
+        if (expr instanceof Ast.Reduction r) return Ast.at(new Ast.Reduction(r.operator, expr(r.operand)), r);
+        if (expr instanceof Ast.Call c) {
+            List<Ast.Expr> args = new ArrayList<>(c.args.size());
+            for (Ast.Expr arg : c.args) args.add(expr(arg));
+            return Ast.at(new Ast.Call(c.name, args), c);
+        }
+        if (expr instanceof Ast.Spawn s) return Ast.at(new Ast.Spawn((Ast.Call) expr(s.call)), s);
+        if (expr instanceof Ast.Await a) return Ast.at(new Ast.Await(expr(a.task)), a);
+        if (expr instanceof Ast.NewChannel c) return Ast.at(new Ast.NewChannel(expr(c.capacity)), c);
+        if (expr instanceof Ast.Receive r) return Ast.at(new Ast.Receive(expr(r.channel)), r);
+        if (!(expr instanceof Ast.Binary b)) return expr;
+        Ast.Expr left = expr(b.left);
+        Ast.Expr right = expr(b.right);
+        if (left instanceof Ast.NumberLiteral l && right instanceof Ast.NumberLiteral r) {
+            double value = fold(b.operator, l.value, r.value);
+            // A literal's type follows from its value, so 4 ➗ 2 must stay a decimal division
+            boolean integer = Resolver.isInteger(b.operator, Resolver.isInteger(l.value), Resolver.isInteger(r.value));
+            if (Resolver.isInteger(value) == integer) return Ast.at(new Ast.NumberLiteral(value), b);
+        }
+        switch (b.operator) {
+            case STAR -> {
+                if (isLiteral(right, 1)) return left;
+                if (isLiteral(left, 1)) return right;
+                if (isLiteral(right, 2) && left instanceof Ast.Variable) return Ast.at(new Ast.Binary(left, Token.Type.PLUS, left), b);
+                if (isLiteral(left, 2) && right instanceof Ast.Variable) return Ast.at(new Ast.Binary(right, Token.Type.PLUS, right), b);
+            }
+            case MINUS -> {
+                // x - 0 keeps the sign of -0.0; x + 0 would not
+                if (isLiteral(right, 0)) return left;
+            }
+            default -> { }
+        }
+        return Ast.at(new Ast.Binary(left, b.operator, right), b);
+    }
+
+    /**
+     * Rewrites {@code 🔁 c { body }} as {@code ❓ c { $t0 == e; 🔁 c' { body' } }}
+     * for invariant expressions {@code e}. Candidates come only from the condition
+     * and the leading assignments of the body, which always run on the first
+     * iteration, so hoisting never evaluates anything the loop would not. The
+     * guard evaluates {@code c} once more than the loop would, so loops whose
+     * condition calls a function or uses a task operator are left alone.
+     * Collecting stops at the first operation in the body that stays in the
+     * loop, so an undefined variable or bad index is still reported for the same
+     * expression as without hoisting.
+     */
+    private Ast.Stmt hoist(Ast.While loop) {
+        if (hasEffects(loop.condition)) return loop;
+        Set<String> assigned = new HashSet<>();
+        assignedNames(loop.body, assigned);
+        Map<String, Ast.Expr> invariants = new LinkedHashMap<>();
+        collectInvariants(loop.condition, assigned, invariants);
+        List<Ast.Stmt> body = loop.body instanceof Ast.Block b ? b.statements : List.of(loop.body);
+        for (Ast.Stmt stmt : body) {
+            if (!(stmt instanceof Ast.VarAssign s) || !collectInvariants(s.value, assigned, invariants)) break;
+        }
+        if (invariants.isEmpty()) return loop;
+
+        Map<String, String> temps = new LinkedHashMap<>();
+        List<Ast.Stmt> guarded = new ArrayList<>();
+        for (Map.Entry<String, Ast.Expr> invariant : invariants.entrySet()) {
+            String temp = TEMP_PREFIX + tempCount++;
+            temps.put(invariant.getKey(), temp);
+            guarded.add(Ast.at(new Ast.VarAssign(temp, invariant.getValue()), invariant.getValue()));
+        }
+        guarded.add(Ast.at(new Ast.While(replace(loop.condition, temps), replace(loop.body, temps)), loop));
+        return Ast.at(new Ast.If(loop.condition, Ast.at(new Ast.Block(guarded), loop), null), loop);
+    }
+
+    // In evaluation order; false once an operation that is not hoisted, and so may fail first, has run
+    private boolean collectInvariants(Ast.Expr expr, Set<String> assigned, Map<String, Ast.Expr> into) {
+        if (isInvariant(expr, assigned)) {
+            if (expr instanceof Ast.Binary) into.putIfAbsent(key(expr), expr);
+            return true;
+        }
+        if (expr instanceof Ast.Binary b) {
+            if (collectInvariants(b.left, assigned, into)) collectInvariants(b.right, assigned, into);
+            return false;
+        }
+        return expr instanceof Ast.Variable;
+    }
+
+    private static boolean isInvariant(Ast.Expr expr, Set<String> assigned) {
+        if (expr instanceof Ast.Variable v) return !assigned.contains(v.name);
+        if (expr instanceof Ast.Binary b) return isInvariant(b.left, assigned) && isInvariant(b.right, assigned);
+        if (expr instanceof Ast.Index i) return isInvariant(i.array, assigned) && isInvariant(i.index, assigned);
+        if (expr instanceof Ast.Reduction r) return isInvariant(r.operand, assigned);
+        if (expr instanceof Ast.ArrayFill f) return isInvariant(f.value, assigned) && isInvariant(f.count, assigned);
+        if (expr instanceof Ast.ArrayLiteral a) {
+            for (Ast.Expr element : a.elements) if (!isInvariant(element, assigned)) return false;
+        }
+        // A call may print, or cost more than the loop saves when the loop runs once; task operators act
+        return !(expr instanceof Ast.Call || expr instanceof Ast.Spawn || expr instanceof Ast.Await
+                || expr instanceof Ast.NewChannel || expr instanceof Ast.Receive);
+    }
+
+    // Whether evaluating expr twice could do something once would not: a 🧩 call may print, and task operators act
+    private static boolean hasEffects(Ast.Expr expr) {
+        if (expr instanceof Ast.Call || expr instanceof Ast.Spawn || expr instanceof Ast.Await
+                || expr instanceof Ast.NewChannel || expr instanceof Ast.Receive) {
+            return true;
+        }
+        if (expr instanceof Ast.Binary b) return hasEffects(b.left) || hasEffects(b.right);
+        if (expr instanceof Ast.Index i) return hasEffects(i.array) || hasEffects(i.index);
+        if (expr instanceof Ast.Reduction r) return hasEffects(r.operand);
+        if (expr instanceof Ast.ArrayFill f) return hasEffects(f.value) || hasEffects(f.count);
+        if (expr instanceof Ast.ArrayLiteral a) {
+            for (Ast.Expr element : a.elements) if (hasEffects(element)) return true;
+        }
+        return false;
+    }
+
+    // Whether a branch or loop body that never runs still gives a variable a type (null for a missing ❌ branch)
+    private static boolean assigns(Ast.Stmt stmt) {
+        if (stmt == null) return false;
+        Set<String> names = new HashSet<>();
+        assignedNames(stmt, names);
+        return !names.isEmpty();
+    }
+
+    private static void assignedNames(Ast.Stmt stmt, Set<String> into) {
+        if (stmt instanceof Ast.VarAssign s) {
+            into.add(s.name);
+        } else if (stmt instanceof Ast.IndexAssign s) {
+            into.add(s.target.name); // changes the array in place
+        } else if (stmt instanceof Ast.Block b) {
+            for (Ast.Stmt inner : b.statements) assignedNames(inner, into);
+        } else if (stmt instanceof Ast.If i) {
+            assignedNames(i.thenBranch, into);
+            if (i.elseBranch != null) assignedNames(i.elseBranch, into);
+        } else if (stmt instanceof Ast.While w) {
+            assignedNames(w.body, into);
+        } else if (stmt instanceof Ast.Parallel p) {
+            into.add(p.name);
+            assignedNames(p.body, into);
+        }
+    }
+
+    private static Ast.Stmt replace(Ast.Stmt stmt, Map<String, String> temps) {
+        if (stmt instanceof Ast.VarAssign s) return Ast.at(new Ast.VarAssign(s.name, replace(s.value, temps)), s);
+        if (stmt instanceof Ast.Print s) return Ast.at(new Ast.Print(replace(s.value, temps)), s);
+        if (stmt instanceof Ast.IndexAssign s) {
+            return Ast.at(new Ast.IndexAssign(s.target, replace(s.index, temps), replace(s.value, temps)), s);
+        }
+        if (stmt instanceof Ast.Block b) {
+            List<Ast.Stmt> inner = new ArrayList<>(b.statements.size());
+            for (Ast.Stmt s : b.statements) inner.add(replace(s, temps));
+            return Ast.at(new Ast.Block(inner), b);
+        }
+        if (stmt instanceof Ast.If i) {
+            return Ast.at(new Ast.If(replace(i.condition, temps), replace(i.thenBranch, temps),
+                    i.elseBranch == null ? null : replace(i.elseBranch, temps)), i);
+        }
+        if (stmt instanceof Ast.While w) return Ast.at(new Ast.While(replace(w.condition, temps), replace(w.body, temps)), w);
+        if (stmt instanceof Ast.Parallel p) {
+            return Ast.at(new Ast.Parallel(p.name, replace(p.start, temps), replace(p.end, temps), p.reductions, p.operators,
+                    replace(p.body, temps)), p);
+        }
+        if (stmt instanceof Ast.Return r) return Ast.at(new Ast.Return(replace(r.value, temps)), r);
+        if (stmt instanceof Ast.Send s) return Ast.at(new Ast.Send(replace(s.channel, temps), replace(s.value, temps)), s);
+        // Only allowed at the top level, which Resolver reports
+        if (stmt instanceof Ast.Function || stmt instanceof Ast.Open) return stmt;
+        throw new RuntimeException("Unknown statement type: " + stmt.getClass());
+    }
+
+    private static Ast.Expr replace(Ast.Expr expr, Map<String, String> temps) {
+        if (!(expr instanceof Ast.Binary b)) return expr;
+        String temp = temps.get(key(expr));
+        if (temp != null) return Ast.at(new Ast.Variable(temp), expr);
+        return Ast.at(new Ast.Binary(replace(b.left, temps), b.operator, replace(b.right, temps)), b);
+    }
+
+    // Structural key, so repeated occurrences of an expression share one temporary
+    private static String key(Ast.Expr expr) {
+        if (expr instanceof Ast.NumberLiteral n) return "#" + Long.toHexString(Double.doubleToRawLongBits(n.value));
+        if (expr instanceof Ast.Variable v) return v.name;
+        if (expr instanceof Ast.Index i) return key(i.array) + "[" + key(i.index) + "]";
+        if (expr instanceof Ast.Reduction r) return "(" + r.operator + " " + key(r.operand) + ")";
+        if (expr instanceof Ast.ArrayFill f) return "[" + key(f.value) + ";" + key(f.count) + "]";
+        if (expr instanceof Ast.ArrayLiteral a) {
+            StringBuilder sb = new StringBuilder("[");
+            for (Ast.Expr element : a.elements) sb.append(key(element)).append(',');
+            return sb.append(']').toString();
+        }
+        if (expr instanceof Ast.Call c) {
+            StringBuilder sb = new StringBuilder(c.name).append('(');
+            for (Ast.Expr arg : c.args) sb.append(key(arg)).append(',');
+            return sb.append(')').toString();
+        }
+        if (expr instanceof Ast.Spawn s) return "🚀" + key(s.call);
+        if (expr instanceof Ast.Await a) return "(⏳ " + key(a.task) + ")";
+        if (expr instanceof Ast.NewChannel c) return "(📡 " + key(c.capacity) + ")";
+        if (expr instanceof Ast.Receive r) return "(📥 " + key(r.channel) + ")";
+        Ast.Binary b = (Ast.Binary) expr;
+        return "(" + key(b.left) + " " + b.operator + " " + key(b.right) + ")";
+    }
+
+    private static Ast.Stmt orEmpty(Ast.Stmt stmt) {
+        return stmt == null ? new Ast.Block(List.of()) : stmt;
+    }
+
+    private static boolean isLiteral(Ast.Expr expr, double value) {
+        return expr instanceof Ast.NumberLiteral n
+                && Double.doubleToRawLongBits(n.value) == Double.doubleToRawLongBits(value);
+    }
+
+    private static double fold(Token.Type operator, double left, double right) {
+        return switch (operator) {
+            case PLUS -> left + right;
+            case MINUS -> left - right;
+            case STAR -> left * right;
+            case SLASH -> left / right;
+            case GREATER -> left > right ? 1.0 : 0.0;
+            case LESS -> left < right ? 1.0 : 0.0;
+            case EQUAL_EQUAL -> left == right ? 1.0 : 0.0;
+            case BANG_EQUAL -> left != right ? 1.0 : 0.0;
+            default -> throw new RuntimeException("Unsupported operator: " + operator);
+        };
+    }
+}
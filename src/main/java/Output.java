@@ -0,0 +1,22 @@
+/**
+ * Destination for values printed by {@code 📢}. Implementations buffer, so
+ * the engines call {@link #flush()} when a program finishes.
+ */
+public interface Output {
+    void print(double value);
+
+    /**
+     * Prints an integer expression's value, without a fraction: {@code 5}; one that overflowed to a decimal
+     * (see {@link Interpreter#isExact}) prints like that decimal.
+     */
+    void print(long value);
+
+    /** Prints an array value as one line: {@code [1.0, 2.5, 3.0]}. */
+    void print(double[] values);
+
+    void flush();
+
+    default void close() {
+        flush();
+    }
+}
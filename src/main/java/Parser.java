@@ -1,40 +1,99 @@
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 public class Parser {
-    private final List<Token> tokens;
-    private int current = 0;
+    /** Binding power of each binary operator, indexed by {@code Token.Type} ordinal; 0 for everything else. */
+    static final int[] PRECEDENCE = new int[Token.Type.values().length];
+
+    static {
+        PRECEDENCE[Token.Type.EQUAL_EQUAL.ordinal()] = 1;
+        PRECEDENCE[Token.Type.BANG_EQUAL.ordinal()] = 1;
+        PRECEDENCE[Token.Type.GREATER.ordinal()] = 2;
+        PRECEDENCE[Token.Type.LESS.ordinal()] = 2;
+        PRECEDENCE[Token.Type.PLUS.ordinal()] = 3;
+        PRECEDENCE[Token.Type.MINUS.ordinal()] = 3;
+        PRECEDENCE[Token.Type.STAR.ordinal()] = 4;
+        PRECEDENCE[Token.Type.SLASH.ordinal()] = 4;
+    }
+
+    // Tokens are pulled on demand; only the current and previous token are kept
+    private final Iterator<Token> tokens;
+    private Token current;
+    private Token previous;
+    private int tokenCount;
+    private int statementCount;
 
     public Parser(List<Token> tokens) {
+        this(tokens.iterator());
+    }
+
+    public Parser(Iterator<Token> tokens) {
         this.tokens = tokens;
+        this.current = tokens.next();
+        tokenCount = 1;
     }
 
     public List<Ast.Stmt> parse() {
+        Telemetry.ParseEvent event = Telemetry.recording() ? new Telemetry.ParseEvent() : null;
+        if (event != null) event.begin();
         List<Ast.Stmt> statements = new ArrayList<>();
+        for (Ast.Stmt stmt = next(); stmt != null; stmt = next()) statements.add(stmt);
+        if (event != null && event.shouldCommit()) {
+            event.tokens = tokenCount;
+            event.statements = statementCount;
+            event.commit();
+        }
+        return statements;
+    }
+
+    /** Tokens read so far, including the end marker once it is reached. */
+    public int tokenCount() {
+        return tokenCount;
+    }
+
+    /** Statements parsed so far, nested ones included. */
+    public int statementCount() {
+        return statementCount;
+    }
+
+    /** Parses the next top-level statement, or returns null at the end of the input. */
+    public Ast.Stmt next() {
         while (!isAtEnd()) {
             // Skip stray semicolons at the top level
-            if (match(Token.Type.SEMICOLON)) continue;
-            statements.add(statement());
+            if (!match(Token.Type.SEMICOLON)) return statement();
         }
-        return statements;
+        return null;
     }
 
     private Ast.Stmt statement() {
+        statementCount++;
         if (match(Token.Type.ASSIGN)) {
+            Token keyword = previous();
             Token name = consume(Token.Type.IDENTIFIER, "Expected identifier after 📦");
+            Ast.Expr index = null;
+            if (match(Token.Type.LBRACKET)) {
+                index = expression();
+                consume(Token.Type.RBRACKET, "Expected ']' after index");
+            }
             consume(Token.Type.EQUAL_EQUAL, "Expected '=' transformed to '==' after identifier (simplified parser)");
             Ast.Expr value = expression();
             // Optional semicolon after assignment
             match(Token.Type.SEMICOLON);
-            return new Ast.VarAssign(name.lexeme, value);
+            if (index != null) {
+                return at(new Ast.IndexAssign(at(new Ast.Variable(name.lexeme), name), index, value), keyword);
+            }
+            return at(new Ast.VarAssign(name.lexeme, value), keyword);
         }
         if (match(Token.Type.PRINT)) {
+            Token keyword = previous();
             Ast.Expr value = expression();
             // Optional semicolon after print
             match(Token.Type.SEMICOLON);
-            return new Ast.Print(value);
+            return at(new Ast.Print(value), keyword);
         }
         if (match(Token.Type.IF)) {
+            Token keyword = previous();
             Ast.Expr cond = expression();
             Ast.Stmt thenBranch = statementOrBlock();
             Ast.Stmt elseBranch = null;
@@ -42,109 +101,220 @@ public class Parser {
             if (match(Token.Type.IDENTIFIER) && "else".equals(previous().lexeme)) {
                 elseBranch = statementOrBlock();
             }
-            return new Ast.If(cond, thenBranch, elseBranch);
+            return at(new Ast.If(cond, thenBranch, elseBranch), keyword);
         }
         if (match(Token.Type.WHILE)) {
+            Token keyword = previous();
             Ast.Expr cond = expression();
             Ast.Stmt body = statementOrBlock();
-            return new Ast.While(cond, body);
+            return at(new Ast.While(cond, body), keyword);
+        }
+        if (match(Token.Type.PARALLEL)) {
+            return parallel(previous());
+        }
+        if (match(Token.Type.MEMO)) {
+            Token marker = previous();
+            consume(Token.Type.FUNCTION, "Expected 🧩 after 🧠");
+            return function(marker, true);
+        }
+        if (match(Token.Type.FUNCTION)) {
+            return function(previous(), false);
+        }
+        if (match(Token.Type.SEND)) {
+            Token keyword = previous();
+            Ast.Expr channel = expression();
+            consume(Token.Type.COMMA, "Expected ',' after 📤 channel");
+            Ast.Expr value = expression();
+            match(Token.Type.SEMICOLON);
+            return at(new Ast.Send(channel, value), keyword);
+        }
+        if (match(Token.Type.OPEN)) {
+            Token keyword = previous();
+            Token name = consume(Token.Type.IDENTIFIER, "Expected identifier after 📂");
+            consume(Token.Type.EQUAL_EQUAL, "Expected '==' after 📂 " + name.lexeme);
+            Token path = consume(Token.Type.STRING, "Expected a file name in double quotes after 📂 " + name.lexeme + " ==");
+            match(Token.Type.SEMICOLON);
+            return at(new Ast.Open(name.lexeme, path.lexeme), keyword);
+        }
+        if (match(Token.Type.RETURN)) {
+            Token keyword = previous();
+            Ast.Expr value = expression();
+            match(Token.Type.SEMICOLON);
+            return at(new Ast.Return(value), keyword);
         }
         // Fallback: either a block or an expression statement
         if (check(Token.Type.LBRACE)) {
             return block();
         }
+        Token first = peek();
         Ast.Expr expr = expression();
         match(Token.Type.SEMICOLON);
         // Currently, only assignments/prints are meaningful; treat bare expr as print for convenience
-        return new Ast.Print(expr);
+        return at(new Ast.Print(expr), first);
+    }
+
+    // 🔀 [➕ total, ✖️ product] i == start, end body
+    private Ast.Stmt parallel(Token keyword) {
+        List<Ast.Variable> reductions = new ArrayList<>();
+        List<Token.Type> operators = new ArrayList<>();
+        if (match(Token.Type.LBRACKET)) {
+            do {
+                if (!match(Token.Type.PLUS) && !match(Token.Type.STAR)) {
+                    throw new RuntimeException("Expected ➕ or ✖️ before a reduction variable, found " + peek());
+                }
+                operators.add(previous().type);
+                Token name = consume(Token.Type.IDENTIFIER, "Expected reduction variable");
+                reductions.add(at(new Ast.Variable(name.lexeme), name));
+            } while (match(Token.Type.COMMA));
+            consume(Token.Type.RBRACKET, "Expected ']' after reductions");
+        }
+        Token name = consume(Token.Type.IDENTIFIER, "Expected identifier after 🔀");
+        consume(Token.Type.EQUAL_EQUAL, "Expected '==' after 🔀 variable");
+        Ast.Expr start = expression();
+        consume(Token.Type.COMMA, "Expected ',' between 🔀 bounds");
+        Ast.Expr end = expression();
+        Ast.Stmt body = statementOrBlock();
+        return at(new Ast.Parallel(name.lexeme, start, end, reductions, operators, body), keyword);
+    }
+
+    // 🧩 name(a, b) body; the 🧩 (and any 🧠 before it) has been consumed
+    private Ast.Stmt function(Token keyword, boolean memo) {
+        Token name = consume(Token.Type.IDENTIFIER, "Expected function name after 🧩");
+        consume(Token.Type.LPAREN, "Expected '(' after function name");
+        List<String> params = new ArrayList<>();
+        if (!check(Token.Type.RPAREN)) {
+            do {
+                params.add(consume(Token.Type.IDENTIFIER, "Expected parameter name").lexeme);
+            } while (match(Token.Type.COMMA));
+        }
+        consume(Token.Type.RPAREN, "Expected ')' after parameters");
+        Ast.Stmt body = statementOrBlock();
+        return at(new Ast.Function(name.lexeme, params, body, memo), keyword);
     }
 
     private Ast.Stmt statementOrBlock() {
         if (match(Token.Type.LBRACE)) {
+            Token brace = previous();
             // We consumed the '{', parse a full block body
             List<Ast.Stmt> stmts = new ArrayList<>();
             while (!check(Token.Type.RBRACE) && !isAtEnd()) {
                 stmts.add(statement());
             }
             consume(Token.Type.RBRACE, "Expected '}'");
-            return new Ast.Block(stmts);
+            return at(new Ast.Block(stmts), brace);
         }
         // Single statement body (no braces)
         return statement();
     }
 
     private Ast.Stmt block() {
-        consume(Token.Type.LBRACE, "Expected '{'");
+        Token brace = consume(Token.Type.LBRACE, "Expected '{'");
         List<Ast.Stmt> stmts = new ArrayList<>();
         while (!check(Token.Type.RBRACE) && !isAtEnd()) {
             stmts.add(statement());
         }
         consume(Token.Type.RBRACE, "Expected '}'");
-        return new Ast.Block(stmts);
+        return at(new Ast.Block(stmts), brace);
     }
 
     private Ast.Expr expression() {
-        return equality();
+        return expression(0);
     }
 
-    private Ast.Expr equality() {
-        Ast.Expr expr = comparison();
-        while (match(Token.Type.EQUAL_EQUAL, Token.Type.BANG_EQUAL)) {
-            Token.Type op = previous().type;
-            Ast.Expr right = comparison();
-            expr = new Ast.Binary(expr, op, right);
+    // Pratt loop: left-associative binary operators whose precedence is above minPrecedence
+    private Ast.Expr expression(int minPrecedence) {
+        Ast.Expr expr = primary();
+        int precedence;
+        while ((precedence = PRECEDENCE[peek().type.ordinal()]) > minPrecedence) {
+            Token op = advance();
+            Ast.Expr right = expression(precedence);
+            expr = at(new Ast.Binary(expr, op.type, right), op);
         }
         return expr;
     }
 
-    private Ast.Expr comparison() {
-        Ast.Expr expr = term();
-        while (match(Token.Type.GREATER, Token.Type.LESS)) {
-            Token.Type op = previous().type;
-            Ast.Expr right = term();
-            expr = new Ast.Binary(expr, op, right);
+    // Prefix reductions and task operators, then an atom followed by any number of [index] suffixes
+    private Ast.Expr primary() {
+        if (match(Token.Type.LENGTH) || match(Token.Type.SUM) || match(Token.Type.MIN) || match(Token.Type.MAX)
+                || match(Token.Type.MEAN)) {
+            Token op = previous();
+            return at(new Ast.Reduction(op.type, primary()), op);
         }
-        return expr;
-    }
-
-    private Ast.Expr term() {
-        Ast.Expr expr = factor();
-        while (match(Token.Type.PLUS, Token.Type.MINUS)) {
-            Token.Type op = previous().type;
-            Ast.Expr right = factor();
-            expr = new Ast.Binary(expr, op, right);
+        if (match(Token.Type.SPAWN)) {
+            Token op = previous();
+            Token name = consume(Token.Type.IDENTIFIER, "Expected a function call after 🚀");
+            consume(Token.Type.LPAREN, "Expected '(' after 🚀 " + name.lexeme);
+            return at(new Ast.Spawn((Ast.Call) call(name)), op);
         }
-        return expr;
-    }
-
-    private Ast.Expr factor() {
-        Ast.Expr expr = primary();
-        while (match(Token.Type.STAR, Token.Type.SLASH)) {
-            Token.Type op = previous().type;
-            Ast.Expr right = primary();
-            expr = new Ast.Binary(expr, op, right);
+        if (match(Token.Type.AWAIT) || match(Token.Type.CHANNEL) || match(Token.Type.RECEIVE)) {
+            Token op = previous();
+            Ast.Expr operand = primary();
+            return at(switch (op.type) {
+                case AWAIT -> new Ast.Await(operand);
+                case CHANNEL -> new Ast.NewChannel(operand);
+                default -> new Ast.Receive(operand);
+            }, op);
+        }
+        Ast.Expr expr = atom();
+        while (match(Token.Type.LBRACKET)) {
+            Token bracket = previous();
+            Ast.Expr index = expression();
+            consume(Token.Type.RBRACKET, "Expected ']' after index");
+            expr = at(new Ast.Index(expr, index), bracket);
         }
         return expr;
     }
 
-    private Ast.Expr primary() {
+    private Ast.Expr atom() {
+        if (match(Token.Type.LBRACKET)) return array(previous());
         if (match(Token.Type.NUMBER)) {
-            return new Ast.NumberLiteral(Double.parseDouble(previous().lexeme));
+            return at(new Ast.NumberLiteral(Double.parseDouble(previous().lexeme)), previous());
         }
         if (match(Token.Type.IDENTIFIER)) {
-            return new Ast.Variable(previous().lexeme);
+            Token name = previous();
+            if (match(Token.Type.LPAREN)) return call(name);
+            return at(new Ast.Variable(name.lexeme), name);
         }
         throw new RuntimeException("Unexpected token: " + peek());
     }
 
-    private boolean match(Token.Type... types) {
-        for (Token.Type type : types) {
-            if (check(type)) {
-                advance();
-                return true;
+    // name(a, b); the '(' has been consumed
+    private Ast.Expr call(Token name) {
+        List<Ast.Expr> args = new ArrayList<>();
+        if (!check(Token.Type.RPAREN)) {
+            do {
+                args.add(expression());
+            } while (match(Token.Type.COMMA));
+        }
+        consume(Token.Type.RPAREN, "Expected ')' after arguments");
+        return at(new Ast.Call(name.lexeme, args), name);
+    }
+
+    // [a, b, c] or [value ; count]; the '[' has been consumed
+    private Ast.Expr array(Token bracket) {
+        List<Ast.Expr> elements = new ArrayList<>();
+        if (!check(Token.Type.RBRACKET)) {
+            Ast.Expr first = expression();
+            if (match(Token.Type.SEMICOLON)) {
+                Ast.Expr count = expression();
+                consume(Token.Type.RBRACKET, "Expected ']' after array size");
+                return at(new Ast.ArrayFill(first, count), bracket);
             }
+            elements.add(first);
+            while (match(Token.Type.COMMA)) elements.add(expression());
         }
-        return false;
+        consume(Token.Type.RBRACKET, "Expected ']' after array elements");
+        return at(new Ast.ArrayLiteral(elements), bracket);
+    }
+
+    private static <T extends Ast.Node> T at(T node, Token token) {
+        return Ast.at(node, token.line, token.column);
+    }
+
+    private boolean match(Token.Type type) {
+        if (!check(type)) return false;
+        advance();
+        return true;
     }
 
     private boolean check(Token.Type type) {
@@ -153,8 +323,12 @@ public class Parser {
     }
 
     private Token advance() {
-        if (!isAtEnd()) current++;
-        return previous();
+        if (!isAtEnd()) {
+            previous = current;
+            current = tokens.next();
+            tokenCount++;
+        }
+        return previous;
     }
 
     private boolean isAtEnd() {
@@ -162,11 +336,11 @@ public class Parser {
     }
 
     private Token peek() {
-        return tokens.get(current);
+        return current;
     }
 
     private Token previous() {
-        return tokens.get(current - 1);
+        return previous;
     }
 
     private Token consume(Token.Type type, String message) {
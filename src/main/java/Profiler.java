@@ -0,0 +1,187 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Execution profile gathered by an {@link Interpreter} that was given one.
+ *
+ * Each statement gets an execution count plus inclusive and self wall time,
+ * and each expression an evaluation count, keyed by node identity and labelled
+ * with the node's source position. The copies of a function body that
+ * {@link Resolver} makes for each argument signature count as the body
+ * itself. Blocks are not timed; their overhead shows up in the enclosing
+ * statement's self time.
+ */
+public class Profiler {
+    public static class Stats {
+        public final Ast.Node node;
+        public long count;
+        public long inclusiveNanos;
+        public long selfNanos;
+
+        Stats(Ast.Node node) {
+            this.node = node;
+        }
+    }
+
+    private final Map<Ast.Node, Stats> stats = new IdentityHashMap<>();
+
+    // Statements currently executing, innermost last
+    private Stats[] stack = new Stats[32];
+    private long[] starts = new long[32];
+    private long[] childNanos = new long[32];
+    private int depth;
+
+    void enter(Ast.Stmt stmt) {
+        Stats s = stats(stmt);
+        s.count++;
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+            starts = Arrays.copyOf(starts, depth * 2);
+            childNanos = Arrays.copyOf(childNanos, depth * 2);
+        }
+        stack[depth] = s;
+        childNanos[depth] = 0;
+        starts[depth] = System.nanoTime();
+        depth++;
+    }
+
+    void exit() {
+        depth--;
+        long elapsed = System.nanoTime() - starts[depth];
+        Stats s = stack[depth];
+        s.inclusiveNanos += elapsed;
+        s.selfNanos += elapsed - childNanos[depth];
+        if (depth > 0) childNanos[depth - 1] += elapsed;
+    }
+
+    void evaluated(Ast.Expr expr) {
+        stats(expr).count++;
+    }
+
+    private Stats stats(Ast.Node node) {
+        if (node.original != null) node = node.original; // a version of a 🧩 body counts as the body
+        Stats s = stats.get(node);
+        if (s == null) {
+            s = new Stats(node);
+            stats.put(node, s);
+        }
+        return s;
+    }
+
+    public List<Stats> statements() {
+        List<Stats> result = new ArrayList<>();
+        for (Stats s : stats.values()) if (s.node instanceof Ast.Stmt) result.add(s);
+        result.sort(Comparator.comparingLong((Stats s) -> s.selfNanos).reversed());
+        return result;
+    }
+
+    public List<Stats> expressions() {
+        List<Stats> result = new ArrayList<>();
+        for (Stats s : stats.values()) if (s.node instanceof Ast.Expr) result.add(s);
+        result.sort(Comparator.comparingLong((Stats s) -> s.count).reversed());
+        return result;
+    }
+
+    /** Hot spots: the top {@code limit} statements by self time and expressions by evaluation count. */
+    public String report(int limit) {
+        List<Stats> statements = statements();
+        long total = 0;
+        for (Stats s : statements) total += s.selfNanos;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Statements by self time (%.2f ms total)%n", total / 1e6));
+        sb.append(String.format("%10s %7s %10s %12s  %-10s %s%n", "self ms", "self %", "incl ms", "count", "line:col", "statement"));
+        for (Stats s : statements.subList(0, Math.min(limit, statements.size()))) {
+            sb.append(String.format("%10.3f %6.1f%% %10.3f %12d  %-10s %s%n", s.selfNanos / 1e6,
+                    total == 0 ? 0.0 : 100.0 * s.selfNanos / total, s.inclusiveNanos / 1e6, s.count,
+                    position(s.node), label(s.node)));
+        }
+        List<Stats> expressions = expressions();
+        sb.append(String.format("%nExpressions by evaluations%n"));
+        sb.append(String.format("%12s  %-10s %s%n", "count", "line:col", "expression"));
+        for (Stats s : expressions.subList(0, Math.min(limit, expressions.size()))) {
+            sb.append(String.format("%12d  %-10s %s%n", s.count, position(s.node), label(s.node)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes self time in microseconds per statement stack, one
+     * {@code frame;frame;frame micros} line each, as read by flame-graph tools.
+     */
+    public void writeCollapsed(List<Ast.Stmt> program, Appendable out) throws IOException {
+        for (Ast.Stmt stmt : program) collapse(stmt, "", out);
+    }
+
+    private void collapse(Ast.Stmt stmt, String prefix, Appendable out) throws IOException {
+        String path = prefix;
+        if (!(stmt instanceof Ast.Block)) {
+            Stats s = stats.get(stmt);
+            if (s == null) return; // never ran, and neither did anything inside it
+            path = (prefix.isEmpty() ? "" : prefix + ";") + label(stmt) + " " + position(stmt);
+            long micros = s.selfNanos / 1000;
+            if (micros > 0) out.append(path).append(' ').append(Long.toString(micros)).append('\n');
+        }
+        if (stmt instanceof Ast.Block b) {
+            for (Ast.Stmt inner : b.statements) collapse(inner, path, out);
+        } else if (stmt instanceof Ast.If i) {
+            collapse(i.thenBranch, path, out);
+            if (i.elseBranch != null) collapse(i.elseBranch, path, out);
+        } else if (stmt instanceof Ast.While w) {
+            collapse(w.body, path, out);
+        } else if (stmt instanceof Ast.Parallel p) {
+            collapse(p.body, path, out);
+        } else if (stmt instanceof Ast.Function f) {
+            // Calls run the body from anywhere, so its statements are filed under the definition
+            collapse(f.body, path, out);
+        }
+    }
+
+    private static String position(Ast.Node node) {
+        return node.line + ":" + node.column;
+    }
+
+    /** Short display text for a node: its keyword, operator, name or value. */
+    static String label(Ast.Node node) {
+        if (node instanceof Ast.VarAssign s) return "📦 " + s.name;
+        if (node instanceof Ast.IndexAssign s) return "📦 " + s.target.name + "[]";
+        if (node instanceof Ast.Print) return "📢";
+        if (node instanceof Ast.If) return "❓";
+        if (node instanceof Ast.While) return "🔁";
+        if (node instanceof Ast.Parallel p) return "🔀 " + p.name;
+        if (node instanceof Ast.Function f) return (f.memo ? "🧠 🧩 " : "🧩 ") + f.name;
+        if (node instanceof Ast.Return) return "↩️";
+        if (node instanceof Ast.Call c) return c.name + "()";
+        if (node instanceof Ast.Send) return "📤";
+        if (node instanceof Ast.Open o) return "📂 " + o.name;
+        if (node instanceof Ast.Spawn s) return "🚀 " + s.call.name + "()";
+        if (node instanceof Ast.Await) return "⏳";
+        if (node instanceof Ast.NewChannel) return "📡";
+        if (node instanceof Ast.Receive) return "📥";
+        if (node instanceof Ast.Block) return "{ }";
+        if (node instanceof Ast.Variable v) return v.name;
+        if (node instanceof Ast.NumberLiteral n) return n.integer ? String.valueOf((long) n.value) : String.valueOf(n.value);
+        if (node instanceof Ast.ArrayLiteral a) return "[" + a.elements.size() + "]";
+        if (node instanceof Ast.ArrayFill) return "[;]";
+        if (node instanceof Ast.Index) return "[]";
+        if (node instanceof Ast.Reduction r) return r.operator.symbol();
+        if (node instanceof Ast.Binary b) {
+            return switch (b.operator) {
+                case PLUS -> "➕";
+                case MINUS -> "➖";
+                case STAR -> "✖️";
+                case SLASH -> "➗";
+                case GREATER -> ">";
+                case LESS -> "<";
+                case EQUAL_EQUAL -> "==";
+                case BANG_EQUAL -> "!=";
+                default -> b.operator.toString();
+            };
+        }
+        return node.getClass().getSimpleName();
+    }
+}
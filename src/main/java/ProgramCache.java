@@ -0,0 +1,215 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk cache of parsed (and optionally optimized) programs, keyed by a
+ * SHA-256 of the source plus {@link #LANGUAGE_VERSION}, so repeat runs of the
+ * same script skip the {@link Lexer} and {@link Parser}.
+ *
+ * Entries are written to a temporary file and moved into place. Each entry
+ * carries a header (magic, format and language version, key, payload length,
+ * CRC32); anything that fails validation or decoding is deleted and treated
+ * as a miss, so it is rebuilt on the spot. Hit/miss counters, time saved and
+ * time spent loading hits are kept across runs in a small stats file.
+ */
+public class ProgramCache {
+    /** Bump when the syntax or semantics of the language change. */
+    public static final String LANGUAGE_VERSION = "0.8.0";
+
+    private static final int MAGIC = 0x454D4A43; // "EMJC"
+    private static final String SUFFIX = ".emjc";
+    private static final String STATS_FILE = "stats.bin";
+    private static final Object STATS_LOCK = new Object();
+
+    private final Path directory;
+
+    public ProgramCache(Path directory) {
+        this.directory = directory;
+    }
+
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".cache", "emoji-lang");
+    }
+
+    /** A cached program and how long it originally took to build. */
+    public static class Entry {
+        public final List<Ast.Stmt> program;
+        public final long buildNanos;
+
+        Entry(List<Ast.Stmt> program, long buildNanos) {
+            this.program = program;
+            this.buildNanos = buildNanos;
+        }
+    }
+
+    /** Cumulative counters across all runs sharing the cache directory. */
+    public static class Stats {
+        public final long hits;
+        public final long misses;
+        public final long savedNanos;
+        public final long loadNanos; // spent reading and decoding hits
+
+        Stats(long hits, long misses, long savedNanos, long loadNanos) {
+            this.hits = hits;
+            this.misses = misses;
+            this.savedNanos = savedNanos;
+            this.loadNanos = loadNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("cache: %d hits, %d misses, %.1f ms saved, %.1f ms loading", hits, misses,
+                    savedNanos / 1e6, loadNanos / 1e6);
+        }
+    }
+
+    /** Cache key for a source file; {@code optimized} separates -O0 and -O1 entries. */
+    public static String key(byte[] source, boolean optimized) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((LANGUAGE_VERSION + "/" + AstCodec.FORMAT_VERSION + "/" + (optimized ? "O1" : "O0") + "\0")
+                    .getBytes(StandardCharsets.UTF_8));
+            digest.update(source);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Returns the cached entry, or null if it is missing, stale or corrupt. */
+    public Entry load(String key) {
+        Path path = directory.resolve(key + SUFFIX);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(path);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            if (in.readInt() != MAGIC) throw new IOException("bad magic");
+            if (in.readInt() != AstCodec.FORMAT_VERSION) throw new IOException("format version");
+            if (!in.readUTF().equals(LANGUAGE_VERSION)) throw new IOException("language version");
+            if (!in.readUTF().equals(key)) throw new IOException("key mismatch");
+            long buildNanos = in.readLong();
+            int length = in.readInt();
+            long checksum = in.readLong();
+            int offset = bytes.length - in.available();
+            if (length != bytes.length - offset) throw new IOException("truncated");
+            CRC32 crc = new CRC32();
+            crc.update(bytes, offset, length);
+            if (crc.getValue() != checksum) throw new IOException("checksum");
+            List<Ast.Stmt> program = AstCodec.read(new DataInputStream(new ByteArrayInputStream(bytes, offset, length)));
+            return new Entry(program, buildNanos);
+        } catch (IOException | RuntimeException e) {
+            // Stale or corrupt: drop it so the caller rebuilds and stores a fresh entry
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+                // another run may be replacing it
+            }
+            return null;
+        }
+    }
+
+    public void store(String key, List<Ast.Stmt> program, long buildNanos) {
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            AstCodec.write(program, new DataOutputStream(payload));
+            byte[] body = payload.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(body);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + 128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(AstCodec.FORMAT_VERSION);
+            out.writeUTF(LANGUAGE_VERSION);
+            out.writeUTF(key);
+            out.writeLong(buildNanos);
+            out.writeInt(body.length);
+            out.writeLong(crc.getValue());
+            out.write(body);
+
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temp, bytes.toByteArray());
+            Files.move(temp, directory.resolve(key + SUFFIX),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Counts a hit that took {@code loadNanos} to load an entry built in {@code buildNanos}. A build on a cold JVM
+     * includes loading the lexer's and parser's classes, which a hit may pay for while decoding instead, so a hit
+     * can be slower than the build it replaced; it then saves nothing rather than a negative amount.
+     */
+    public Stats recordHit(long buildNanos, long loadNanos) {
+        return updateStats(1, 0, Math.max(0, buildNanos - loadNanos), loadNanos);
+    }
+
+    public Stats recordMiss() {
+        return updateStats(0, 1, 0, 0);
+    }
+
+    public Stats stats() {
+        return updateStats(0, 0, 0, 0);
+    }
+
+    // Read-modify-write under a file lock so concurrent runs do not lose counts. A file lock belongs to the whole
+    // JVM, and a second thread locking the same file gets OverlappingFileLockException instead of waiting, so the
+    // threads of one process (batch workers, daemon requests) first take turns on STATS_LOCK.
+    private Stats updateStats(long hits, long misses, long savedNanos, long loadNanos) {
+        synchronized (STATS_LOCK) {
+            try {
+                Files.createDirectories(directory);
+                try (FileChannel channel = FileChannel.open(directory.resolve(STATS_FILE),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    FileLock lock = channel.lock();
+                    try {
+                        ByteBuffer buffer = ByteBuffer.allocate(32);
+                        while (buffer.hasRemaining() && channel.read(buffer) >= 0) { }
+                        buffer.flip();
+                        if (buffer.remaining() >= 24) {
+                            hits += buffer.getLong();
+                            misses += buffer.getLong();
+                            savedNanos += buffer.getLong();
+                            if (buffer.hasRemaining()) loadNanos += buffer.getLong(); // absent from older files
+                        }
+                        buffer.clear();
+                        buffer.putLong(hits).putLong(misses).putLong(savedNanos).putLong(loadNanos).flip();
+                        channel.position(0);
+                        while (buffer.hasRemaining()) channel.write(buffer);
+                        return new Stats(hits, misses, savedNanos, loadNanos);
+                    } finally {
+                        lock.release();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
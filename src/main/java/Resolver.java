@@ -0,0 +1,796 @@
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Assigns every variable a slot in the interpreter's {@code double[]} frame.
+ *
+ * Reading a name that is never assigned anywhere in the program is reported
+ * here. Reads that may run before the first assignment (for example a name
+ * that is only assigned later in a loop body) are marked as checked, and the
+ * interpreter tests those at run time instead.
+ *
+ * Inputs passed to the constructor take the first slots and count as assigned
+ * before the program starts.
+ *
+ * A variable holds either numbers or arrays for the whole program: it is an
+ * array variable if any assignment gives it an array. Every expression's
+ * {@code array} flag is set here, and mixing the two kinds is reported.
+ *
+ * Number variables are typed one top-level statement at a time, from the
+ * statements up to it: a variable is an integer until the first statement
+ * whose assignments give it something that is not a whole number. Literals,
+ * {@code ➕ ➖ ✖️} of integers, comparisons and {@code 📏} are integers;
+ * {@code ➗}, array elements and reductions other than {@code 📏} are decimals,
+ * and so are inputs. The {@code integer} flags set here let engines keep
+ * those values in {@code long}s and print them without a fraction, and
+ * {@code Stmt.widen} lists the variables whose values an engine moves over
+ * to decimals before the statement runs.
+ *
+ * A {@code 🔀} body runs on several threads, so it may only write variables
+ * that are local to 🔀 bodies (assigned there before being read, and never
+ * used outside one) and update its reduction variables as
+ * {@code 📦 r == r ➕ e} (or {@code ✖️}) without reading them otherwise.
+ * Everything else it reads is shared and read-only while it runs. Printing
+ * and nesting another 🔀 inside are rejected.
+ *
+ * {@link #resolveNext} resolves a program one top-level statement at a time
+ * instead, with the same types: a variable read must be assigned by an
+ * earlier or the same statement, and an array variable stays one.
+ *
+ * A {@code 🧩} function sees only its parameters and its own variables, which
+ * take slots in a frame of its own, parameters first. Functions are defined at
+ * the top level and may be called before their definition (with
+ * {@link #resolveNext}, only after it). They work on numbers only. A function
+ * is typed separately for each signature it is called with (which arguments
+ * are integers), each in a copy of its body, so a call's type depends only on
+ * its arguments and not on the program's other calls: inside, a variable is
+ * an integer when every assignment gives it one, and the result when every
+ * {@code ↩️} does. The definition itself is resolved with decimal parameters,
+ * so errors in a function nobody calls are reported too. A {@code 🧠} function
+ * must not print or use tasks and channels, directly or through the functions
+ * it calls.
+ *
+ * {@code 🚀} starts a call as a task; it and {@code 📡} give integer handles,
+ * while {@code ⏳} and {@code 📥} give decimals. None of them, nor {@code 📤},
+ * may appear in a {@code 🔀} body.
+ *
+ * A {@code 📂} input has a name of its own, which no variable may share. It is
+ * opened by a top-level statement and used only by {@code 📏 🧮 🔻 🔺 📊} and
+ * {@code [index]} after that statement, outside functions and {@code 🔀} bodies.
+ */
+public class Resolver {
+    private final List<Ast.Stmt> statements;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final int inputCount;
+    private final List<Assignment> assignments = new ArrayList<>();
+    private final List<Ast.Call> calls = new ArrayList<>(); // outside functions, so their versions get typed
+    private final BitSet arrays = new BitSet();
+    private final BitSet integers = new BitSet();
+    private final BitSet temps = new BitSet(); // Optimizer temporaries, local to one top-level statement
+    private final BitSet assigned = new BitSet(); // definitely assigned after the statements resolved so far
+    private boolean usesArrays;
+    private final BitSet shared = new BitSet(); // used outside 🔀 bodies
+    private final BitSet local = new BitSet(); // written inside 🔀 bodies
+    private final BitSet readEarly = new BitSet(); // read in a 🔀 body where it may not be assigned yet
+    private Ast.Parallel parallel; // the 🔀 whose body is being resolved
+    private Ast.Variable reductionRead; // the r in 📦 r == r ➕ e being resolved
+    private boolean usesParallel;
+    private boolean usesTasks;
+    private final Map<String, Scope> functions = new LinkedHashMap<>();
+    private final List<Version> versions = new ArrayList<>(); // in order of creation
+    private int typedVersions; // versions whose types are final
+    private int resolvedVersions; // versions whose bodies are resolved
+    private Scope scope; // the function whose body is being resolved
+    private Version version; // the version of it being resolved
+    private final Map<String, Integer> files = new HashMap<>(); // 📂 inputs, numbered in order of appearance
+    private final BitSet opened = new BitSet(); // 📂 inputs opened by the statements resolved so far
+
+    // A value stored into a variable's slot, a function's frame slot, or (slot -1) returned by ↩️
+    private record Assignment(Ast.Expr value, int slot, String name) {}
+
+    private static final class Scope {
+        final Ast.Function function;
+        final Map<String, Integer> locals = new HashMap<>();
+        final List<Assignment> assignments = new ArrayList<>();
+        final List<Ast.Call> calls = new ArrayList<>();
+        final Map<String, Version> versions = new HashMap<>(); // by signature
+        final Set<Scope> callees = new HashSet<>();
+        String effect; // the first 📢 or task operator in the body, if any
+
+        Scope(Ast.Function function) {
+            this.function = function;
+        }
+    }
+
+    // A function typed for one signature, resolved in a copy of its body (the parsed one for all decimals)
+    private static final class Version {
+        final Scope scope;
+        final Ast.Function function;
+        final BitSet integers = new BitSet(); // by frame slot
+        boolean result = true;
+
+        Version(Scope scope, Ast.Function function) {
+            this.scope = scope;
+            this.function = function;
+        }
+    }
+
+    public Resolver(List<Ast.Stmt> statements) {
+        this(statements, List.of());
+    }
+
+    public Resolver(List<Ast.Stmt> statements, Collection<String> inputs) {
+        this.statements = statements;
+        for (String input : inputs) {
+            if (slots.putIfAbsent(input, names.size()) != null) throw new RuntimeException("Duplicate input: " + input);
+            names.add(input);
+        }
+        this.inputCount = names.size();
+        assigned.set(0, inputCount);
+        shared.set(0, inputCount);
+    }
+
+    public List<Ast.Stmt> resolve() {
+        // Where each statement's slots, assignments and calls start
+        int[] firstSlot = new int[statements.size() + 1];
+        int[] firstAssignment = new int[statements.size() + 1];
+        int[] firstCall = new int[statements.size() + 1];
+        for (int i = 0; i <= statements.size(); i++) {
+            firstSlot[i] = names.size();
+            firstAssignment[i] = assignments.size();
+            firstCall[i] = calls.size();
+            if (i < statements.size()) declare(statements.get(i));
+        }
+        inferArrays(inputCount);
+        for (int i = 0; i < statements.size(); i++) {
+            Ast.Stmt stmt = statements.get(i);
+            for (int slot = firstSlot[i]; slot < firstSlot[i + 1]; slot++) if (!arrays.get(slot)) integers.set(slot);
+            stmt.widen = inferIntegers(assignments.subList(firstAssignment[i], firstAssignment[i + 1]),
+                    calls.subList(firstCall[i], firstCall[i + 1]), firstSlot[i]);
+            resolveVersions();
+            resolve(stmt, assigned);
+        }
+        checkParallel();
+        checkMemo();
+        return statements;
+    }
+
+    /**
+     * Resolves one more top-level statement after those resolved so far, typing
+     * it as {@link #resolve} would.
+     */
+    public void resolveNext(Ast.Stmt stmt) {
+        // The Optimizer numbers temporaries from $t0 again in every statement
+        integers.or(temps);
+        arrays.andNot(temps);
+        shared.andNot(temps);
+        local.andNot(temps);
+        readEarly.andNot(temps);
+        assigned.andNot(temps);
+        int first = names.size();
+        declare(stmt);
+        inferArrays(first);
+        integers.set(first, names.size());
+        integers.andNot(arrays);
+        stmt.widen = inferIntegers(assignments, calls, first);
+        resolveVersions();
+        resolve(stmt, assigned);
+        assignments.clear();
+        calls.clear();
+        checkParallel();
+        checkMemo();
+    }
+
+    private void checkParallel() {
+        BitSet conflicts = (BitSet) local.clone();
+        conflicts.and(shared);
+        if (!conflicts.isEmpty()) {
+            throw new RuntimeException("Variable " + names.get(conflicts.nextSetBit(0))
+                    + " is written in a 🔀 body, so it cannot be used outside 🔀 bodies");
+        }
+        readEarly.and(local);
+        if (!readEarly.isEmpty()) {
+            throw new RuntimeException("Variable " + names.get(readEarly.nextSetBit(0))
+                    + " is read before it is assigned in a 🔀 body");
+        }
+    }
+
+    public int slotCount() {
+        return names.size();
+    }
+
+    /** Variable names indexed by slot. */
+    public List<String> slotNames() {
+        return names;
+    }
+
+    /** True if the variable in {@code slot} holds an array. */
+    public boolean isArray(int slot) {
+        return arrays.get(slot);
+    }
+
+    /** True if the variable in {@code slot} holds a whole number, kept as a {@code long}. */
+    public boolean isInteger(int slot) {
+        return integers.get(slot);
+    }
+
+    /** True if the program has any array-valued expression; only the tree-walking engines run those. */
+    public boolean usesArrays() {
+        return usesArrays;
+    }
+
+    /** True if the program has a {@code 🔀} loop; only the tree-walking engines run those. */
+    public boolean usesParallel() {
+        return usesParallel;
+    }
+
+    /** True if the program uses tasks or channels; only the tree-walking engines run those. */
+    public boolean usesTasks() {
+        return usesTasks;
+    }
+
+    /** True if the program opens a {@code 📂} input; only the tree-walking engines run those. */
+    public boolean usesFiles() {
+        return !files.isEmpty();
+    }
+
+    /** True if the program defines a {@code 🧩} function; only the tree-walking engines run those. */
+    public boolean usesFunctions() {
+        return !functions.isEmpty();
+    }
+
+    private void declare(Ast.Stmt stmt) {
+        if (stmt instanceof Ast.Function f) {
+            declareFunction(f);
+            Scope function = functions.get(f.name);
+            version(function, new boolean[f.params.size()]);
+        } else if (stmt instanceof Ast.Open o) {
+            if (slots.containsKey(o.name)) throw new RuntimeException("📂 " + o.name + " has the name of a variable");
+            files.putIfAbsent(o.name, files.size());
+        } else {
+            declare(stmt, null);
+        }
+    }
+
+    // Finds assignments and calls; 'into' is the function the statement is in, or null
+    private void declare(Ast.Stmt stmt, Scope into) {
+        if (stmt instanceof Ast.VarAssign s) {
+            if (into == null && files.containsKey(s.name)) throw new RuntimeException("📂 " + s.name + " cannot be assigned");
+            if (into == null) {
+                assignments.add(new Assignment(s.value, slots.computeIfAbsent(s.name, this::slot), s.name));
+            } else {
+                into.assignments.add(new Assignment(s.value, local(into, s.name), s.name));
+            }
+            declare(s.value, into);
+        } else if (stmt instanceof Ast.IndexAssign s) {
+            declare(s.index, into);
+            declare(s.value, into);
+        } else if (stmt instanceof Ast.Print s) {
+            declare(s.value, into);
+        } else if (stmt instanceof Ast.Send s) {
+            declare(s.channel, into);
+            declare(s.value, into);
+        } else if (stmt instanceof Ast.Block b) {
+            for (Ast.Stmt inner : b.statements) declare(inner, into);
+        } else if (stmt instanceof Ast.If i) {
+            declare(i.condition, into);
+            declare(i.thenBranch, into);
+            if (i.elseBranch != null) declare(i.elseBranch, into);
+        } else if (stmt instanceof Ast.While w) {
+            declare(w.condition, into);
+            declare(w.body, into);
+        } else if (stmt instanceof Ast.Parallel p) {
+            if (into != null) return; // rejected by resolve
+            slots.computeIfAbsent(p.name, this::slot);
+            declare(p.start, null);
+            declare(p.end, null);
+            declare(p.body, null);
+        } else if (stmt instanceof Ast.Return r) {
+            if (into != null) into.assignments.add(new Assignment(r.value, -1, "↩️"));
+            declare(r.value, into);
+        } else if (stmt instanceof Ast.Function f) {
+            throw new RuntimeException("🧩 " + f.name + " must be defined at the top level");
+        } else if (stmt instanceof Ast.Open o) {
+            throw new RuntimeException("📂 " + o.name + " must be opened at the top level");
+        }
+    }
+
+    private void declare(Ast.Expr expr, Scope into) {
+        if (expr instanceof Ast.Call c) {
+            (into == null ? calls : into.calls).add(c);
+            for (Ast.Expr arg : c.args) declare(arg, into);
+        } else if (expr instanceof Ast.Binary b) {
+            declare(b.left, into);
+            declare(b.right, into);
+        } else if (expr instanceof Ast.ArrayLiteral a) {
+            for (Ast.Expr element : a.elements) declare(element, into);
+        } else if (expr instanceof Ast.ArrayFill f) {
+            declare(f.value, into);
+            declare(f.count, into);
+        } else if (expr instanceof Ast.Index i) {
+            declare(i.array, into);
+            declare(i.index, into);
+        } else if (expr instanceof Ast.Reduction r) {
+            declare(r.operand, into);
+        } else if (expr instanceof Ast.Spawn s) {
+            declare(s.call, into);
+        } else if (expr instanceof Ast.Await a) {
+            declare(a.task, into);
+        } else if (expr instanceof Ast.NewChannel c) {
+            declare(c.capacity, into);
+        } else if (expr instanceof Ast.Receive r) {
+            declare(r.channel, into);
+        }
+    }
+
+    private void declareFunction(Ast.Function f) {
+        if (functions.containsKey(f.name)) throw new RuntimeException("Duplicate function: " + f.name);
+        Scope into = new Scope(f);
+        for (String param : f.params) {
+            if (into.locals.containsKey(param)) throw new RuntimeException("Duplicate parameter " + param + " in 🧩 " + f.name);
+            local(into, param);
+        }
+        functions.put(f.name, into);
+        declare(f.body, into);
+    }
+
+    // Returns the frame slot of a function's variable, adding it if new
+    private int local(Scope into, String name) {
+        return into.locals.computeIfAbsent(name, n -> into.locals.size());
+    }
+
+    // The version of 'function' for arguments that are integers where 'signature' is true, new ones starting
+    // with every variable and the result integer apart from the decimal parameters
+    private Version version(Scope function, boolean[] signature) {
+        String key = key(signature);
+        Version v = function.versions.get(key);
+        if (v != null) return v;
+        Ast.Function f = function.function;
+        v = new Version(function, key.indexOf('i') < 0 ? f
+                : Ast.at(new Ast.Function(f.name, f.params, Ast.copy(f.body), f.memo), f));
+        v.integers.set(0, function.locals.size());
+        for (int i = 0; i < signature.length; i++) if (!signature[i]) v.integers.clear(i);
+        v.function.index = versions.size();
+        versions.add(v);
+        function.versions.put(key, v);
+        return v;
+    }
+
+    private static String key(boolean[] signature) {
+        StringBuilder key = new StringBuilder(signature.length);
+        for (boolean integer : signature) key.append(integer ? 'i' : 'd');
+        return key.toString();
+    }
+
+    // Resolves the bodies of the versions typed since the last call
+    private void resolveVersions() {
+        for (; resolvedVersions < versions.size(); resolvedVersions++) {
+            Version v = versions.get(resolvedVersions);
+            Ast.Function f = v.function;
+            BitSet params = new BitSet();
+            params.set(0, f.params.size());
+            scope = v.scope;
+            version = v;
+            try {
+                resolve(f.body, params);
+            } finally {
+                scope = null;
+                version = null;
+            }
+            f.frameSize = v.scope.locals.size();
+            f.integerParams = new boolean[f.params.size()];
+            for (int i = 0; i < f.integerParams.length; i++) f.integerParams[i] = v.integers.get(i);
+            f.integer = v.result;
+        }
+    }
+
+    // A 🧠 result is reused instead of running the call, so nothing it reaches may print or touch tasks
+    private void checkMemo() {
+        for (Scope memo : functions.values()) {
+            if (!memo.function.memo) continue;
+            Set<Scope> reached = new HashSet<>();
+            List<Scope> pending = new ArrayList<>(List.of(memo));
+            while (!pending.isEmpty()) {
+                Scope next = pending.remove(pending.size() - 1);
+                if (!reached.add(next)) continue;
+                if (next.effect != null) {
+                    throw new RuntimeException("🧠 " + memo.function.name + (next == memo ? " cannot use " + next.effect
+                            : " cannot call " + next.function.name + ", which uses " + next.effect));
+                }
+                pending.addAll(next.callees);
+            }
+        }
+    }
+
+    private int slot(String name) {
+        names.add(name);
+        if (name.startsWith(Optimizer.TEMP_PREFIX)) temps.set(names.size() - 1);
+        return names.size() - 1;
+    }
+
+    // An assignment of an array makes its variable an array variable, which can
+    // make further assignments arrays; repeat until nothing changes. Slots below
+    // 'fixed' already hold numbers.
+    private void inferArrays(int fixed) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Assignment s : assignments) {
+                int slot = s.slot;
+                if (!arrays.get(slot) && isArray(s.value, null)) {
+                    if (slot < inputCount) throw new RuntimeException("Input " + s.name + " cannot hold an array");
+                    if (slot < fixed && !temps.get(slot)) {
+                        throw new RuntimeException("Variable " + s.name + " holds both numbers and arrays");
+                    }
+                    arrays.set(slot);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    // Starts from the integer candidates and drops those given a non-integer,
+    // which can turn further assignments non-integer. Calls met on the way
+    // create versions, which are typed in the same loop; versions typed by an
+    // earlier call only depend on each other, so they stay as they are. Returns
+    // the variables declared before 'first' that become decimals (Stmt.widen).
+    private int[] inferIntegers(List<Assignment> assignments, List<Ast.Call> calls, int first) {
+        BitSet widened = new BitSet();
+        boolean changed = true;
+        while (changed) {
+            int known = versions.size();
+            changed = false;
+            for (Assignment s : assignments) {
+                if (integers.get(s.slot) && !isInteger(s.value, null)) {
+                    integers.clear(s.slot);
+                    if (s.slot < first && !temps.get(s.slot)) widened.set(s.slot);
+                    changed = true;
+                }
+            }
+            for (Ast.Call c : calls) isInteger(c, null);
+            for (int i = typedVersions; i < versions.size(); i++) {
+                Version v = versions.get(i);
+                for (Ast.Call c : v.scope.calls) isInteger(c, v);
+                for (Assignment s : v.scope.assignments) {
+                    if ((s.slot < 0 ? v.result : v.integers.get(s.slot)) && !isInteger(s.value, v)) {
+                        if (s.slot < 0) {
+                            v.result = false;
+                        } else {
+                            v.integers.clear(s.slot);
+                        }
+                        changed = true;
+                    }
+                }
+            }
+            if (versions.size() != known) changed = true;
+        }
+        typedVersions = versions.size();
+        return widened.isEmpty() ? null : widened.stream().toArray();
+    }
+
+    // 'from' is the version of the function the expression is in, or null
+    private boolean isInteger(Ast.Expr expr, Version from) {
+        if (expr instanceof Ast.NumberLiteral n) return isInteger(n.value);
+        if (expr instanceof Ast.Variable v) {
+            if (from != null) {
+                Integer index = from.scope.locals.get(v.name);
+                return index != null && from.integers.get(index);
+            }
+            Integer slot = slots.get(v.name);
+            return slot != null && integers.get(slot);
+        }
+        if (expr instanceof Ast.Call c) {
+            // Unknown functions and wrong argument counts are reported by resolve
+            Scope callee = functions.get(c.name);
+            if (callee == null || callee.function.params.size() != c.args.size()) return false;
+            boolean[] signature = new boolean[c.args.size()];
+            for (int i = 0; i < signature.length; i++) signature[i] = isInteger(c.args.get(i), from);
+            return version(callee, signature).result;
+        }
+        if (expr instanceof Ast.Binary b) return isInteger(b.operator, isInteger(b.left, from), isInteger(b.right, from));
+        if (expr instanceof Ast.Reduction r) return r.operator == Token.Type.LENGTH;
+        return expr instanceof Ast.Spawn || expr instanceof Ast.NewChannel; // handles
+    }
+
+    /**
+     * True if a literal with this value is an integer: whole, within ±2^53
+     * where doubles are exact, and not -0.0.
+     */
+    static boolean isInteger(double value) {
+        return value == (long) value && Math.abs(value) < 0x1p53
+                && (value != 0 || Double.doubleToRawLongBits(value) == 0);
+    }
+
+    /** True if {@code left operator right} is an integer, given whether its operands are. */
+    static boolean isInteger(Token.Type operator, boolean left, boolean right) {
+        return switch (operator) {
+            case PLUS, MINUS, STAR -> left && right;
+            case SLASH -> false;
+            default -> true; // comparisons give 1 or 0
+        };
+    }
+
+    private boolean isArray(Ast.Expr expr, Version from) {
+        if (expr instanceof Ast.ArrayLiteral || expr instanceof Ast.ArrayFill) return true;
+        if (expr instanceof Ast.Variable v) {
+            if (from != null) return false;
+            Integer slot = slots.get(v.name);
+            return slot != null && arrays.get(slot);
+        }
+        if (expr instanceof Ast.Binary b) return isArray(b.left, from) || isArray(b.right, from);
+        return false;
+    }
+
+    // 'assigned' holds the slots that are definitely assigned at this point.
+    private void resolve(Ast.Stmt stmt, BitSet assigned) {
+        if (stmt instanceof Ast.VarAssign s) {
+            int reduction = parallel == null ? -1 : reductionIndex(s.name);
+            if (reduction >= 0) {
+                Token.Type operator = parallel.operators.get(reduction);
+                if (!(s.value instanceof Ast.Binary b && b.operator == operator
+                        && b.left instanceof Ast.Variable v && v.name.equals(s.name))) {
+                    throw new RuntimeException("Reduction variable " + s.name + " can only be updated as 📦 "
+                            + s.name + " == " + s.name + " " + operator.symbol() + " ...");
+                }
+                reductionRead = (Ast.Variable) b.left;
+            }
+            resolve(s.value, assigned);
+            reductionRead = null;
+            if (scope != null) {
+                s.slot = scope.locals.get(s.name);
+                s.integer = version.integers.get(s.slot);
+                assigned.set(s.slot);
+                return;
+            }
+            s.slot = slots.get(s.name);
+            if (reduction < 0) written(s.slot);
+            if (s.value.array != arrays.get(s.slot)) {
+                throw new RuntimeException("Variable " + s.name + " holds both numbers and arrays");
+            }
+            s.integer = integers.get(s.slot);
+            assigned.set(s.slot);
+        } else if (stmt instanceof Ast.IndexAssign s) {
+            resolve(s.target, assigned);
+            if (scope == null) written(s.target.slot);
+            resolve(s.index, assigned);
+            resolve(s.value, assigned);
+            if (!s.target.array) throw new RuntimeException("Not an array: " + s.target.name);
+            number(s.index, "Index");
+            number(s.value, "Array element");
+        } else if (stmt instanceof Ast.Print s) {
+            if (parallel != null) throw new RuntimeException("📢 is not allowed in a 🔀 body");
+            effect("📢");
+            resolve(s.value, assigned);
+        } else if (stmt instanceof Ast.Send s) {
+            effect("📤");
+            resolve(s.channel, assigned);
+            resolve(s.value, assigned);
+            number(s.channel, "Channel");
+            number(s.value, "📤 value");
+        } else if (stmt instanceof Ast.Block b) {
+            for (Ast.Stmt inner : b.statements) resolve(inner, assigned);
+        } else if (stmt instanceof Ast.If i) {
+            resolve(i.condition, assigned);
+            number(i.condition, "Condition");
+            BitSet thenAssigned = (BitSet) assigned.clone();
+            resolve(i.thenBranch, thenAssigned);
+            BitSet elseAssigned = (BitSet) assigned.clone();
+            if (i.elseBranch != null) resolve(i.elseBranch, elseAssigned);
+            thenAssigned.and(elseAssigned);
+            assigned.or(thenAssigned);
+        } else if (stmt instanceof Ast.While w) {
+            resolve(w.condition, assigned);
+            number(w.condition, "Condition");
+            // The body may run zero times, so nothing it assigns is definite afterwards
+            resolve(w.body, (BitSet) assigned.clone());
+        } else if (stmt instanceof Ast.Parallel p) {
+            if (scope != null) throw new RuntimeException("🔀 is not allowed in a 🧩 function");
+            resolveParallel(p, assigned);
+        } else if (stmt instanceof Ast.Function) {
+            // Resolved as the version for decimal arguments
+        } else if (stmt instanceof Ast.Open o) {
+            o.index = files.get(o.name);
+            opened.set(o.index);
+        } else if (stmt instanceof Ast.Return r) {
+            if (scope == null) throw new RuntimeException("↩️ is only allowed in a 🧩 function");
+            resolve(r.value, assigned);
+            number(r.value, "↩️ value");
+            // Whatever the callee returns is what this call returns, so its frame can take this one's place
+            r.tail = r.value instanceof Ast.Call;
+        } else {
+            throw new RuntimeException("Unknown statement type: " + stmt.getClass());
+        }
+    }
+
+    private void resolveParallel(Ast.Parallel p, BitSet assigned) {
+        if (parallel != null) throw new RuntimeException("🔀 cannot be nested");
+        resolve(p.start, assigned);
+        resolve(p.end, assigned);
+        if (!p.start.integer || !p.end.integer) throw new RuntimeException("🔀 bounds must be integers");
+        p.slot = slots.get(p.name);
+        if (!integers.get(p.slot)) throw new RuntimeException("🔀 variable " + p.name + " must only hold integers");
+        BitSet reductions = new BitSet();
+        for (Ast.Variable r : p.reductions) {
+            resolve(r, assigned);
+            number(r, "Reduction variable");
+            if (r.checked) throw new RuntimeException("Reduction variable " + r.name + " must be assigned before 🔀");
+            if (r.slot == p.slot || reductions.get(r.slot)) {
+                throw new RuntimeException("Duplicate 🔀 variable: " + r.name);
+            }
+            reductions.set(r.slot);
+        }
+        local.set(p.slot);
+        // The loop variable is assigned in every iteration; nothing else the body assigns is definite afterwards
+        BitSet inner = (BitSet) assigned.clone();
+        inner.set(p.slot);
+        parallel = p;
+        try {
+            resolve(p.body, inner);
+        } finally {
+            parallel = null;
+        }
+        usesParallel = true;
+    }
+
+    private int reductionIndex(String name) {
+        for (int i = 0; i < parallel.reductions.size(); i++) {
+            if (parallel.reductions.get(i).name.equals(name)) return i;
+        }
+        return -1;
+    }
+
+    private void written(int slot) {
+        if (parallel == null) {
+            shared.set(slot);
+            return;
+        }
+        if (slot == parallel.slot) throw new RuntimeException("🔀 variable " + parallel.name + " cannot be assigned in its body");
+        local.set(slot);
+    }
+
+    private void resolve(Ast.Expr expr, BitSet assigned) {
+        if (expr instanceof Ast.NumberLiteral n) {
+            n.integer = isInteger(n.value);
+            return;
+        }
+        if (expr instanceof Ast.Variable v && scope != null) {
+            Integer slot = scope.locals.get(v.name);
+            if (slot == null) throw new RuntimeException("Undefined variable: " + v.name + " in 🧩 " + scope.function.name);
+            v.slot = slot;
+            v.checked = !assigned.get(slot);
+            v.integer = version.integers.get(slot);
+            return;
+        }
+        if (expr instanceof Ast.Variable v) {
+            if (files.containsKey(v.name)) {
+                throw new RuntimeException("📂 " + v.name + " can only be read with 📏 🧮 🔻 🔺 📊 or [index]");
+            }
+            Integer slot = slots.get(v.name);
+            if (slot == null) throw new RuntimeException("Undefined variable: " + v.name);
+            v.slot = slot;
+            v.checked = !assigned.get(slot);
+            v.array = arrays.get(slot);
+            v.integer = integers.get(slot);
+            if (parallel == null) {
+                shared.set(slot);
+            } else {
+                if (v != reductionRead && reductionIndex(v.name) >= 0) {
+                    throw new RuntimeException("Reduction variable " + v.name + " cannot be read in its 🔀 body");
+                }
+                if (v.checked) readEarly.set(slot);
+            }
+        } else if (expr instanceof Ast.Binary b) {
+            resolve(b.left, assigned);
+            resolve(b.right, assigned);
+            b.array = b.left.array || b.right.array;
+            if (b.array && !isArithmetic(b.operator)) {
+                throw new RuntimeException("Arrays support only ➕ ➖ ✖️ ➗, not " + b.operator);
+            }
+            b.integer = !b.array && isInteger(b.operator, b.left.integer, b.right.integer);
+        } else if (expr instanceof Ast.ArrayLiteral a) {
+            for (Ast.Expr element : a.elements) {
+                resolve(element, assigned);
+                number(element, "Array element");
+            }
+            a.array = true;
+        } else if (expr instanceof Ast.ArrayFill f) {
+            resolve(f.value, assigned);
+            resolve(f.count, assigned);
+            number(f.value, "Array element");
+            number(f.count, "Array size");
+            f.array = true;
+        } else if (expr instanceof Ast.Index i) {
+            i.file = file(i.array);
+            if (i.file < 0) resolve(i.array, assigned);
+            resolve(i.index, assigned);
+            if (i.file < 0 && !i.array.array) throw new RuntimeException("Only arrays can be indexed");
+            number(i.index, "Index");
+        } else if (expr instanceof Ast.Reduction r) {
+            r.file = file(r.operand);
+            r.integer = r.operator == Token.Type.LENGTH;
+            if (r.file >= 0) return;
+            resolve(r.operand, assigned);
+            if (!r.operand.array) throw new RuntimeException(r.operator + " needs an array");
+        } else if (expr instanceof Ast.Call c) {
+            resolveCall(c, assigned);
+        } else if (expr instanceof Ast.Spawn s) {
+            effect("🚀");
+            resolveCall(s.call, assigned);
+            s.integer = true;
+        } else if (expr instanceof Ast.Await a) {
+            effect("⏳");
+            resolve(a.task, assigned);
+            number(a.task, "Task");
+        } else if (expr instanceof Ast.NewChannel c) {
+            effect("📡");
+            resolve(c.capacity, assigned);
+            number(c.capacity, "Channel capacity");
+            c.integer = true;
+        } else if (expr instanceof Ast.Receive r) {
+            effect("📥");
+            resolve(r.channel, assigned);
+            number(r.channel, "Channel");
+        } else {
+            throw new RuntimeException("Unknown expression type: " + expr.getClass());
+        }
+        if (expr.array && scope != null) throw new RuntimeException("🧩 " + scope.function.name + " cannot use arrays");
+        if (expr.array) usesArrays = true;
+    }
+
+    // The 📂 input that 'expr' names, or -1 if it is not one
+    private int file(Ast.Expr expr) {
+        if (!(expr instanceof Ast.Variable v) || scope != null) return -1;
+        Integer index = files.get(v.name);
+        if (index == null) return -1;
+        if (!opened.get(index)) throw new RuntimeException("📂 " + v.name + " is read before it is opened");
+        if (parallel != null) throw new RuntimeException("📂 " + v.name + " cannot be read in a 🔀 body");
+        return index;
+    }
+
+    // Records a print or task operator for the 🧠 check; task operators may block, so not in 🔀 bodies
+    private void effect(String operator) {
+        if (scope != null && scope.effect == null) scope.effect = operator;
+        if (operator.equals("📢")) return;
+        if (parallel != null) throw new RuntimeException(operator + " is not allowed in a 🔀 body");
+        usesTasks = true;
+    }
+
+    private void resolveCall(Ast.Call c, BitSet assigned) {
+        Scope callee = functions.get(c.name);
+        if (callee == null) throw new RuntimeException("Undefined function: " + c.name);
+        if (parallel != null) throw new RuntimeException("Functions cannot be called in a 🔀 body");
+        if (c.args.size() != callee.function.params.size()) {
+            int params = callee.function.params.size();
+            throw new RuntimeException("🧩 " + c.name + " takes " + params + (params == 1 ? " argument" : " arguments")
+                    + ", got " + c.args.size());
+        }
+        for (Ast.Expr arg : c.args) {
+            resolve(arg, assigned);
+            number(arg, "Argument");
+        }
+        boolean[] signature = new boolean[c.args.size()];
+        for (int i = 0; i < signature.length; i++) signature[i] = c.args.get(i).integer;
+        Version target = callee.versions.get(key(signature));
+        if (target == null) throw new IllegalStateException("🧩 " + c.name + " was not typed for this call");
+        c.function = target.function;
+        c.integer = target.result;
+        if (scope != null) scope.callees.add(callee);
+    }
+
+    private static void number(Ast.Expr expr, String what) {
+        if (expr.array) throw new RuntimeException(what + " must be a number, not an array");
+    }
+
+    private static boolean isArithmetic(Token.Type operator) {
+        return operator == Token.Type.PLUS || operator == Token.Type.MINUS
+                || operator == Token.Type.STAR || operator == Token.Type.SLASH;
+    }
+}
@@ -0,0 +1,70 @@
+/** Plain-loop {@link ArrayKernels}, used when the Vector API is not available. */
+public final class ScalarKernels implements ArrayKernels {
+    @Override
+    public double[] apply(Token.Type op, double[] left, double[] right) {
+        double[] result = new double[left.length];
+        switch (op) {
+            case PLUS -> { for (int i = 0; i < result.length; i++) result[i] = left[i] + right[i]; }
+            case MINUS -> { for (int i = 0; i < result.length; i++) result[i] = left[i] - right[i]; }
+            case STAR -> { for (int i = 0; i < result.length; i++) result[i] = left[i] * right[i]; }
+            case SLASH -> { for (int i = 0; i < result.length; i++) result[i] = left[i] / right[i]; }
+            default -> throw new RuntimeException("Unsupported operator: " + op);
+        }
+        return result;
+    }
+
+    @Override
+    public double[] apply(Token.Type op, double[] left, double right) {
+        double[] result = new double[left.length];
+        switch (op) {
+            case PLUS -> { for (int i = 0; i < result.length; i++) result[i] = left[i] + right; }
+            case MINUS -> { for (int i = 0; i < result.length; i++) result[i] = left[i] - right; }
+            case STAR -> { for (int i = 0; i < result.length; i++) result[i] = left[i] * right; }
+            case SLASH -> { for (int i = 0; i < result.length; i++) result[i] = left[i] / right; }
+            default -> throw new RuntimeException("Unsupported operator: " + op);
+        }
+        return result;
+    }
+
+    @Override
+    public double[] apply(Token.Type op, double left, double[] right) {
+        double[] result = new double[right.length];
+        switch (op) {
+            case PLUS -> { for (int i = 0; i < result.length; i++) result[i] = left + right[i]; }
+            case MINUS -> { for (int i = 0; i < result.length; i++) result[i] = left - right[i]; }
+            case STAR -> { for (int i = 0; i < result.length; i++) result[i] = left * right[i]; }
+            case SLASH -> { for (int i = 0; i < result.length; i++) result[i] = left / right[i]; }
+            default -> throw new RuntimeException("Unsupported operator: " + op);
+        }
+        return result;
+    }
+
+    @Override
+    public double sum(double[] values) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (int bound = values.length - values.length % SUM_LANES; i < bound; i += SUM_LANES) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + 2];
+            s3 += values[i + 3];
+        }
+        double sum = s0 + s1 + s2 + s3;
+        for (; i < values.length; i++) sum += values[i];
+        return sum;
+    }
+
+    @Override
+    public double min(double[] values) {
+        double min = values[0];
+        for (int i = 1; i < values.length; i++) min = Math.min(min, values[i]);
+        return min;
+    }
+
+    @Override
+    public double max(double[] values) {
+        double max = values[0];
+        for (int i = 1; i < values.length; i++) max = Math.max(max, values[i]);
+        return max;
+    }
+}
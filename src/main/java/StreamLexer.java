@@ -0,0 +1,191 @@
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lexer that scans code points straight out of a {@link CharSequence} and
+ * produces tokens one at a time.
+ *
+ * The cursor API ({@link #next()}, {@link #start()}, {@link #end()}) allocates
+ * nothing: emoji are classified by integer code point and a token is just a
+ * type plus source offsets. {@link #tokens()} wraps the cursor in an iterator
+ * for the {@link Parser}, creating lexeme strings only for numbers,
+ * identifiers and file names. Accepts the same input as {@link Lexer} and
+ * yields the same token types.
+ */
+public class StreamLexer {
+    private final CharSequence source;
+    private int current = 0;
+    private int start = 0;
+
+    public StreamLexer(CharSequence source) {
+        this(source, 0);
+    }
+
+    /** Starts lexing at {@code offset}, which must be a token boundary. */
+    public StreamLexer(CharSequence source, int offset) {
+        this.source = source;
+        this.current = offset;
+        this.start = offset;
+    }
+
+    /** Lexes a UTF-8 file through a memory mapping instead of reading it into a String first. */
+    public static StreamLexer open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CharBuffer chars = StandardCharsets.UTF_8.newDecoder().decode(bytes);
+            return new StreamLexer(chars);
+        }
+    }
+
+    /** Scans the next token and returns its type; {@code EOF} once the input is exhausted. */
+    public Token.Type next() {
+        int length = source.length();
+        while (current < length) {
+            start = current;
+            int c = Character.codePointAt(source, current);
+            current += Character.charCount(c);
+            switch (c) {
+                case 0x1F4E6: return Token.Type.ASSIGN;  // 📦
+                case 0x1F4E2:                            // 📢
+                case 0x1F5A8: return Token.Type.PRINT;   // 🖨
+                case 0x2795: return Token.Type.PLUS;     // ➕
+                case 0x2796: return Token.Type.MINUS;    // ➖
+                case 0x2716: return Token.Type.STAR;     // ✖
+                case 0x2797: return Token.Type.SLASH;    // ➗
+                case 0x2753: return Token.Type.IF;       // ❓
+                case 0x1F501: return Token.Type.WHILE;   // 🔁
+                case 0x1F4CF: return Token.Type.LENGTH;  // 📏
+                case 0x1F9EE: return Token.Type.SUM;     // 🧮
+                case 0x1F53B: return Token.Type.MIN;     // 🔻
+                case 0x1F53A: return Token.Type.MAX;     // 🔺
+                case 0x1F4CA: return Token.Type.MEAN;    // 📊
+                case 0x1F500: return Token.Type.PARALLEL; // 🔀
+                case 0x1F9E9: return Token.Type.FUNCTION; // 🧩
+                case 0x21A9: return Token.Type.RETURN;   // ↩
+                case 0x1F9E0: return Token.Type.MEMO;    // 🧠
+                case 0x1F680: return Token.Type.SPAWN;   // 🚀
+                case 0x23F3: return Token.Type.AWAIT;    // ⏳
+                case 0x1F4E1: return Token.Type.CHANNEL; // 📡
+                case 0x1F4E4: return Token.Type.SEND;    // 📤
+                case 0x1F4E5: return Token.Type.RECEIVE; // 📥
+                case 0x1F4C2: return Token.Type.OPEN;    // 📂
+                case '{': return Token.Type.LBRACE;
+                case '}': return Token.Type.RBRACE;
+                case '(': return Token.Type.LPAREN;
+                case ')': return Token.Type.RPAREN;
+                case '>': return Token.Type.GREATER;
+                case '<': return Token.Type.LESS;
+                case ';': return Token.Type.SEMICOLON;
+                case '[': return Token.Type.LBRACKET;
+                case ']': return Token.Type.RBRACKET;
+                case ',': return Token.Type.COMMA;
+                case '=':
+                    if (match('=')) return Token.Type.EQUAL_EQUAL;
+                    break;
+                case '!':
+                    if (match('=')) return Token.Type.BANG_EQUAL;
+                    break;
+                case '"':
+                    // Like Lexer, a quote with no closing quote on its line is skipped
+                    int close = current;
+                    while (close < length && source.charAt(close) != '"' && source.charAt(close) != '\n') close++;
+                    if (close < length && source.charAt(close) == '"') {
+                        current = close + 1;
+                        return Token.Type.STRING;
+                    }
+                    break;
+                case ' ': case '\r': case '\t': case '\n':
+                    break; // skip whitespace
+                default:
+                    // Like Lexer, only BMP digits and letters start numbers and identifiers
+                    if (Character.isBmpCodePoint(c) && Character.isDigit(c)) {
+                        while (current < length && Character.isDigit(source.charAt(current))) current++;
+                        return Token.Type.NUMBER;
+                    }
+                    if (Character.isBmpCodePoint(c) && Character.isLetter(c)) {
+                        while (current < length && Character.isLetterOrDigit(source.charAt(current))) current++;
+                        return Token.Type.IDENTIFIER;
+                    }
+            }
+        }
+        start = current;
+        return Token.Type.EOF;
+    }
+
+    /** Source offset of the token returned by the last {@link #next()}. */
+    public int start() {
+        return start;
+    }
+
+    /** Source offset just past the token returned by the last {@link #next()}. */
+    public int end() {
+        return current;
+    }
+
+    /** Lexes lazily, ending with a single {@code EOF} token. */
+    public Iterator<Token> tokens() {
+        LineCounter lines = new LineCounter(current);
+        return new Iterator<>() {
+            private boolean done = false;
+
+            @Override
+            public boolean hasNext() {
+                return !done;
+            }
+
+            @Override
+            public Token next() {
+                if (done) throw new NoSuchElementException();
+                Token.Type type = StreamLexer.this.next();
+                done = type == Token.Type.EOF;
+                lines.advanceTo(source, start);
+                return new Token(type, lexeme(source, type, start, current), start, current,
+                        lines.line, start - lines.lineStart + 1);
+            }
+        };
+    }
+
+    /** Tracks the line of increasing offsets by scanning each character once. */
+    static final class LineCounter {
+        int line = 1;
+        int lineStart;
+        private int scanned;
+
+        LineCounter(int offset) {
+            lineStart = offset;
+            scanned = offset;
+        }
+
+        void advanceTo(CharSequence source, int offset) {
+            for (; scanned < offset; scanned++) {
+                if (source.charAt(scanned) == '\n') {
+                    line++;
+                    lineStart = scanned + 1;
+                }
+            }
+        }
+    }
+
+    /** Lexeme text for a token scanned from {@code source}. */
+    static String lexeme(CharSequence source, Token.Type type, int start, int end) {
+        return switch (type) {
+            case NUMBER, IDENTIFIER -> source.subSequence(start, end).toString();
+            case STRING -> source.subSequence(start + 1, end - 1).toString();
+            case PRINT -> Character.codePointAt(source, start) == 0x1F5A8 ? "🖨" : "📢";
+            default -> type.symbol();
+        };
+    }
+
+    private boolean match(char expected) {
+        if (current >= source.length() || source.charAt(current) != expected) return false;
+        current++;
+        return true;
+    }
+}
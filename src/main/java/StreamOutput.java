@@ -0,0 +1,139 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * {@link Output} that formats values into a large byte buffer and writes it to
+ * an {@link OutputStream} only when the buffer fills or on {@link #flush()}.
+ *
+ * Text matches {@code System.out.println}. Longs, and integral doubles below
+ * 1e7, the common cases, are formatted digit by digit without allocating;
+ * other doubles go through {@link Double#toString(double)}.
+ */
+public class StreamOutput implements Output {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    // Longest Double.toString result plus line separator
+    static final int MAX_ENTRY = 32;
+
+    private final OutputStream out;
+    private final boolean closeStream;
+    private final byte[] buffer;
+    private int count = 0;
+
+    public StreamOutput(OutputStream out, int bufferSize, boolean closeStream) {
+        this.out = out;
+        this.closeStream = closeStream;
+        this.buffer = new byte[Math.max(bufferSize, 2 * MAX_ENTRY)];
+    }
+
+    /** Unsynchronized stdout, bypassing {@code System.out}'s autoflushing stream. */
+    public static StreamOutput stdout() {
+        return new StreamOutput(new FileOutputStream(FileDescriptor.out), DEFAULT_BUFFER_SIZE, false);
+    }
+
+    public static StreamOutput file(Path path) throws IOException {
+        return new StreamOutput(Files.newOutputStream(path), DEFAULT_BUFFER_SIZE, true);
+    }
+
+    @Override
+    public void print(double value) {
+        if (buffer.length - count < MAX_ENTRY) drain();
+        count = format(value, buffer, count);
+        for (byte b : NEWLINE) buffer[count++] = b;
+    }
+
+    @Override
+    public void print(long value) {
+        if (buffer.length - count < MAX_ENTRY) drain();
+        count = format(value, buffer, count);
+        for (byte b : NEWLINE) buffer[count++] = b;
+    }
+
+    @Override
+    public void print(double[] values) {
+        if (buffer.length - count < MAX_ENTRY) drain();
+        buffer[count++] = '[';
+        for (int i = 0; i < values.length; i++) {
+            if (buffer.length - count < MAX_ENTRY + 2) drain();
+            if (i > 0) {
+                buffer[count++] = ',';
+                buffer[count++] = ' ';
+            }
+            count = format(values[i], buffer, count);
+        }
+        if (buffer.length - count < MAX_ENTRY) drain();
+        buffer[count++] = ']';
+        for (byte b : NEWLINE) buffer[count++] = b;
+    }
+
+    @Override
+    public void flush() {
+        drain();
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        if (!closeStream) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void drain() {
+        if (count == 0) return;
+        try {
+            out.write(buffer, 0, count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        count = 0;
+    }
+
+    /**
+     * Writes the text of {@code value} into {@code into} at {@code at}; returns the new end. Every
+     * {@link Output} prints numbers this way.
+     */
+    static int format(double value, byte[] into, int at) {
+        long whole = (long) value;
+        if (whole == value && whole > -10_000_000 && whole < 10_000_000
+                && (whole != 0 || Double.doubleToRawLongBits(value) == 0)) {
+            at = format(whole, into, at);
+            into[at++] = '.';
+            into[at++] = '0';
+            return at;
+        }
+        String text = Double.toString(value);
+        for (int i = 0; i < text.length(); i++) into[at++] = (byte) text.charAt(i);
+        return at;
+    }
+
+    /** Same for an integer expression's value; one past ±2^53 is written as its decimal. */
+    static int format(long value, byte[] into, int at) {
+        if (!Interpreter.isExact(value)) return format(Interpreter.decimal(value), into, at);
+        if (value < 0) {
+            into[at++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) digits++;
+        for (int i = at + digits - 1; i >= at; i--) {
+            into[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return at + digits;
+    }
+}
@@ -0,0 +1,115 @@
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Runs a script while it is still being read ({@code --stream}), in memory
+ * that does not grow with its length.
+ *
+ * A reader thread lexes the input with a {@link ChunkedLexer}, parses and
+ * optimizes one top-level statement at a time, and hands the statements over
+ * in batches through a bounded queue. A batch goes out when it is full or
+ * before the next read from the input, which may block. The calling thread
+ * resolves each statement with {@link Resolver#resolveNext}, executes it, and
+ * drops it, so memory depends on the queue capacity, the largest statement and
+ * the number of distinct variables. Output is flushed whenever execution
+ * catches up with the input, so results appear as soon as the statements that
+ * print them have arrived.
+ *
+ * An error stops the run at the statement that causes it, after everything
+ * before it has run and printed.
+ */
+public class StreamingRunner {
+    static final int BATCH_SIZE = 256;
+    static final int QUEUE_CAPACITY = 16; // batches
+    // Marks the end of the input in the queue
+    private static final List<Ast.Stmt> END = new ArrayList<>();
+
+    private final String engine;
+    private final boolean optimize;
+    private final BlockingQueue<List<Ast.Stmt>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private List<Ast.Stmt> batch = new ArrayList<>(BATCH_SIZE); // reader thread only
+    private volatile RuntimeException failure; // set by the reader thread before it queues END
+
+    /** {@code engine} is {@code tree} or {@code jit}; the others compile whole programs. */
+    public StreamingRunner(String engine, boolean optimize) {
+        if (!engine.equals("tree") && !engine.equals("jit")) throw new IllegalArgumentException("Cannot stream on " + engine);
+        this.engine = engine;
+        this.optimize = optimize;
+    }
+
+    /** Runs the script to its end; returns the interpreter that ran it. */
+    public Interpreter run(Reader source, Output out) throws InterruptedException {
+        Thread reader = new Thread(() -> read(source), "emoji-stream-reader");
+        reader.setDaemon(true);
+        reader.start();
+        Jit jit = engine.equals("jit") ? new Jit() : null;
+        Interpreter interpreter = new Interpreter(0, out, jit);
+        Resolver resolver = new Resolver(List.of());
+        try {
+            while (true) {
+                List<Ast.Stmt> statements = queue.poll();
+                if (statements == null) {
+                    out.flush();
+                    statements = queue.take();
+                }
+                if (statements == END) break;
+                for (Ast.Stmt stmt : statements) {
+                    resolver.resolveNext(stmt);
+                    interpreter.grow(resolver.slotCount());
+                    interpreter.execute(stmt);
+                    // Its loops are never run again
+                    if (jit != null) jit.clear();
+                }
+            }
+            interpreter.awaitTasks();
+            if (failure != null) throw failure;
+            return interpreter;
+        } finally {
+            reader.interrupt();
+            out.flush();
+        }
+    }
+
+    private void read(Reader source) {
+        Reader input = new FilterReader(source) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                try {
+                    handOver();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                return super.read(buffer, offset, length);
+            }
+        };
+        try {
+            try {
+                Parser parser = new Parser(new ChunkedLexer(input));
+                for (Ast.Stmt stmt = parser.next(); stmt != null; stmt = parser.next()) {
+                    // A fresh Optimizer per statement, so temporaries are numbered from $t0 each time
+                    batch.addAll(optimize ? new Optimizer().optimize(List.of(stmt)) : List.of(stmt));
+                    if (batch.size() >= BATCH_SIZE) handOver();
+                }
+            } catch (RuntimeException e) {
+                if (e.getCause() instanceof InterruptedIOException) return;
+                failure = e;
+            }
+            handOver();
+            queue.put(END);
+        } catch (InterruptedException e) {
+            // The run failed and nobody is taking statements any more
+        }
+    }
+
+    private void handOver() throws InterruptedException {
+        if (batch.isEmpty()) return;
+        queue.put(batch);
+        batch = new ArrayList<>(BATCH_SIZE);
+    }
+}
@@ -0,0 +1,57 @@
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes prints from several tasks onto one {@link Output}, so each value
+ * stays on a line of its own. The interpreter switches to it when a script
+ * starts its first task. Like {@link Channel}, it locks with a
+ * {@link ReentrantLock}, which a virtual thread can wait on without holding
+ * its carrier thread.
+ */
+public class SynchronizedOutput implements Output {
+    private final Output out;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public SynchronizedOutput(Output out) {
+        this.out = out;
+    }
+
+    @Override
+    public void print(double value) {
+        lock.lock();
+        try {
+            out.print(value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void print(long value) {
+        lock.lock();
+        try {
+            out.print(value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void print(double[] values) {
+        lock.lock();
+        try {
+            out.print(values);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void flush() {
+        lock.lock();
+        try {
+            out.flush();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
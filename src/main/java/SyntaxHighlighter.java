@@ -0,0 +1,321 @@
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.*;
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Syntax highlighting and parse-error markers for the Studio editor.
+ *
+ * The document listener only widens a pending damage range, so typing cost
+ * does not depend on file size. A background thread snapshots the text,
+ * re-lexes the damaged region with {@link IncrementalLexer}, re-parses, and
+ * posts style changes back to the event thread in small batches. Batches that
+ * arrive after a newer edit are mapped through that edit and re-queued.
+ */
+public class SyntaxHighlighter implements DocumentListener {
+    private static final int DELAY_MS = 30;
+    private static final int BATCH_TOKENS = 500;
+    private static final int MAX_EDIT_LOG = 256;
+
+    private static final byte PLAIN = 0;
+    private static final byte KEYWORD = 1;
+    private static final byte OPERATOR = 2;
+    private static final byte NUMBER = 3;
+    private static final byte PUNCTUATION = 4;
+
+    private final JTextPane pane;
+    private final StyledDocument doc;
+    private final AttributeSet[] styles;
+    private final IncrementalLexer lexer = new IncrementalLexer();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "emoji-highlighter");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Highlighter.HighlightPainter errorPainter = new UnderlinePainter(Color.RED);
+    private Object errorTag;
+
+    // Pending damage in current document coordinates; guarded by 'this'
+    private int damageStart = -1;
+    private int damageEnd;
+    private int delta;
+    private long version;
+    private boolean scheduled;
+
+    // Edits since earlier versions, used to re-map stale batches (event thread only)
+    private final ArrayDeque<int[]> edits = new ArrayDeque<>();
+    private long firstLoggedVersion = 1;
+
+    public SyntaxHighlighter(JTextPane pane) {
+        this.pane = pane;
+        this.doc = pane.getStyledDocument();
+        this.styles = new AttributeSet[] {
+                style(Color.BLACK, false),
+                style(new Color(0x7B1FA2), true),
+                style(new Color(0xC62828), false),
+                style(new Color(0x1565C0), false),
+                style(Color.GRAY, false),
+        };
+        doc.addDocumentListener(this);
+        damage(0, doc.getLength(), doc.getLength());
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent e) {
+        logEdit(e.getOffset(), 0, e.getLength());
+        synchronized (this) {
+            int offset = e.getOffset();
+            int length = e.getLength();
+            if (damageStart < 0) {
+                damageStart = offset;
+                damageEnd = offset + length;
+            } else {
+                if (offset <= damageEnd) damageEnd += length;
+                else damageEnd = offset + length;
+                damageStart = Math.min(damageStart, offset);
+            }
+            delta += length;
+            version++;
+            schedule();
+        }
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e) {
+        logEdit(e.getOffset(), e.getLength(), 0);
+        synchronized (this) {
+            int offset = e.getOffset();
+            int length = e.getLength();
+            if (damageStart < 0) {
+                damageStart = offset;
+                damageEnd = offset;
+            } else {
+                damageEnd = Math.max(map(damageEnd, offset, length, 0), offset);
+                damageStart = Math.min(map(damageStart, offset, length, 0), offset);
+            }
+            delta -= length;
+            version++;
+            schedule();
+        }
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e) {
+        // attribute changes, including our own styling
+    }
+
+    // Marks [start, end) for re-lexing without a length change
+    private synchronized void damage(int start, int end, int length) {
+        if (damageStart < 0) {
+            damageStart = start;
+            damageEnd = end;
+        } else {
+            damageStart = Math.min(damageStart, start);
+            damageEnd = Math.max(damageEnd, end);
+        }
+        damageEnd = Math.min(damageEnd, length);
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled) return;
+        scheduled = true;
+        worker.schedule(this::relex, DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Worker thread
+    private void relex() {
+        String[] text = new String[1];
+        int[] damage = new int[3];
+        long[] snapshotVersion = new long[1];
+        doc.render(() -> {
+            try {
+                text[0] = doc.getText(0, doc.getLength());
+            } catch (BadLocationException e) {
+                throw new IllegalStateException(e);
+            }
+            synchronized (this) {
+                damage[0] = damageStart;
+                damage[1] = damageEnd;
+                damage[2] = delta;
+                snapshotVersion[0] = version;
+                damageStart = -1;
+                delta = 0;
+                scheduled = false;
+            }
+        });
+        if (damage[0] < 0) return;
+        lexer.update(text[0], damage[0], damage[1], damage[2]);
+        postStyles(text[0], snapshotVersion[0]);
+        postParseResult(text[0], snapshotVersion[0]);
+    }
+
+    private void postStyles(String text, long snapshot) {
+        int from = lexer.changedFrom();
+        int to = lexer.changedTo();
+        int spanStart = lexer.changedStart();
+        for (int batch = from; batch < to || batch == from; batch += BATCH_TOKENS) {
+            int batchEnd = Math.min(to, batch + BATCH_TOKENS);
+            int count = batchEnd - batch;
+            int[] starts = new int[count];
+            int[] ends = new int[count];
+            byte[] kinds = new byte[count];
+            for (int i = 0; i < count; i++) {
+                int token = batch + i;
+                starts[i] = lexer.start(token);
+                ends[i] = lexer.end(token);
+                kinds[i] = kind(lexer.type(token), text, starts[i], ends[i]);
+            }
+            int plainStart = spanStart;
+            int plainEnd = batchEnd == to ? lexer.changedEnd() : ends[count - 1];
+            spanStart = plainEnd;
+            SwingUtilities.invokeLater(() -> applyStyles(snapshot, plainStart, plainEnd, starts, ends, kinds));
+        }
+    }
+
+    private void postParseResult(String text, long snapshot) {
+        Iterator<Token> all = lexer.tokens(text);
+        Token[] last = new Token[1];
+        Iterator<Token> tracking = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return all.hasNext();
+            }
+
+            @Override
+            public Token next() {
+                return last[0] = all.next();
+            }
+        };
+        int errorStart = -1;
+        int errorEnd = -1;
+        String message = null;
+        try {
+            new Parser(tracking).parse();
+        } catch (RuntimeException e) {
+            // The parser holds one token of lookahead, so the last token read is where it failed
+            errorStart = last[0].start;
+            errorEnd = Math.max(last[0].end, errorStart + 1);
+            message = e.getMessage();
+        }
+        int start = errorStart;
+        int end = Math.min(errorEnd, text.length());
+        String tooltip = message;
+        SwingUtilities.invokeLater(() -> applyError(snapshot, start, end, tooltip));
+    }
+
+    // Event thread
+    private void applyStyles(long snapshot, int plainStart, int plainEnd, int[] starts, int[] ends, byte[] kinds) {
+        long current;
+        synchronized (this) {
+            current = version;
+        }
+        if (current != snapshot) {
+            // An edit happened after the snapshot; restyle the mapped range on the next pass
+            int start = mapSince(snapshot, plainStart);
+            int end = mapSince(snapshot, plainEnd);
+            if (start < 0 || end < 0) damage(0, doc.getLength(), doc.getLength());
+            else damage(start, end, doc.getLength());
+            return;
+        }
+        if (plainEnd > plainStart) doc.setCharacterAttributes(plainStart, plainEnd - plainStart, styles[PLAIN], true);
+        for (int i = 0; i < starts.length; i++) {
+            if (kinds[i] != PLAIN) doc.setCharacterAttributes(starts[i], ends[i] - starts[i], styles[kinds[i]], true);
+        }
+    }
+
+    private void applyError(long snapshot, int start, int end, String message) {
+        long current;
+        synchronized (this) {
+            current = version;
+        }
+        if (current != snapshot) return; // a newer pass will report
+        Highlighter highlighter = pane.getHighlighter();
+        if (errorTag != null) {
+            highlighter.removeHighlight(errorTag);
+            errorTag = null;
+        }
+        pane.setToolTipText(message);
+        if (start < 0) return;
+        try {
+            errorTag = highlighter.addHighlight(start, Math.max(end, start), errorPainter);
+        } catch (BadLocationException e) {
+            // document changed underneath; the next pass will place the marker
+        }
+    }
+
+    private void logEdit(int offset, int removed, int inserted) {
+        edits.addLast(new int[] {offset, removed, inserted});
+        if (edits.size() > MAX_EDIT_LOG) {
+            edits.removeFirst();
+            firstLoggedVersion++;
+        }
+    }
+
+    // Maps an offset from the document at 'snapshot' to the current document; -1 if the log is too short
+    private int mapSince(long snapshot, int offset) {
+        long skip = snapshot + 1 - firstLoggedVersion;
+        if (skip < 0) return -1;
+        int index = 0;
+        for (int[] edit : edits) {
+            if (index++ < skip) continue;
+            offset = map(offset, edit[0], edit[1], edit[2]);
+        }
+        return offset;
+    }
+
+    private static int map(int position, int offset, int removed, int inserted) {
+        if (position <= offset) return position;
+        if (position >= offset + removed) return position - removed + inserted;
+        return offset;
+    }
+
+    private static byte kind(Token.Type type, String text, int start, int end) {
+        return switch (type) {
+            case ASSIGN, PRINT, IF, WHILE, PARALLEL, FUNCTION, RETURN, MEMO, SPAWN, AWAIT, CHANNEL, SEND, RECEIVE, OPEN -> KEYWORD;
+            case PLUS, MINUS, STAR, SLASH, GREATER, LESS, EQUAL_EQUAL, BANG_EQUAL, LENGTH, SUM, MIN, MAX, MEAN -> OPERATOR;
+            case NUMBER, STRING -> NUMBER;
+            case LBRACE, RBRACE, LPAREN, RPAREN, SEMICOLON, LBRACKET, RBRACKET, COMMA -> PUNCTUATION;
+            case IDENTIFIER -> text.startsWith("else", start) && end - start == 4 ? KEYWORD : PLAIN;
+            default -> PLAIN;
+        };
+    }
+
+    private static AttributeSet style(Color color, boolean bold) {
+        SimpleAttributeSet set = new SimpleAttributeSet();
+        StyleConstants.setForeground(set, color);
+        StyleConstants.setBold(set, bold);
+        return set;
+    }
+
+    private static class UnderlinePainter implements Highlighter.HighlightPainter {
+        private final Color color;
+
+        UnderlinePainter(Color color) {
+            this.color = color;
+        }
+
+        @Override
+        public void paint(Graphics g, int p0, int p1, Shape bounds, JTextComponent c) {
+            try {
+                Rectangle start = c.modelToView2D(p0).getBounds();
+                Rectangle end = c.modelToView2D(p1).getBounds();
+                int y = start.y + start.height - 2;
+                int right = end.y == start.y ? end.x : start.x + 8;
+                g.setColor(color);
+                for (int x = start.x; x < right; x += 4) {
+                    g.drawLine(x, y, x + 2, y + 2);
+                    g.drawLine(x + 2, y + 2, x + 4, y);
+                }
+            } catch (BadLocationException e) {
+                // stale marker; repainted after the next pass
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+/**
+ * The tasks ({@code 🚀}) and channels ({@code 📡}) of one run, shared by the
+ * interpreters of all its tasks. Scripts refer to both by number: handles
+ * are taken from one sequence starting at 1, so a task's handle is never
+ * mistaken for a channel's.
+ *
+ * Tasks run on virtual threads when the JVM has them (JDK 21+, found by
+ * reflection so the code still builds for 17), so tens of thousands can wait
+ * on channels at once; otherwise on a shared pool of daemon platform threads
+ * with small stacks, reused once their task has ended.
+ *
+ * {@link #cancel} stops the whole run: running tasks are asked to stop, and
+ * every wait on a task or channel, now or later, throws
+ * {@link CancellationException}.
+ */
+public class Tasks {
+    /** True if tasks run on virtual threads. */
+    public static final boolean VIRTUAL;
+    private static final ExecutorService EXECUTOR;
+    static final long PLATFORM_STACK_SIZE = 256 * 1024;
+
+    static {
+        ExecutorService executor;
+        boolean virtual;
+        try {
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            virtual = true;
+        } catch (ReflectiveOperationException e) {
+            executor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(null, runnable, "emoji-task", PLATFORM_STACK_SIZE);
+                thread.setDaemon(true);
+                return thread;
+            });
+            virtual = false;
+        }
+        EXECUTOR = executor;
+        VIRTUAL = virtual;
+    }
+
+    private final AtomicLong handles = new AtomicLong();
+    private final Map<Long, CompletableFuture<Double>> tasks = new ConcurrentHashMap<>();
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final Map<Long, Runnable> running = new ConcurrentHashMap<>(); // how to cancel each running task
+    private volatile boolean cancelled;
+
+    /** Starts {@code body} as a task and returns its handle; {@code cancel} asks the body to stop. */
+    public long spawn(DoubleSupplier body, Runnable cancel) {
+        checkCancelled();
+        long handle = handles.incrementAndGet();
+        CompletableFuture<Double> task = new CompletableFuture<>();
+        tasks.put(handle, task);
+        running.put(handle, cancel);
+        EXECUTOR.execute(() -> {
+            try {
+                task.complete(body.getAsDouble());
+            } catch (Throwable e) {
+                task.completeExceptionally(e);
+            } finally {
+                running.remove(handle);
+            }
+        });
+        // cancel() may have missed the task while it was being added
+        if (cancelled) cancel.run();
+        return handle;
+    }
+
+    /** Stops the run's tasks at their next loop iteration and wakes every waiting one with {@link CancellationException}. */
+    public void cancel() {
+        cancelled = true;
+        for (Runnable cancel : running.values()) cancel.run();
+        for (Channel channel : channels.values()) channel.cancel();
+        for (CompletableFuture<Double> task : tasks.values()) task.cancel(false);
+    }
+
+    private void checkCancelled() {
+        if (cancelled) throw new CancellationException("Execution cancelled");
+    }
+
+    /** Waits for a task and returns its result, rethrowing its error if it failed. */
+    public double await(double handle) {
+        CompletableFuture<Double> task = tasks.get(handle(handle));
+        if (task == null) throw new RuntimeException("Not a task: " + text(handle));
+        try {
+            return task.join();
+        } catch (CancellationException e) {
+            throw new CancellationException("Execution cancelled");
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    /** Creates a channel holding up to {@code capacity} numbers and returns its handle. */
+    public long newChannel(double capacity) {
+        if (!(capacity >= 1 && capacity <= Integer.MAX_VALUE - 8 && capacity == (int) capacity)) {
+            throw new RuntimeException("Channel capacity must be a positive integer: " + text(capacity));
+        }
+        checkCancelled();
+        long handle = handles.incrementAndGet();
+        Channel channel = new Channel((int) capacity);
+        channels.put(handle, channel);
+        if (cancelled) channel.cancel();
+        return handle;
+    }
+
+    public Channel channel(double handle) {
+        Channel channel = channels.get(handle(handle));
+        if (channel == null) throw new RuntimeException("Not a channel: " + text(handle));
+        return channel;
+    }
+
+    /**
+     * Waits for every task started so far, including those started while
+     * waiting, and rethrows the error of the first that failed.
+     */
+    public void awaitAll() {
+        for (long handle = 1; handle <= handles.get(); handle++) {
+            CompletableFuture<Double> task = tasks.get(handle);
+            if (task != null) await(handle);
+        }
+    }
+
+    // Handles start at 1, so 0 matches nothing
+    private static long handle(double value) {
+        return value == (long) value ? (long) value : 0;
+    }
+
+    private static String text(double value) {
+        return value == (long) value ? Long.toString((long) value) : Double.toString(value);
+    }
+}
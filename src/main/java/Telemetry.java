@@ -0,0 +1,99 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Run-time telemetry: JDK Flight Recorder events for the lex, parse and
+ * execute phases, and the per-phase report printed by {@code --stats}.
+ *
+ * Events are only created once Flight Recorder is running, since loading the
+ * first event class starts JFR's instrumentation, which would add hundreds of
+ * milliseconds to every run; until then a phase costs one flag read, so the
+ * events stay in production builds. Record them with
+ * {@code java -XX:StartFlightRecording:filename=run.jfr ...} (or
+ * {@code jcmd <pid> JFR.start} on a running daemon) and read them with
+ * {@code jfr print --events emoji.Execute run.jfr}. Each carries the counters
+ * its phase knows and leaves the others 0.
+ */
+public class Telemetry {
+    /** Whether phases should create their events: Flight Recorder has been started in this JVM. */
+    static boolean recording() {
+        return FlightRecorder.isInitialized();
+    }
+
+    @Category("Emoji")
+    abstract static class PhaseEvent extends Event {
+        @Label("Tokens")
+        long tokens;
+
+        @Label("Statements")
+        @Description("Statements parsed, or top-level statements executed")
+        long statements;
+
+        @Label("Executed Statements")
+        @Description("Not counting 🚀 tasks or loops the JIT compiled")
+        long executed;
+
+        @Label("Loop Iterations")
+        long iterations;
+
+        @Label("Printed Values")
+        long printed;
+    }
+
+    @Name("emoji.Lex")
+    @Label("Lex")
+    static class LexEvent extends PhaseEvent {}
+
+    @Name("emoji.Parse")
+    @Label("Parse")
+    static class ParseEvent extends PhaseEvent {}
+
+    @Name("emoji.Execute")
+    @Label("Execute")
+    static class ExecuteEvent extends PhaseEvent {}
+
+    /** Wall time and bytes allocated on the calling thread for each phase of one run, for {@code --stats}. */
+    public static class Stats {
+        private final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        private final List<String> names = new ArrayList<>();
+        private final List<long[]> costs = new ArrayList<>(); // nanos, bytes
+        private final List<String> counters = new ArrayList<>();
+
+        public <T> T phase(String name, Supplier<T> phase) {
+            long bytes = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            T result = phase.get();
+            names.add(name);
+            costs.add(new long[] {System.nanoTime() - start, threads.getCurrentThreadAllocatedBytes() - bytes});
+            return result;
+        }
+
+        public void count(String name, long value) {
+            counters.add(value + " " + name);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder(String.format("%-10s %10s %12s%n", "phase", "ms", "allocated KB"));
+            long nanos = 0;
+            long bytes = 0;
+            for (int i = 0; i < names.size(); i++) {
+                long[] cost = costs.get(i);
+                report.append(String.format("%-10s %10.2f %12d%n", names.get(i), cost[0] / 1e6, cost[1] >> 10));
+                nanos += cost[0];
+                bytes += cost[1];
+            }
+            report.append(String.format("%-10s %10.2f %12d%n", "total", nanos / 1e6, bytes >> 10));
+            return report.append(String.join(", ", counters)).append('\n').toString();
+        }
+    }
+}
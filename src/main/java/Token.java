@@ -1,33 +1,79 @@
 public class Token {
     public enum Type {
-        IDENTIFIER,
-        NUMBER,
-        ASSIGN,      // 📦
-        PRINT,       // 📢 or 🖨️
-        PLUS,        // ➕
-        MINUS,       // ➖
-        STAR,        // ✖️
-        SLASH,       // ➗
-        IF,          // ❓
-        WHILE,       // 🔁
-        LBRACE,      // {
-        RBRACE,      // }
-        LPAREN,
-        RPAREN,
-        GREATER,
-        LESS,
-        EQUAL_EQUAL,
-        BANG_EQUAL,
-        SEMICOLON,
-        EOF
+        IDENTIFIER(null),
+        NUMBER(null),
+        STRING(null),       // "file name", only after 📂
+        ASSIGN("📦"),
+        PRINT("📢"),        // or 🖨️
+        PLUS("➕"),
+        MINUS("➖"),
+        STAR("✖️"),
+        SLASH("➗"),
+        IF("❓"),
+        WHILE("🔁"),
+        LBRACE("{"),
+        RBRACE("}"),
+        LPAREN("("),
+        RPAREN(")"),
+        GREATER(">"),
+        LESS("<"),
+        EQUAL_EQUAL("=="),
+        BANG_EQUAL("!="),
+        SEMICOLON(";"),
+        LBRACKET("["),
+        RBRACKET("]"),
+        COMMA(","),
+        LENGTH("📏"),
+        SUM("🧮"),
+        MIN("🔻"),
+        MAX("🔺"),
+        MEAN("📊"),
+        PARALLEL("🔀"),
+        FUNCTION("🧩"),
+        RETURN("↩️"),
+        MEMO("🧠"),
+        SPAWN("🚀"),
+        AWAIT("⏳"),
+        CHANNEL("📡"),
+        SEND("📤"),
+        RECEIVE("📥"),
+        OPEN("📂"),
+        EOF("");
+
+        private final String symbol;
+
+        Type(String symbol) {
+            this.symbol = symbol;
+        }
+
+        /** The text of every token of this type, or null for identifiers, numbers and strings. */
+        public String symbol() {
+            return symbol;
+        }
     }
 
     public final Type type;
     public final String lexeme;
+    public final int start; // source offset, -1 if unknown
+    public final int end;
+    public final int line;   // 1-based, 0 if unknown
+    public final int column; // 1-based, in chars
 
     public Token(Type type, String lexeme) {
+        this(type, lexeme, -1, -1, 0, 0);
+    }
+
+    public Token(Type type, String lexeme, int start, int end) {
+        this(type, lexeme, start, end, 0, 0);
+    }
+
+    public Token(Type type, String lexeme, int start, int end, int line, int column) {
         this.type = type;
         this.lexeme = lexeme;
+        this.start = start;
+        this.end = end;
+        this.line = line;
+        this.column = column;
     }
 
     @Override
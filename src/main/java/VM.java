@@ -0,0 +1,114 @@
+import java.util.concurrent.CancellationException;
+
+/**
+ * Stack machine that runs a {@link Chunk}. Operands live on a primitive
+ * {@code double[]} stack and variables in a {@code double[]} frame, the same
+ * slot layout the {@link Interpreter} uses. Integer expressions use a
+ * {@code long[]} stack and frame alongside, indexed the same way, with the
+ * interpreter's arithmetic and comparisons ({@link Interpreter#add}).
+ */
+public class VM {
+    private final double[] frame;
+    private final long[] longs;
+    private final boolean[] defined;
+    private final Output out;
+    private volatile boolean cancelled;
+
+    public VM(int slotCount, Output out) {
+        this.frame = new double[slotCount];
+        this.longs = new long[slotCount];
+        this.defined = new boolean[slotCount];
+        this.out = out;
+    }
+
+    /** Asks a running {@link #run} to stop; it throws {@link CancellationException} at the next loop iteration. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public void run(Chunk chunk) {
+        try {
+            loop(chunk);
+        } finally {
+            out.flush();
+        }
+    }
+
+    private void loop(Chunk chunk) {
+        final int[] code = chunk.code;
+        final double[] constants = chunk.constants;
+        final double[] stack = new double[chunk.maxStack];
+        final long[] integers = new long[chunk.maxStack];
+        final double[] frame = this.frame;
+        final long[] longs = this.longs;
+        final Output out = this.out;
+        int sp = 0;
+        int ip = 0;
+        while (true) {
+            switch (code[ip++]) {
+                case Chunk.CONST -> stack[sp++] = constants[code[ip++]];
+                case Chunk.LOAD -> stack[sp++] = frame[code[ip++]];
+                case Chunk.LOAD_CHECKED -> {
+                    int slot = code[ip++];
+                    if (!defined[slot]) throw new RuntimeException("Undefined variable: " + chunk.slotNames[slot]);
+                    stack[sp++] = frame[slot];
+                }
+                case Chunk.STORE -> {
+                    int slot = code[ip++];
+                    frame[slot] = stack[--sp];
+                    defined[slot] = true;
+                }
+                case Chunk.ADD -> { sp--; stack[sp - 1] = stack[sp - 1] + stack[sp]; }
+                case Chunk.SUB -> { sp--; stack[sp - 1] = stack[sp - 1] - stack[sp]; }
+                case Chunk.MUL -> { sp--; stack[sp - 1] = stack[sp - 1] * stack[sp]; }
+                case Chunk.DIV -> { sp--; stack[sp - 1] = stack[sp - 1] / stack[sp]; }
+                case Chunk.GREATER -> { sp--; integers[sp - 1] = stack[sp - 1] > stack[sp] ? 1 : 0; }
+                case Chunk.LESS -> { sp--; integers[sp - 1] = stack[sp - 1] < stack[sp] ? 1 : 0; }
+                case Chunk.EQUAL -> { sp--; integers[sp - 1] = stack[sp - 1] == stack[sp] ? 1 : 0; }
+                case Chunk.NOT_EQUAL -> { sp--; integers[sp - 1] = stack[sp - 1] != stack[sp] ? 1 : 0; }
+                case Chunk.PRINT -> out.print(stack[--sp]);
+                case Chunk.PRINT_INTEGER -> out.print(integers[--sp]);
+                case Chunk.JUMP -> {
+                    int target = code[ip];
+                    // Loops end in a backward jump
+                    if (target < ip && cancelled) throw new CancellationException("Execution cancelled");
+                    ip = target;
+                }
+                case Chunk.JUMP_IF_ZERO -> {
+                    if (stack[--sp] == 0) ip = code[ip];
+                    else ip++;
+                }
+                case Chunk.HALT -> { return; }
+                case Chunk.CONST_INTEGER -> integers[sp++] = (long) constants[code[ip++]];
+                case Chunk.LOAD_INTEGER -> integers[sp++] = longs[code[ip++]];
+                case Chunk.LOAD_INTEGER_CHECKED -> {
+                    int slot = code[ip++];
+                    if (!defined[slot]) throw new RuntimeException("Undefined variable: " + chunk.slotNames[slot]);
+                    integers[sp++] = longs[slot];
+                }
+                case Chunk.STORE_INTEGER -> {
+                    int slot = code[ip++];
+                    longs[slot] = integers[--sp];
+                    defined[slot] = true;
+                }
+                case Chunk.ADD_INTEGER -> { sp--; integers[sp - 1] = Interpreter.add(integers[sp - 1], integers[sp]); }
+                case Chunk.SUB_INTEGER -> { sp--; integers[sp - 1] = Interpreter.subtract(integers[sp - 1], integers[sp]); }
+                case Chunk.MUL_INTEGER -> { sp--; integers[sp - 1] = Interpreter.multiply(integers[sp - 1], integers[sp]); }
+                case Chunk.GREATER_INTEGER -> { sp--; integers[sp - 1] = Interpreter.compare(integers[sp - 1], integers[sp], -1) > 0 ? 1 : 0; }
+                case Chunk.LESS_INTEGER -> { sp--; integers[sp - 1] = Interpreter.compare(integers[sp - 1], integers[sp], 1) < 0 ? 1 : 0; }
+                case Chunk.EQUAL_INTEGER -> { sp--; integers[sp - 1] = Interpreter.compare(integers[sp - 1], integers[sp], -1) == 0 ? 1 : 0; }
+                case Chunk.NOT_EQUAL_INTEGER -> { sp--; integers[sp - 1] = Interpreter.compare(integers[sp - 1], integers[sp], -1) != 0 ? 1 : 0; }
+                case Chunk.JUMP_IF_ZERO_INTEGER -> {
+                    if (integers[--sp] == 0) ip = code[ip];
+                    else ip++;
+                }
+                case Chunk.TO_DOUBLE -> stack[sp - 1] = Interpreter.decimal(integers[sp - 1]);
+                case Chunk.WIDEN -> {
+                    int slot = code[ip++];
+                    frame[slot] = Interpreter.decimal(longs[slot]);
+                }
+                default -> throw new RuntimeException("Unknown opcode: " + code[ip - 1]);
+            }
+        }
+    }
+}
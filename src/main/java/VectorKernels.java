@@ -0,0 +1,145 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ArrayKernels} on the incubating Vector API. Only loaded by
+ * {@link ArrayKernels#get()} when {@code jdk.incubator.vector} is in the boot
+ * layer. Each operator has its own loop because the vector intrinsics need
+ * the operation to be a constant.
+ */
+public final class VectorKernels implements ArrayKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    // SUM_LANES doubles, so sums match ScalarKernels bit for bit
+    private static final VectorSpecies<Double> SUM_SPECIES = DoubleVector.SPECIES_256;
+
+    private final ScalarKernels scalar = new ScalarKernels();
+
+    @Override
+    public double[] apply(Token.Type op, double[] left, double[] right) {
+        double[] result = new double[left.length];
+        int step = SPECIES.length();
+        int i = 0;
+        int bound = SPECIES.loopBound(result.length);
+        switch (op) {
+            case PLUS -> {
+                for (; i < bound; i += step) vector(left, i).add(vector(right, i)).intoArray(result, i);
+                for (; i < result.length; i++) result[i] = left[i] + right[i];
+            }
+            case MINUS -> {
+                for (; i < bound; i += step) vector(left, i).sub(vector(right, i)).intoArray(result, i);
+                for (; i < result.length; i++) result[i] = left[i] - right[i];
+            }
+            case STAR -> {
+                for (; i < bound; i += step) vector(left, i).mul(vector(right, i)).intoArray(result, i);
+                for (; i < result.length; i++) result[i] = left[i] * right[i];
+            }
+            case SLASH -> {
+                for (; i < bound; i += step) vector(left, i).div(vector(right, i)).intoArray(result, i);
+                for (; i < result.length; i++) result[i] = left[i] / right[i];
+            }
+            default -> throw new RuntimeException("Unsupported operator: " + op);
+        }
+        return result;
+    }
+
+    @Override
+    public double[] apply(Token.Type op, double[] left, double right) {
+        double[] result = new double[left.length];
+        int step = SPECIES.length();
+        int i = 0;
+        int bound = SPECIES.loopBound(result.length);
+        switch (op) {
+            case PLUS -> {
+                for (; i < bound; i += step) vector(left, i).add(right).intoArray(result, i);
+                for (; i < result.length; i++) result[i] = left[i] + right;
+            }
+            case MINUS -> {
+                for (; i < bound; i += step) vector(left, i).sub(right).intoArray(result, i);
+                for (; i < result.length; i++) result[i] = left[i] - right;
+            }
+            case STAR -> {
+                for (; i < bound; i += step) vector(left, i).mul(right).intoArray(result, i);
+                for (; i < result.length; i++) result[i] = left[i] * right;
+            }
+            case SLASH -> {
+                for (; i < bound; i += step) vector(left, i).div(right).intoArray(result, i);
+                for (; i < result.length; i++) result[i] = left[i] / right;
+            }
+            default -> throw new RuntimeException("Unsupported operator: " + op);
+        }
+        return result;
+    }
+
+    @Override
+    public double[] apply(Token.Type op, double left, double[] right) {
+        double[] result = new double[right.length];
+        DoubleVector broadcast = DoubleVector.broadcast(SPECIES, left);
+        int step = SPECIES.length();
+        int i = 0;
+        int bound = SPECIES.loopBound(result.length);
+        switch (op) {
+            case PLUS -> {
+                for (; i < bound; i += step) broadcast.add(vector(right, i)).intoArray(result, i);
+                for (; i < result.length; i++) result[i] = left + right[i];
+            }
+            case MINUS -> {
+                for (; i < bound; i += step) broadcast.sub(vector(right, i)).intoArray(result, i);
+                for (; i < result.length; i++) result[i] = left - right[i];
+            }
+            case STAR -> {
+                for (; i < bound; i += step) broadcast.mul(vector(right, i)).intoArray(result, i);
+                for (; i < result.length; i++) result[i] = left * right[i];
+            }
+            case SLASH -> {
+                for (; i < bound; i += step) broadcast.div(vector(right, i)).intoArray(result, i);
+                for (; i < result.length; i++) result[i] = left / right[i];
+            }
+            default -> throw new RuntimeException("Unsupported operator: " + op);
+        }
+        return result;
+    }
+
+    @Override
+    public double sum(double[] values) {
+        if (SPECIES.vectorBitSize() < SUM_SPECIES.vectorBitSize()) return scalar.sum(values);
+        DoubleVector acc = DoubleVector.zero(SUM_SPECIES);
+        int i = 0;
+        for (int bound = SUM_SPECIES.loopBound(values.length); i < bound; i += SUM_LANES) {
+            acc = acc.add(DoubleVector.fromArray(SUM_SPECIES, values, i));
+        }
+        double sum = acc.lane(0) + acc.lane(1) + acc.lane(2) + acc.lane(3);
+        for (; i < values.length; i++) sum += values[i];
+        return sum;
+    }
+
+    @Override
+    public double min(double[] values) {
+        if (values.length < SPECIES.length()) return scalar.min(values);
+        DoubleVector acc = vector(values, 0);
+        int i = SPECIES.length();
+        for (int bound = SPECIES.loopBound(values.length); i < bound; i += SPECIES.length()) {
+            acc = acc.min(vector(values, i));
+        }
+        double min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < values.length; i++) min = Math.min(min, values[i]);
+        return min;
+    }
+
+    @Override
+    public double max(double[] values) {
+        if (values.length < SPECIES.length()) return scalar.max(values);
+        DoubleVector acc = vector(values, 0);
+        int i = SPECIES.length();
+        for (int bound = SPECIES.loopBound(values.length); i < bound; i += SPECIES.length()) {
+            acc = acc.max(vector(values, i));
+        }
+        double max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < values.length; i++) max = Math.max(max, values[i]);
+        return max;
+    }
+
+    private static DoubleVector vector(double[] values, int offset) {
+        return DoubleVector.fromArray(SPECIES, values, offset);
+    }
+}
@@ -0,0 +1,275 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Differential test of integer inference.
+ *
+ * Random programs that mix integer counters, {@code ➗} and comparisons run on
+ * every engine (tree at -O0 and -O1, jit, vm, closure, --ast=flat and
+ * --stream), which must print exactly the same text. Each run is also checked
+ * against the vm with every {@code integer} flag cleared, which computes and
+ * prints as before inference existed: every line must have the reference's
+ * value, past ±2^53 too, and lines printed as integers must be whole.
+ */
+class IntegerDifferentialTest {
+    private static final int PROGRAMS = 300;
+
+    @Test
+    void randomProgramsPrintTheSameOnEveryEngine() {
+        for (int seed = 1; seed <= PROGRAMS; seed++) {
+            String program = new Generator(seed).program();
+            Map<String, String> outputs = runAll(program);
+            String expected = outputs.get("tree");
+            outputs.forEach((engine, actual) -> {
+                if (!actual.equals(expected)) {
+                    fail(engine + " differs from tree:\n" + actual + "\nexpected:\n" + expected + "\nprogram:\n" + program);
+                }
+            });
+            String problem = compare(run(program, false, IntegerDifferentialTest::reference), expected);
+            if (problem != null) fail(problem + "\nprogram:\n" + program);
+        }
+    }
+
+    @Test
+    void integersPastTwoToThe53PrintAsBefore() {
+        // What every engine printed before integer inference, but for comparisons, which are integers now
+        String loop = "📦 i == 1\n🔁 i < %d {\n    📦 x == x %s\n    📦 i == i ➕ 1\n}\n";
+        assertSame("📦 x == 1\n" + loop.formatted(26, "✖️ i") + "📢 x\n", "1.5511210043330986E25\n");
+        assertSame("📦 x == 1\n" + loop.formatted(30, "✖️ i") + "📢 x\n", "8.841761993739701E30\n");
+        assertSame("📦 x == 1\n" + loop.formatted(71, "✖️ 2") + "📢 x\n📦 y == x ➖ 1\n📢 y\n📢 y == x\n📢 y > 9007199254740000\n",
+                "1.1805916207174113E21\n1.1805916207174113E21\n1\n1\n");
+        // Long enough for the jit to compile the loop before it passes 2^53
+        assertSame("📦 x == 0\n" + loop.formatted(3001, "➕ 4000000000001") + "📢 x\n📦 z == 0 ➖ x\n📢 z\n📢 z ➕ x\n📢 z < 0\n",
+                "1.2000000000002252E16\n-1.2000000000002252E16\n0\n1\n");
+        String nan = "📦 x == 1\n" + loop.formatted(200, "✖️ i") + "📢 x\n📦 y == x ➖ x\n📢 y\n";
+        assertSame(nan + "📢 y > 0\n📢 y < 0\n📢 y == y\n📢 y != y\n📢 x > 0\n📢 0 ➖ x < 0\n",
+                "Infinity\nNaN\n0\n0\n0\n1\n1\n1\n");
+        assertSame(nan + "📦 c == 0\n📦 j == 0\n🔁 j < 3000 {\n    ❓ y > j {\n        📦 c == c ➕ 1\n    }\n"
+                + "    ❓ j < y {\n        📦 c == c ➕ 1\n    }\n    ❓ y != y {\n        📦 c == c ➕ 2\n    }\n"
+                + "    📦 j == j ➕ 1\n}\n📢 c\n", "Infinity\nNaN\n6000\n");
+    }
+
+    @Test
+    void deadBranchesKeepTheirTypes() {
+        assertSame("📦 x == 1\n❓ 0 {\n    📦 x == 1 ➗ 2\n}\n📢 x\n", "1.0\n");
+        assertSame("📦 x == 1\n🔁 0 {\n    📦 x == 1 ➗ 2\n}\n📢 x\n", "1.0\n");
+        assertSame("📦 x == 1\n❓ 1 {\n    📢 x\n} else {\n    📦 x == 1 ➗ 2\n}\n", "1.0\n");
+    }
+
+    @Test
+    void variablesAreTypedStatementByStatement() {
+        // A variable is an integer until the statement that first assigns it a decimal, streamed or not
+        assertSame("📦 x == 5\n📢 x\n📦 x == x ➗ 2\n📢 x\n", "5\n2.5\n");
+        assertSame("📦 i == 0\n🔁 i < 2 {\n    📢 i\n    📦 i == i ➕ 1\n}\n📦 i == i ➗ 4\n📢 i\n", "0\n1\n0.5\n");
+        assertSame("📦 x == 1\n🔁 x < 3 {\n    📢 x\n    📦 x == x ➕ 1 ➗ 2\n}\n", "1.0\n1.5\n2.0\n2.5\n");
+    }
+
+    @Test
+    void functionsAreTypedByTheirArguments() {
+        String f = "🧩 f(a) {\n    ↩️ a ➕ 1\n}\n";
+        String expected = "6\n1.5\n6\n";
+        // Called before its definition, in the definition's own order, and with a decimal in between
+        for (String program : List.of(f + "📢 f(5)\n📢 f(1 ➗ 2)\n📢 f(5)\n", "📢 f(5)\n📢 f(1 ➗ 2)\n📢 f(5)\n" + f)) {
+            assertEquals(expected, run(program, true, engine("tree")), program);
+            assertEquals(expected, run(program, true, engine("jit")), program);
+            if (program.startsWith("🧩")) assertEquals(expected, stream(program), program);
+        }
+        String fib = "🧠 🧩 fib(n) {\n    ❓ n < 2 {\n        ↩️ n\n    }\n    ↩️ fib(n ➖ 1) ➕ fib(n ➖ 2)\n}\n"
+                + "📢 fib(30)\n📢 fib(10 ➗ 1)\n";
+        assertEquals("832040\n55.0\n", run(fib, true, engine("tree")));
+        assertEquals("832040\n55.0\n", stream(fib));
+    }
+
+    private static void assertSame(String program, String expected) {
+        runAll(program).forEach((engine, actual) -> assertEquals(expected, actual, engine));
+    }
+
+    private static Map<String, String> runAll(String program) {
+        Map<String, String> outputs = new LinkedHashMap<>();
+        for (String engine : List.of("tree", "tree -O0", "jit", "vm", "closure")) {
+            outputs.put(engine, run(program, !engine.endsWith("-O0"), engine(engine)));
+        }
+        outputs.put("flat", text(out -> new FlatInterpreter(new FlatParser(new Lexer(program).lex()).parse().resolve(), out)
+                .execute()));
+        outputs.put("stream", stream(program));
+        return outputs;
+    }
+
+    // Returns null if every line has the reference's value, or a description
+    private static String compare(String reference, String actual) {
+        String[] expected = reference.lines().toArray(String[]::new);
+        String[] lines = actual.lines().toArray(String[]::new);
+        if (expected.length != lines.length) return expected.length + " lines expected, got " + lines.length;
+        for (int i = 0; i < lines.length; i++) {
+            double want = Double.parseDouble(expected[i]);
+            double got = Double.parseDouble(lines[i]);
+            if (!(want == got || Double.isNaN(want) && Double.isNaN(got))) {
+                return "line " + (i + 1) + ": reference " + expected[i] + ", got " + lines[i];
+            }
+            if (lines[i].matches("-?[0-9]+") && want != Math.rint(want)) {
+                return "line " + (i + 1) + ": printed " + lines[i] + " as an integer, reference " + expected[i];
+            }
+        }
+        return null;
+    }
+
+    private interface Engine {
+        void run(List<Ast.Stmt> program, Resolver resolver, Output out);
+    }
+
+    private interface Run {
+        void run(Output out);
+    }
+
+    // What the program printed, then "error: message" if it stopped with one
+    private static String text(Run run) {
+        BufferOutput out = new BufferOutput();
+        try {
+            run.run(out);
+            return out.toString();
+        } catch (RuntimeException e) {
+            return out + "error: " + e.getMessage();
+        }
+    }
+
+    private static String stream(String program) {
+        return text(out -> {
+            try {
+                new StreamingRunner("jit", true).run(new StringReader(program), out);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static String run(String program, boolean optimize, Engine engine) {
+        return text(out -> {
+            List<Ast.Stmt> statements = new Parser(new Lexer(program).lex()).parse();
+            if (optimize) statements = new Optimizer().optimize(statements);
+            Resolver resolver = new Resolver(statements);
+            resolver.resolve();
+            engine.run(statements, resolver, out);
+        });
+    }
+
+    private static Engine engine(String name) {
+        return switch (name) {
+            case "tree", "tree -O0" -> (program, resolver, out) ->
+                    new Interpreter(resolver.slotCount(), out).execute(program);
+            case "jit" -> (program, resolver, out) ->
+                    new Interpreter(resolver.slotCount(), out, new Jit()).execute(program);
+            case "vm" -> (program, resolver, out) ->
+                    new VM(resolver.slotCount(), out).run(new Compiler().compile(program, resolver.slotNames()));
+            case "closure" -> (program, resolver, out) ->
+                    new ClosureCompiler(resolver.slotCount(), out).compile(program).run();
+            default -> throw new IllegalArgumentException(name);
+        };
+    }
+
+    // The vm with inference undone: every value is a double and prints like one
+    private static void reference(List<Ast.Stmt> program, Resolver resolver, Output out) {
+        for (Ast.Stmt stmt : program) clear(stmt);
+        engine("vm").run(program, resolver, out);
+    }
+
+    private static void clear(Ast.Stmt stmt) {
+        stmt.widen = null;
+        if (stmt instanceof Ast.VarAssign s) {
+            s.integer = false;
+            clear(s.value);
+        } else if (stmt instanceof Ast.Print s) {
+            clear(s.value);
+        } else if (stmt instanceof Ast.Block b) {
+            for (Ast.Stmt inner : b.statements) clear(inner);
+        } else if (stmt instanceof Ast.If i) {
+            clear(i.condition);
+            clear(i.thenBranch);
+            if (i.elseBranch != null) clear(i.elseBranch);
+        } else if (stmt instanceof Ast.While w) {
+            clear(w.condition);
+            clear(w.body);
+        }
+    }
+
+    private static void clear(Ast.Expr expr) {
+        expr.integer = false;
+        if (expr instanceof Ast.Binary b) {
+            clear(b.left);
+            clear(b.right);
+        }
+    }
+
+    /** Random programs over a few variables, with loops sometimes long enough for the jit to compile. */
+    private static final class Generator {
+        private static final int VARIABLES = 5;
+        private static final String[] OPERATORS = {"➕", "➖", "✖️", "➗", ">", "<", "==", "!="};
+
+        private final Random random;
+        private final StringBuilder source = new StringBuilder();
+        private int loops;
+
+        Generator(long seed) {
+            this.random = new Random(seed);
+        }
+
+        String program() {
+            for (int v = 0; v < VARIABLES; v++) line(0, "📦 v" + v + " == " + random.nextInt(10));
+            int statements = 3 + random.nextInt(6);
+            for (int i = 0; i < statements; i++) statement(0);
+            for (int v = 0; v < VARIABLES; v++) line(0, "📢 v" + v);
+            return source.toString();
+        }
+
+        private void statement(int depth) {
+            int choice = random.nextInt(depth < 2 ? 10 : 6);
+            if (choice < 3) {
+                line(depth, "📦 v" + random.nextInt(VARIABLES) + " == " + expr(2));
+            } else if (choice < 5) {
+                line(depth, "📢 " + expr(2));
+            } else if (choice < 6) {
+                // Integer-only update, so decimals do not spread to every variable; ✖️ soon passes 2^53 in long loops
+                int v = random.nextInt(VARIABLES);
+                line(depth, "📦 v" + v + " == v" + v + " " + OPERATORS[random.nextInt(3)] + " " + random.nextInt(5));
+            } else if (choice < 8) {
+                line(depth, "❓ " + expr(1) + " {");
+                block(depth + 1);
+                if (random.nextBoolean()) {
+                    line(depth, "} else {");
+                    block(depth + 1);
+                }
+                line(depth, "}");
+            } else {
+                String counter = "i" + loops++;
+                int iterations = depth == 0 && random.nextBoolean() ? Jit.THRESHOLD + random.nextInt(1000) : random.nextInt(20);
+                line(depth, "📦 " + counter + " == 0");
+                line(depth, "🔁 " + counter + " < " + iterations + " {");
+                block(depth + 1);
+                line(depth + 1, "📦 " + counter + " == " + counter + " ➕ 1");
+                line(depth, "}");
+            }
+        }
+
+        private void block(int depth) {
+            int statements = 1 + random.nextInt(3);
+            for (int i = 0; i < statements; i++) statement(depth);
+        }
+
+        private String expr(int depth) {
+            if (depth == 0 || random.nextInt(3) == 0) {
+                return random.nextBoolean() ? "v" + random.nextInt(VARIABLES) : Integer.toString(random.nextInt(12));
+            }
+            return expr(depth - 1) + " " + OPERATORS[random.nextInt(OPERATORS.length)] + " " + expr(depth - 1);
+        }
+
+        private void line(int depth, String text) {
+            source.append("    ".repeat(depth)).append(text).append('\n');
+        }
+    }
+}
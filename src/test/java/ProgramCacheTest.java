@@ -0,0 +1,87 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Cache entries that are corrupt or were written by another format version must
+ * be detected, deleted and rebuilt by {@link Main#load}, which then stores a
+ * good entry that later runs hit.
+ */
+class ProgramCacheTest {
+    private static final String SOURCE = "📦 x == 0\n🔁 x < 3 {\n    📢 x ➕ 1 ➗ 2\n    📦 x == x ➕ 1\n}\n";
+    private static final String OUTPUT = "0.5\n1.5\n2.5\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void checksumMismatchIsRebuilt() throws IOException {
+        assertRebuilt(bytes -> {
+            bytes[bytes.length - 1] ^= 1;
+            return bytes;
+        });
+    }
+
+    @Test
+    void truncatedEntryIsRebuilt() throws IOException {
+        assertRebuilt(bytes -> Arrays.copyOf(bytes, bytes.length - 3));
+    }
+
+    @Test
+    void otherFormatVersionIsRebuilt() throws IOException {
+        // The format version follows the 4-byte magic
+        assertRebuilt(bytes -> {
+            ByteBuffer.wrap(bytes).putInt(4, AstCodec.FORMAT_VERSION - 1);
+            return bytes;
+        });
+    }
+
+    @Test
+    void slowHitsSaveNothing() {
+        ProgramCache cache = new ProgramCache(directory);
+        cache.recordHit(5_000_000, 2_000_000);
+        ProgramCache.Stats stats = cache.recordHit(1_000_000, 4_000_000);
+        assertEquals(3_000_000, stats.savedNanos);
+        assertEquals(6_000_000, stats.loadNanos);
+    }
+
+    private void assertRebuilt(UnaryOperator<byte[]> damage) throws IOException {
+        Path script = Files.writeString(directory.resolve("script.emj"), SOURCE);
+        Main.Options options = new Main.Options();
+        options.cache = new ProgramCache(directory.resolve("cache"));
+        String key = ProgramCache.key(Files.readAllBytes(script), options.optimize);
+        Path entry = directory.resolve("cache").resolve(key + ".emjc");
+
+        assertEquals(OUTPUT, run(Main.load(script, options)));
+        Files.write(entry, damage.apply(Files.readAllBytes(entry)));
+        assertEquals(OUTPUT, run(Main.load(script, options)));
+        ProgramCache.Stats stats = options.cache.stats();
+        assertEquals(0, stats.hits);
+        assertEquals(2, stats.misses);
+
+        assertNotNull(options.cache.load(key));
+        assertEquals(OUTPUT, run(Main.load(script, options)));
+        assertEquals(1, options.cache.stats().hits);
+
+        Files.write(entry, damage.apply(Files.readAllBytes(entry)));
+        assertNull(options.cache.load(key));
+        assertFalse(Files.exists(entry));
+    }
+
+    private static String run(List<Ast.Stmt> program) {
+        BufferOutput out = new BufferOutput();
+        Main.run(program, "tree", out);
+        return out.toString();
+    }
+}